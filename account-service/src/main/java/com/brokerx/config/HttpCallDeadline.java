@@ -0,0 +1,81 @@
+package com.brokerx.config;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Échéance partagée par tous les appels HTTP d'un même traitement.
+ * Chaque appel effectué dans {@link #within} reçoit comme timeout le temps restant,
+ * et un appel lancé après l'échéance échoue immédiatement.
+ */
+public final class HttpCallDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private HttpCallDeadline() {}
+
+    public static <T> T within(Duration budget, Supplier<T> call) {
+        return until(System.nanoTime() + budget.toNanos(), call);
+    }
+
+    /**
+     * Exécute l'appel avec une échéance absolue (System.nanoTime), par exemple celle
+     * héritée d'un thread parent lors d'un appel en parallèle.
+     */
+    public static <T> T until(long deadlineNanos, Supplier<T> call) {
+        Long outer = DEADLINE_NANOS.get();
+        long deadline = deadlineNanos;
+        // Une échéance imbriquée ne peut pas repousser celle de l'appelant
+        if (outer != null && outer - deadline < 0) {
+            deadline = outer;
+        }
+        DEADLINE_NANOS.set(deadline);
+        try {
+            return call.get();
+        } finally {
+            if (outer != null) {
+                DEADLINE_NANOS.set(outer);
+            } else {
+                DEADLINE_NANOS.remove();
+            }
+        }
+    }
+
+    /**
+     * Échéance courante du thread, ou null si aucun appel n'est borné.
+     */
+    public static Long current() {
+        return DEADLINE_NANOS.get();
+    }
+
+    static HttpContext httpContext(RequestConfig defaults, URI uri) {
+        HttpClientContext context = HttpClientContext.create();
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            context.setRequestConfig(defaults);
+            return context;
+        }
+
+        long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+        if (remainingMs <= 0) {
+            throw new ResourceAccessException("Deadline exceeded before calling " + uri);
+        }
+        Timeout remaining = Timeout.ofMilliseconds(remainingMs);
+        context.setRequestConfig(RequestConfig.copy(defaults)
+                .setConnectionRequestTimeout(min(defaults.getConnectionRequestTimeout(), remaining))
+                .setResponseTimeout(min(defaults.getResponseTimeout(), remaining))
+                .build());
+        return context;
+    }
+
+    private static Timeout min(Timeout configured, Timeout remaining) {
+        return configured != null && configured.compareTo(remaining) < 0 ? configured : remaining;
+    }
+}
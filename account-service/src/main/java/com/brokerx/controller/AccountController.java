@@ -1,10 +1,15 @@
 package com.brokerx.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.List;
+import java.util.Map;
 import com.brokerx.entity.Account;
 import com.brokerx.entity.User;
+import com.brokerx.service.AccountOutbox;
 import com.brokerx.service.AccountService;
 import com.brokerx.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.brokerx.dto.account.AccountDto;
@@ -17,10 +22,15 @@ import java.util.UUID;
 public class AccountController {
     private final AccountService accountService;
     private final UserService userService;
+    private final AccountOutbox accountOutbox;
+
+    @Value("${internal.service-token}")
+    private String internalServiceToken;
     
-    public AccountController(AccountService accountService, UserService userService) {
+    public AccountController(AccountService accountService, UserService userService, AccountOutbox accountOutbox) {
         this.accountService = accountService;
         this.userService = userService;
+        this.accountOutbox = accountOutbox;
     }
 
     @PostMapping("/{userId}")
@@ -55,4 +65,20 @@ public class AccountController {
         }
         return ResponseEntity.ok(account);
     }
-}
\ No newline at end of file
+
+    /**
+     * Flux interne des changements de statut (outbox), lu par curseur par la projection d'order-service.
+     * Réservé aux services : jeton partagé dans l'en-tête X-Internal-Token (le port du service est joignable
+     * hors de la gateway). Sans {@code after}, seule la tête du flux est renvoyée.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Map<String, Object>> getChanges(@RequestParam(defaultValue = "-1") long after,
+                                                          @RequestParam(defaultValue = "500") int limit,
+                                                          @RequestHeader(value = "X-Internal-Token", required = false) String internalToken) {
+        if (internalToken == null || !MessageDigest.isEqual(internalToken.getBytes(StandardCharsets.UTF_8),
+                                                            internalServiceToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(accountOutbox.readAfter(after, limit));
+    }
+}
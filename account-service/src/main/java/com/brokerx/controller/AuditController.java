@@ -32,6 +32,13 @@ public class AuditController {
         );
     }
 
+    // Endpoint pour la création de logs par lots (expédition asynchrone des autres services)
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void createAuditLogs(@RequestBody List<CreateAuditLogRequest> requests) {
+        auditService.logActions(requests);
+    }
+
     // Endpoint pour LIRE tous les logs
     @GetMapping
     public ResponseEntity<List<AuditLogDto>> getAllAuditLogs() {
@@ -1,4 +1,5 @@
 package com.brokerx.dto.audit;
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 public class CreateAuditLogRequest {
@@ -8,4 +9,5 @@ public class CreateAuditLogRequest {
     public UUID performedBy;
     public String ipAddress;
     public Map<String, Object> details;
+    public LocalDateTime performedAt;
 }
\ No newline at end of file
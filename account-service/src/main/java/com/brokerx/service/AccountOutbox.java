@@ -0,0 +1,103 @@
+package com.brokerx.service;
+
+import com.brokerx.entity.Account;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox transactionnel des statuts de compte : chaque écriture d'un compte ajoute une ligne portant
+ * son statut, dans la même transaction. La projection d'order-service lit le flux par curseur sur seq
+ * via GET /accounts/changes ; les lignes anciennes sont purgées.
+ *
+ * L'insertion doit suivre l'écriture du compte (flush) : le verrou de ligne ordonne alors les seq
+ * d'un même compte dans l'ordre des commits.
+ */
+@Component
+public class AccountOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountOutbox.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.max-batch:1000}")
+    private int maxBatch;
+
+    @Value("${outbox.retention:PT24H}")
+    private Duration retention;
+
+    @Value("${outbox.purge-interval:PT10M}")
+    private Duration purgeInterval;
+
+    private ScheduledExecutorService purger;
+
+    public AccountOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-outbox-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = purgeInterval.toMillis();
+        purger.scheduleWithFixedDelay(this::purge, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    /**
+     * À appeler dans la transaction qui modifie le compte, après son flush.
+     */
+    public void record(Account account) {
+        jdbcTemplate.update("INSERT INTO account_outbox (account_id, status) VALUES (?, ?)",
+                            account.getAccountId(), account.getStatus());
+    }
+
+    /**
+     * Changements de seq strictement supérieure à {@code after}, dans l'ordre, et seq la plus haute connue.
+     * Sans curseur (after négatif), seule la tête est renvoyée : le consommateur démarre à partir d'elle.
+     */
+    public Map<String, Object> readAfter(long after, int limit) {
+        Long head = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM account_outbox", Long.class);
+        List<Map<String, Object>> changes = after < 0
+            ? List.of()
+            : jdbcTemplate.queryForList(
+                "SELECT seq, account_id AS \"accountId\", status " +
+                "FROM account_outbox WHERE seq > ? ORDER BY seq LIMIT ?",
+                after, Math.max(1, Math.min(limit, maxBatch)));
+        return Map.of("head", head != null ? head : 0L, "changes", changes);
+    }
+
+    private void purge() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM account_outbox WHERE created_at < ?",
+                                             Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+            if (purged > 0) {
+                logger.info("Account outbox purged: {} rows older than {}", purged, retention);
+            }
+        } catch (Exception e) {
+            logger.warn("Account outbox purge failed: {}", e.getMessage());
+        }
+    }
+}
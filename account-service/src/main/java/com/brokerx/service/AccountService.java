@@ -4,26 +4,36 @@ import com.brokerx.entity.Account;
 import com.brokerx.entity.User;
 import com.brokerx.repository.AccountRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.UUID;
 
 @Service
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final AccountOutbox accountOutbox;
 
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, AccountOutbox accountOutbox) {
         this.accountRepository = accountRepository;
+        this.accountOutbox = accountOutbox;
     }
 
+    @Transactional
     public Account createAccount(User user) {
         Account account = new Account();
         account.setUser(user);
         account.setStatus("PENDING");
-        return accountRepository.save(account);
+        return saveAccount(account);
     }
 
+    /**
+     * Toute écriture de compte passe ici : le statut part dans l'outbox avec la même transaction.
+     */
+    @Transactional
     public Account saveAccount(Account account) {
-        return accountRepository.save(account);
+        Account saved = accountRepository.saveAndFlush(account);
+        accountOutbox.record(saved);
+        return saved;
     }
     
     public Account getAccountById(UUID accountId) {
@@ -1,6 +1,7 @@
 package com.brokerx.service;
 
 import com.brokerx.dto.audit.AuditLogDto;
+import com.brokerx.dto.audit.CreateAuditLogRequest;
 import com.brokerx.entity.AuditLog;
 import com.brokerx.repository.AuditLogRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -8,7 +9,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -45,6 +48,36 @@ public class AuditService {
         }
     }
     
+    /**
+     * Enregistre un lot de logs reçus d'un autre service en une seule insertion groupée,
+     * en conservant l'horodatage d'origine.
+     */
+    @Transactional
+    public void logActions(List<CreateAuditLogRequest> requests) {
+        List<AuditLog> logs = new ArrayList<>(requests.size());
+        for (CreateAuditLogRequest request : requests) {
+            AuditLog log = new AuditLog();
+            log.setEntityType(request.entityType);
+            log.setEntityId(request.entityId);
+            log.setAction(request.action);
+            log.setPerformedBy(request.performedBy);
+            log.setIpAddress(request.ipAddress);
+            if (request.performedAt != null) {
+                log.setPerformedAt(request.performedAt);
+            }
+
+            if (request.details != null && !request.details.isEmpty()) {
+                try {
+                    log.setNewValues(objectMapper.writeValueAsString(request.details));
+                } catch (JsonProcessingException e) {
+                    logger.error("Error serializing audit details", e);
+                }
+            }
+            logs.add(log);
+        }
+        auditLogRepository.saveAll(logs);
+    }
+
     public List<AuditLogDto> getAllLogs() {
         return auditLogRepository.findAll()
                 .stream()
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
 
 @SpringBootApplication
 public class GatewayApplication {
@@ -15,6 +16,12 @@ public class GatewayApplication {
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
         return builder.routes()
+            // Flux internes des outbox (lus par order-service) : jamais exposés par la gateway
+            .route("internal-changes-blocked", r -> r
+                .order(-1)
+                .path("/accounts/changes", "/wallets/changes")
+                .filters(f -> f.setStatus(HttpStatus.NOT_FOUND))
+                .uri("no://op"))
             .route("account-service", r -> r
                 .path("/auth/**", "/users/**", "/accounts/**", "/audit/**")
                 .uri("http://account-service:8081"))
@@ -0,0 +1,67 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.service.InstrumentIndex;
+import com.brokerx.service.ReservationJournal;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Doublures partagées par les benchmarks : services construits sans contexte Spring,
+ * sans base ni réseau. Les champs {@code @Value} sont renseignés par réflexion avec les valeurs par défaut du yml.
+ */
+final class BenchmarkFixtures {
+
+    static final String[] SYMBOLS = {"AAPL", "AMZN", "GOOGL", "MSFT", "TSLA"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Journal sans base : la mesure ne compte que le chemin en mémoire.
+     */
+    static ReservationJournal noopJournal() {
+        return new ReservationJournal(null, null) {
+            @Override
+            public void append(EventType type, long orderHi, long orderLo,
+                               long walletHi, long walletLo, long amountUnits) {
+            }
+        };
+    }
+
+    /**
+     * Référentiel figé des {@link #SYMBOLS} (limites de V4__instruments.sql), recherché comme l'index réel.
+     */
+    static InstrumentIndex instrumentIndex() {
+        InstrumentIndex.Instrument[] instruments = new InstrumentIndex.Instrument[SYMBOLS.length];
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            instruments[i] = new InstrumentIndex.Instrument(SYMBOLS[i], new BigDecimal("0.01"), 1, 1, 100_000,
+                new BigDecimal("0.01"), new BigDecimal("10000.00"), new BigDecimal("100000.00"), "ACTIVE");
+        }
+        return new InstrumentIndex(null) {
+            @Override
+            public Instrument find(String symbol) {
+                int index = Arrays.binarySearch(SYMBOLS, symbol, String.CASE_INSENSITIVE_ORDER);
+                return index >= 0 ? instruments[index] : null;
+            }
+        };
+    }
+
+    static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName + " on " + target.getClass(), e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass());
+    }
+}
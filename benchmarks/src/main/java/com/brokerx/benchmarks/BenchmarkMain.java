@@ -0,0 +1,75 @@
+package com.brokerx.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Point d'entrée du jar : mêmes options que org.openjdk.jmh.Main, mais les résultats sont écrits par défaut
+ * en JSON dans target/jmh-results/&lt;commit&gt;.json (BENCH_LABEL, sinon le commit git, sinon l'horodatage).
+ * Deux fichiers se comparent avec {@link CompareResults}.
+ *
+ * Une référence n'a de sens que mesurée sur une machine multi-cœur, avec au moins 3 forks (-f 3) et la
+ * contention relancée à 1, 2, 4 et 8 threads (une exécution par valeur de -t) : sur un seul cœur,
+ * ReservationContentionBenchmark tourne sur un thread et les écarts restent dans le bruit.
+ *
+ * java -jar benchmarks/target/benchmarks.jar [motif] [options JMH]
+ */
+public final class BenchmarkMain {
+
+    private static final Path RESULTS_DIR = Path.of("target", "jmh-results");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        if (Runtime.getRuntime().availableProcessors() < 2) {
+            System.out.println("WARNING: single CPU, contention benchmarks run on one thread; not a reference run");
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResult().hasValue() && !cli.getResultFormat().hasValue()) {
+            Files.createDirectories(RESULTS_DIR);
+            Path result = RESULTS_DIR.resolve(label() + ".json");
+            options.resultFormat(ResultFormatType.JSON).result(result.toString());
+            System.out.println("JMH results: " + result.toAbsolutePath());
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static String label() {
+        String label = System.getenv("BENCH_LABEL");
+        if (label != null && !label.isBlank()) {
+            return label.trim();
+        }
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String commit = reader.readLine();
+                if (git.waitFor() == 0 && commit != null && !commit.isBlank()) {
+                    return commit.trim();
+                }
+            }
+        } catch (Exception e) {
+            // Pas de git dans l'environnement : horodatage
+        }
+        return LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.config.JwtConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du jeton JWT par requête. {@code extractEmail} est une lecture (vérification de signature comprise) ;
+ * {@code authenticationFilter} rejoue la séquence de JwtAuthenticationFilter, qui relit le jeton cinq fois.
+ *
+ * java -jar benchmarks/target/benchmarks.jar JwtParsingBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParsingBenchmark {
+
+    private static final String EMAIL = "bench@brokerx.com";
+
+    private JwtConfig jwtConfig;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtConfig = new JwtConfig();
+        BenchmarkFixtures.inject(jwtConfig, "secret", "mySecretKeyForBrokerXPlatform2025ThisIsVerySecretAndLongEnough");
+        BenchmarkFixtures.inject(jwtConfig, "expiration", 86_400_000L);
+        token = jwtConfig.generateToken(EMAIL, UUID.randomUUID(), "USER");
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return jwtConfig.extractEmail(token);
+    }
+
+    @Benchmark
+    public void authenticationFilter(Blackhole blackhole) {
+        String email = jwtConfig.extractEmail(token);
+        if (jwtConfig.validateToken(token, email)) {
+            blackhole.consume(jwtConfig.extractUserId(token));
+            blackhole.consume(jwtConfig.extractRole(token));
+        }
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtConfig.generateToken(EMAIL, UUID.randomUUID(), "USER");
+    }
+}
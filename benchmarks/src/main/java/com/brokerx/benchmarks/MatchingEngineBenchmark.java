@@ -0,0 +1,113 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.matching.BookOrder;
+import com.brokerx.matching.MatchListener;
+import com.brokerx.matching.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit d'appariement d'un carnet (ordres/s), mesuré sur le thread écrivain seul.
+ * Les ordres viennent d'un pool pré-alloué : la mesure ne compte que le carnet.
+ *
+ * java -jar benchmarks/target/benchmarks.jar MatchingEngineBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchingEngineBenchmark {
+
+    private static final long MID_PRICE_TICKS = 15_000L;
+    private static final int POOL_SIZE = 1 << 16;
+
+    /** Nombre de ticks de part et d'autre du milieu : plus il est grand, plus le carnet est profond. */
+    @Param({"10", "100"})
+    private int priceSpread;
+
+    @Param({"0.1"})
+    private double marketRatio;
+
+    private OrderBook book;
+    private BookOrder[] pool;
+    private UUID[] ids;
+    private boolean[] buys;
+    private boolean[] markets;
+    private long[] prices;
+    private int[] quantities;
+    private int cursor;
+    private CountingListener listener;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        pool = new BookOrder[POOL_SIZE];
+        ids = new UUID[POOL_SIZE];
+        buys = new boolean[POOL_SIZE];
+        markets = new boolean[POOL_SIZE];
+        prices = new long[POOL_SIZE];
+        quantities = new int[POOL_SIZE];
+
+        UUID accountId = UUID.randomUUID();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = new BookOrder();
+            ids[i] = new UUID(accountId.getMostSignificantBits(), i);
+            buys[i] = random.nextBoolean();
+            markets[i] = random.nextDouble() < marketRatio;
+            prices[i] = markets[i] ? OrderBook.NO_PRICE
+                                   : MID_PRICE_TICKS + random.nextInt(2 * priceSpread + 1) - priceSpread;
+            quantities[i] = 1 + random.nextInt(100);
+        }
+
+        book = new OrderBook("BENCH", 4 * priceSpread, POOL_SIZE);
+        listener = new CountingListener();
+        cursor = 0;
+    }
+
+    @Benchmark
+    public long submit(Blackhole blackhole) {
+        int i = cursor;
+        cursor = (i + 1) & (POOL_SIZE - 1);
+
+        BookOrder order = pool[i];
+        if (order.isResting()) {
+            // L'emplacement est réutilisé : l'ancien ordre encore au repos est annulé
+            book.cancel(ids[i]);
+        }
+        order.init(ids[i], null, null, buys[i], markets[i], prices[i], quantities[i]);
+        book.submit(order, listener);
+
+        blackhole.consume(listener.trades);
+        return book.getTradeCount();
+    }
+
+    private static final class CountingListener implements MatchListener {
+        private long trades;
+
+        @Override
+        public void onTrade(String symbol, BookOrder aggressor, BookOrder resting, long priceTicks, int quantity) {
+            trades++;
+        }
+
+        @Override
+        public void onCancelled(String symbol, BookOrder order, int cancelledQuantity) {
+        }
+    }
+}
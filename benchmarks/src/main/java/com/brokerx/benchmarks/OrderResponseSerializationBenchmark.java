@@ -0,0 +1,71 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.dto.order.OrderResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation Jackson des réponses d'ordres, avec un ObjectMapper configuré comme celui de Spring Boot
+ * (dates ISO via le module java.time). {@code pageSize} = 1 : réponse de placement ; 500 : page maximale de GET /orders.
+ *
+ * java -jar benchmarks/target/benchmarks.jar OrderResponseSerializationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderResponseSerializationBenchmark {
+
+    @Param({"1", "500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private OrderResponse single;
+    private List<OrderResponse> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        UUID accountId = UUID.randomUUID();
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(new OrderResponse(UUID.randomUUID(), accountId, "bench-" + i,
+                BenchmarkFixtures.SYMBOLS[i % BenchmarkFixtures.SYMBOLS.length], i % 2 == 0 ? "BUY" : "SELL",
+                "LIMIT", 100, new BigDecimal("150.25"), "DAY", "WORKING", 0, 100,
+                LocalDateTime.now(), "Order found"));
+        }
+        single = page.get(0);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return pageSize == 1
+            ? objectMapper.writeValueAsBytes(single)
+            : objectMapper.writeValueAsBytes(page);
+    }
+}
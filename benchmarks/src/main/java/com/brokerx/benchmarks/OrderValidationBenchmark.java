@@ -0,0 +1,78 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.dto.order.OrderRequest;
+import com.brokerx.service.OrderValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la validation de base d'un ordre (référentiel en mémoire, aucun appel distant).
+ * {@code rejected} mesure le refus le plus tardif : le prix hors pas de cotation formate son message.
+ *
+ * java -jar benchmarks/target/benchmarks.jar OrderValidationBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderValidationBenchmark {
+
+    private OrderValidationService validationService;
+    private OrderRequest limit;
+    private OrderRequest market;
+    private OrderRequest offTick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validationService = new OrderValidationService(BenchmarkFixtures.instrumentIndex());
+        limit = request("LIMIT", new BigDecimal("150.25"));
+        market = request("MARKET", null);
+        offTick = request("LIMIT", new BigDecimal("150.255"));
+        if (!validationService.validateBasicFields(limit).isValid()
+                || !validationService.validateBasicFields(market).isValid()
+                || validationService.validateBasicFields(offTick).isValid()) {
+            throw new IllegalStateException("Benchmark fixtures do not match the instrument limits");
+        }
+    }
+
+    @Benchmark
+    public OrderValidationService.ValidationResult limitOrder() {
+        return validationService.validateBasicFields(limit);
+    }
+
+    @Benchmark
+    public OrderValidationService.ValidationResult marketOrder() {
+        return validationService.validateBasicFields(market);
+    }
+
+    @Benchmark
+    public OrderValidationService.ValidationResult rejected() {
+        return validationService.validateBasicFields(offTick);
+    }
+
+    private static OrderRequest request(String orderType, BigDecimal price) {
+        OrderRequest request = new OrderRequest();
+        request.setClientOrderId("bench-" + orderType);
+        request.setSymbol("msft");
+        request.setSide("BUY");
+        request.setOrderType(orderType);
+        request.setQuantity(100);
+        request.setPrice(price);
+        request.setTimeInForce("DAY");
+        return request;
+    }
+}
@@ -0,0 +1,210 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.dto.order.OrderRequest;
+import com.brokerx.dto.order.OrderResponse;
+import com.brokerx.entity.Order;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.repository.OrderRepository;
+import com.brokerx.service.AccountContextCache;
+import com.brokerx.service.AccountProjection;
+import com.brokerx.service.AuditService;
+import com.brokerx.service.ClientOrderIdIndex;
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.OrderService;
+import com.brokerx.service.OrderValidationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin complet de OrderService.placeOrder sans base ni réseau : contexte de compte en cache,
+ * lecture du wallet par un RestTemplate en mémoire, validation, index des clientOrderId,
+ * réservation conditionnelle et sauvegarde par un dépôt factice. Audit, outbox et journal sont neutralisés ;
+ * les synchronisations de transaction sont enregistrées puis abandonnées (ni carnet ni SSE).
+ * Chaque achat libère sa réservation dans la mesure pour garder la table de réservations stable.
+ *
+ * java -jar benchmarks/target/benchmarks.jar PlaceOrderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaceOrderBenchmark {
+
+    private static final String EMAIL = "bench@brokerx.com";
+    private static final int REQUESTS = 1024;
+
+    @Param({"BUY", "SELL"})
+    private String side;
+
+    private OrderService orderService;
+    private FundReservationService fundReservationService;
+    private UUID walletId;
+    private boolean buy;
+    private OrderRequest[] requests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UUID userId = UUID.randomUUID();
+        UUID accountId = UUID.randomUUID();
+        walletId = UUID.randomUUID();
+        buy = "BUY".equals(side);
+
+        OrderRepository orderRepository = orderRepository();
+        fundReservationService = new FundReservationService(BenchmarkFixtures.noopJournal(), null);
+
+        AccountContextCache accountContextCache = new AccountContextCache();
+        BenchmarkFixtures.inject(accountContextCache, "maxSize", 10_000);
+        BenchmarkFixtures.inject(accountContextCache, "ttl", Duration.ofDays(1));
+        accountContextCache.put(EMAIL, new AccountContextCache.AccountContext(userId, accountId, "ACTIVE", walletId));
+
+        ClientOrderIdIndex clientOrderIdIndex = new ClientOrderIdIndex(orderRepository);
+        BenchmarkFixtures.inject(clientOrderIdIndex, "maxAccounts", 10_000);
+        BenchmarkFixtures.inject(clientOrderIdIndex, "minCapacity", 1024);
+        BenchmarkFixtures.inject(clientOrderIdIndex, "recentIds", 256);
+
+        RestTemplate walletService = walletService(accountId, walletId);
+        orderService = new OrderService(
+            orderRepository,
+            new OrderValidationService(BenchmarkFixtures.instrumentIndex()),
+            fundReservationService,
+            new AuditService(null) {
+                @Override
+                public void logAction(String entityType, UUID entityId, String action,
+                                      UUID performedBy, String ipAddress, Map<String, Object> details) {
+                }
+            },
+            walletService,
+            accountContextCache,
+            null,
+            null,
+            null,
+            clientOrderIdIndex,
+            null,
+            null,
+            null,
+            // Projection jamais démarrée : le solde est lu par le RestTemplate en mémoire
+            new AccountProjection(walletService),
+            new OrderEventRepository(null) {
+                @Override
+                public void recordAll(List<Order> orders, String eventType) {
+                }
+            },
+            null
+        );
+        BenchmarkFixtures.inject(orderService, "remoteDeadlineMs", 3000L);
+        BenchmarkFixtures.inject(orderService, "maxBatchSize", 500);
+        BenchmarkFixtures.inject(orderService, "maxPageSize", 500);
+
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(EMAIL, null, List.of()));
+
+        requests = new OrderRequest[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            OrderRequest request = new OrderRequest();
+            request.setClientOrderId("bench-" + i);
+            request.setSymbol(BenchmarkFixtures.SYMBOLS[i % BenchmarkFixtures.SYMBOLS.length]);
+            request.setSide(side);
+            request.setOrderType("LIMIT");
+            request.setQuantity(100);
+            request.setPrice(new BigDecimal("150.25"));
+            request.setTimeInForce("DAY");
+            requests[i] = request;
+        }
+
+        // placeOrder absorbe ses erreurs dans la réponse : on vérifie que le chemin mesuré est bien le succès
+        OrderResponse response = placeOrder();
+        if (!response.isSuccess() || response.getOrderId() == null) {
+            throw new IllegalStateException("placeOrder failed in benchmark setup: " + response.getMessage());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_THREADLOCAL);
+    }
+
+    @Benchmark
+    public OrderResponse placeOrder() {
+        OrderRequest request = requests[next];
+        next = (next + 1) & (REQUESTS - 1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            OrderResponse response = orderService.placeOrder(request);
+            if (buy && response.getOrderId() != null) {
+                fundReservationService.releaseFunds(response.getOrderId(), walletId);
+            }
+            return response;
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Dépôt sans base : l'ordre reçoit son identifiant à la sauvegarde, aucun doublon n'existe.
+     */
+    private static OrderRepository orderRepository() {
+        return (OrderRepository) Proxy.newProxyInstance(
+            OrderRepository.class.getClassLoader(),
+            new Class<?>[] {OrderRepository.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "saveAndFlush", "save" -> {
+                    Order order = (Order) args[0];
+                    order.setOrderId(UUID.randomUUID());
+                    yield order;
+                }
+                case "findByAccountIdAndClientOrderId" -> Optional.empty();
+                case "findClientOrderIdsByAccountId" -> List.of();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "BenchmarkOrderRepository";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /**
+     * wallet-service en mémoire : GET /wallets/account/{accountId} renvoie un solde largement suffisant.
+     */
+    private static RestTemplate walletService(UUID accountId, UUID walletId) {
+        Map<String, Object> wallet = Map.of(
+            "walletId", walletId.toString(),
+            "accountId", accountId.toString(),
+            "balance", 1_000_000_000.00
+        );
+        return new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> getForEntity(String url, Class<T> responseType, Object... uriVariables) {
+                return (ResponseEntity<T>) ResponseEntity.ok(wallet);
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.brokerx.benchmarks;
+
+import com.brokerx.service.FundReservationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de la réservation conditionnelle (vérification du disponible + réservation, puis libération)
+ * sous contention, tous les cœurs actifs. {@code wallets} règle la contention : 1 = tous les threads
+ * sur le même wallet, 4096 = quasiment aucun conflit. {@code globalLock} sert de référence :
+ * la même opération derrière un verrou unique ne passe pas à l'échelle.
+ *
+ * java -jar benchmarks/target/benchmarks.jar ReservationContentionBenchmark -t 1,2,4,8
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ReservationContentionBenchmark {
+
+    private static final BigDecimal BALANCE = new BigDecimal("1000000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("150.25");
+    private static final int IDS_PER_THREAD = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Reservations {
+
+        @Param({"1", "64", "4096"})
+        private int wallets;
+
+        private FundReservationService service;
+        private UUID[] walletIds;
+        private final Object globalLock = new Object();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            service = new FundReservationService(BenchmarkFixtures.noopJournal(), null);
+            walletIds = new UUID[wallets];
+            for (int i = 0; i < wallets; i++) {
+                walletIds[i] = UUID.randomUUID();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private UUID[] orderIds;
+        private int next;
+        private int wallet;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            orderIds = new UUID[IDS_PER_THREAD];
+            for (int i = 0; i < IDS_PER_THREAD; i++) {
+                orderIds[i] = UUID.randomUUID();
+            }
+            wallet = ThreadLocalRandom.current().nextInt(1 << 16);
+        }
+
+        private UUID nextOrder() {
+            UUID orderId = orderIds[next];
+            next = (next + 1) & (IDS_PER_THREAD - 1);
+            return orderId;
+        }
+
+        private UUID nextWallet(Reservations state) {
+            wallet++;
+            return state.walletIds[wallet % state.walletIds.length];
+        }
+    }
+
+    @Benchmark
+    public boolean stripedLocks(Reservations state, Cursor cursor) {
+        UUID orderId = cursor.nextOrder();
+        UUID walletId = cursor.nextWallet(state);
+        boolean reserved = state.service.reserveIfAvailable(orderId, walletId, BALANCE, AMOUNT);
+        state.service.releaseFunds(orderId, walletId);
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean globalLock(Reservations state, Cursor cursor) {
+        UUID orderId = cursor.nextOrder();
+        UUID walletId = cursor.nextWallet(state);
+        boolean reserved;
+        synchronized (state.globalLock) {
+            reserved = state.service.reserveIfAvailable(orderId, walletId, BALANCE, AMOUNT);
+        }
+        state.service.releaseFunds(orderId, walletId);
+        return reserved;
+    }
+}
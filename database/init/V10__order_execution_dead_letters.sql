@@ -0,0 +1,16 @@
+-- Exécutions du moteur d'appariement que l'écrivain n'a pas pu appliquer après plusieurs tentatives.
+-- Le carnet les a déjà appariées : elles sont mises de côté (jamais perdues) pour reprise manuelle.
+CREATE TABLE IF NOT EXISTS order_execution_dead_letters (
+    dead_letter_id BIGSERIAL PRIMARY KEY,
+    order_id UUID NOT NULL,
+    quantity INTEGER NOT NULL,
+    price_ticks BIGINT NOT NULL,
+    cancelled BOOLEAN NOT NULL,
+    error TEXT,
+    parked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    resolved_at TIMESTAMP
+);
+
+-- Exécutions en attente de reprise
+CREATE INDEX IF NOT EXISTS idx_order_execution_dead_letters_open
+    ON order_execution_dead_letters(parked_at) WHERE resolved_at IS NULL;
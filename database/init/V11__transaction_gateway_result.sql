@@ -0,0 +1,9 @@
+-- Résultat du prestataire enregistré dès sa réponse, avant l'application au grand livre :
+-- une transaction reprise après un échec d'application n'est jamais renvoyée au prestataire.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS gateway_status VARCHAR(30);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS gateway_message TEXT;
+
+-- REVIEW : résultat connu mais toujours inapplicable après max-attempts ; fonds laissés en l'état pour analyse
+ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_status_check;
+ALTER TABLE transactions ADD CONSTRAINT transactions_status_check
+    CHECK (status IN ('PENDING', 'SETTLED', 'FAILED', 'REVIEW'));
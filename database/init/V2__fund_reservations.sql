@@ -0,0 +1,19 @@
+-- Journal append-only des réservations de fonds (order-service, écriture différée par lots)
+CREATE TABLE IF NOT EXISTS fund_reservation_journal (
+    seq BIGINT PRIMARY KEY,
+    event_type VARCHAR(10) NOT NULL CHECK (event_type IN ('RESERVE', 'CONSUME', 'RELEASE')),
+    order_id UUID NOT NULL,
+    wallet_id UUID,
+    amount NUMERIC(15, 4) NOT NULL CHECK (amount >= 0),
+    recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Snapshot compacté : réservations actives au moment de snapshot_seq
+CREATE TABLE IF NOT EXISTS fund_reservation_snapshots (
+    order_id UUID PRIMARY KEY,
+    wallet_id UUID NOT NULL,
+    amount NUMERIC(15, 4) NOT NULL CHECK (amount > 0),
+    snapshot_seq BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_fund_reservation_snapshots_wallet ON fund_reservation_snapshots(wallet_id);
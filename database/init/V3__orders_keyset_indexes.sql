@@ -0,0 +1,3 @@
+-- Pagination par curseur des ordres : (created_at, order_id) décroissants, par compte et global
+CREATE INDEX IF NOT EXISTS idx_orders_account_created ON orders(account_id, created_at DESC, order_id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_created ON orders(created_at DESC, order_id DESC);
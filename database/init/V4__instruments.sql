@@ -0,0 +1,23 @@
+-- Référentiel des instruments négociables (order-service, chargé en mémoire et rechargé à chaud)
+CREATE TABLE IF NOT EXISTS instruments (
+    symbol VARCHAR(20) PRIMARY KEY,
+    tick_size NUMERIC(15, 4) NOT NULL CHECK (tick_size > 0),
+    lot_size INTEGER NOT NULL DEFAULT 1 CHECK (lot_size > 0),
+    min_quantity INTEGER NOT NULL DEFAULT 1 CHECK (min_quantity > 0),
+    max_quantity INTEGER NOT NULL CHECK (max_quantity >= min_quantity),
+    min_price NUMERIC(15, 4) NOT NULL CHECK (min_price > 0),
+    max_price NUMERIC(15, 4) NOT NULL CHECK (max_price >= min_price),
+    max_order_value NUMERIC(15, 4) NOT NULL CHECK (max_order_value > 0),
+    trading_status VARCHAR(10) NOT NULL DEFAULT 'ACTIVE' CHECK (trading_status IN ('ACTIVE', 'HALTED', 'CLOSED')),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Les cinq symboles historiquement codés en dur, avec les mêmes limites
+INSERT INTO instruments (symbol, tick_size, lot_size, min_quantity, max_quantity, min_price, max_price, max_order_value)
+VALUES
+    ('AAPL', 0.01, 1, 1, 100000, 0.01, 10000.00, 100000.00),
+    ('GOOGL', 0.01, 1, 1, 100000, 0.01, 10000.00, 100000.00),
+    ('MSFT', 0.01, 1, 1, 100000, 0.01, 10000.00, 100000.00),
+    ('TSLA', 0.01, 1, 1, 100000, 0.01, 10000.00, 100000.00),
+    ('AMZN', 0.01, 1, 1, 100000, 0.01, 10000.00, 100000.00)
+ON CONFLICT (symbol) DO NOTHING;
@@ -0,0 +1,20 @@
+-- Outbox transactionnels : une ligne par changement, écrite dans la transaction qui modifie l'agrégat.
+-- Chaque ligne porte l'état complet (rejouable, idempotente) ; seq sert de curseur et de version.
+CREATE TABLE IF NOT EXISTS account_outbox (
+    seq BIGSERIAL PRIMARY KEY,
+    account_id UUID NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS wallet_outbox (
+    seq BIGSERIAL PRIMARY KEY,
+    wallet_id UUID NOT NULL,
+    account_id UUID NOT NULL,
+    balance NUMERIC(15, 2) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Purge par ancienneté
+CREATE INDEX IF NOT EXISTS idx_account_outbox_created ON account_outbox(created_at);
+CREATE INDEX IF NOT EXISTS idx_wallet_outbox_created ON wallet_outbox(created_at);
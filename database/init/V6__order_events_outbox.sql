@@ -0,0 +1,24 @@
+-- Outbox des événements du cycle de vie des ordres, écrit dans la transaction qui modifie l'ordre.
+-- Chaque ligne porte l'état complet de l'ordre ; event_id ordonne les événements d'un même ordre.
+CREATE TABLE IF NOT EXISTS order_events (
+    event_id BIGSERIAL PRIMARY KEY,
+    order_id UUID NOT NULL,
+    account_id UUID NOT NULL,
+    event_type VARCHAR(20) NOT NULL CHECK (event_type IN ('CREATE', 'MODIFY', 'CANCEL', 'EXPIRE', 'FILL')),
+    symbol VARCHAR(20) NOT NULL,
+    side VARCHAR(10) NOT NULL,
+    quantity INTEGER NOT NULL,
+    price NUMERIC(15, 4),
+    status VARCHAR(20) NOT NULL,
+    filled_quantity INTEGER NOT NULL,
+    remaining_quantity INTEGER NOT NULL,
+    occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+-- Relais : événements non publiés dans l'ordre, et contrôle par ordre d'un événement antérieur en attente
+CREATE INDEX IF NOT EXISTS idx_order_events_pending ON order_events(event_id) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_order_events_pending_order ON order_events(order_id, event_id) WHERE published_at IS NULL;
+
+-- Purge des événements publiés
+CREATE INDEX IF NOT EXISTS idx_order_events_published ON order_events(published_at) WHERE published_at IS NOT NULL;
@@ -0,0 +1,45 @@
+-- Grand livre en partie double des wallets, en ajout seul : aucune écriture ne modifie une ligne existante.
+-- Chaque mouvement est un journal (journal_id) dont les écritures s'annulent : une jambe côté wallet
+-- (AVAILABLE, HELD) et sa contrepartie (EXTERNAL = prestataire de paiement, TRADING, FEES).
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    entry_id BIGSERIAL PRIMARY KEY,
+    journal_id UUID NOT NULL,
+    wallet_id UUID NOT NULL REFERENCES wallets(wallet_id) ON DELETE CASCADE,
+    ledger_account VARCHAR(20) NOT NULL
+        CHECK (ledger_account IN ('AVAILABLE', 'HELD', 'EXTERNAL', 'TRADING', 'FEES')),
+    entry_type VARCHAR(20) NOT NULL
+        CHECK (entry_type IN ('OPENING', 'DEPOSIT', 'WITHDRAWAL', 'REFUND', 'HOLD', 'RELEASE', 'FILL', 'FEE')),
+    amount NUMERIC(15, 2) NOT NULL CHECK (amount <> 0),
+    reference_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Somme de la queue d'un compte depuis son dernier instantané, sans lire la table
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_wallet_account
+    ON ledger_entries (wallet_id, ledger_account, entry_id) INCLUDE (amount, created_at);
+
+-- Instantanés de solde par compte, ajoutés périodiquement (jamais mis à jour) ;
+-- solde = dernier instantané + somme des écritures d'entry_id supérieur
+CREATE TABLE IF NOT EXISTS balance_snapshots (
+    wallet_id UUID NOT NULL REFERENCES wallets(wallet_id) ON DELETE CASCADE,
+    ledger_account VARCHAR(20) NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    balance NUMERIC(17, 2) NOT NULL,
+    taken_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (wallet_id, ledger_account, last_entry_id)
+);
+
+-- Reprise du compactage après redémarrage
+CREATE INDEX IF NOT EXISTS idx_balance_snapshots_last_entry ON balance_snapshots (last_entry_id);
+
+-- Ouverture : le solde courant de chaque wallet devient un journal OPENING
+WITH opening AS (
+    SELECT gen_random_uuid() AS journal_id, wallet_id, balance FROM wallets WHERE balance <> 0
+)
+INSERT INTO ledger_entries (journal_id, wallet_id, ledger_account, entry_type, amount)
+SELECT journal_id, wallet_id, 'AVAILABLE', 'OPENING', balance FROM opening
+UNION ALL
+SELECT journal_id, wallet_id, 'EXTERNAL', 'OPENING', -balance FROM opening;
+
+-- Le solde n'est plus un nombre mutable : il se déduit du grand livre
+ALTER TABLE wallets DROP COLUMN IF EXISTS balance;
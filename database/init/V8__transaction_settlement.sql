@@ -0,0 +1,10 @@
+-- Règlement asynchrone des dépôts et retraits : la requête enregistre une transaction PENDING,
+-- des workers la réclament (bail claimed_until), appellent le prestataire hors transaction
+-- et la passent à SETTLED ou FAILED.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS payment_method VARCHAR(30);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS payment_reference VARCHAR(255);
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS claimed_until TIMESTAMP;
+
+-- File des transactions à régler, dans l'ordre d'arrivée
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (created_at) WHERE status = 'PENDING';
@@ -0,0 +1,5 @@
+-- Historique des transactions par curseur : (created_at, transaction_id) décroissants, par wallet et global.
+-- L'index par wallet sert aussi les relevés par période (parcours à rebours) et remplace idx_transactions_wallet_id.
+CREATE INDEX IF NOT EXISTS idx_transactions_wallet_created ON transactions(wallet_id, created_at DESC, transaction_id DESC);
+CREATE INDEX IF NOT EXISTS idx_transactions_created ON transactions(created_at DESC, transaction_id DESC);
+DROP INDEX IF EXISTS idx_transactions_wallet_id;
@@ -16,6 +16,9 @@ import static org.hamcrest.Matchers.*;
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class TestE2E {
 
+    private static final long SETTLEMENT_TIMEOUT_MS = 30_000;
+    private static final long POLL_INTERVAL_MS = 250;
+
     private static final String testEmail = "test-e2e-" + System.currentTimeMillis() + "@brokerx.com";
     private static String testAccountId;
     private static String testOtp;
@@ -163,7 +166,11 @@ public class TestE2E {
             .statusCode(200)
             .body("success", equalTo(true));
         
-        System.out.println("✅ Dépôt de 5000.00$ réussi.");
+        System.out.println("✅ Dépôt de 5000.00$ accepté.");
+
+        // Le dépôt est réglé de façon asynchrone (PENDING puis SETTLED) : attendre que le solde le reflète
+        awaitBalanceAtLeast(new BigDecimal("5000.00"));
+        System.out.println("✅ Dépôt réglé, solde crédité.");
     }
 
     @Test
@@ -173,21 +180,18 @@ public class TestE2E {
         System.out.println("\n--- TEST 5: Placement d'un Ordre ---");
         Assumptions.assumeTrue(jwtToken != null, "Un JWT est requis");
 
-        Map<String, Object> orderRequest = new HashMap<>();
-        orderRequest.put("clientOrderId", "E2E_TEST_" + System.currentTimeMillis());
-        orderRequest.put("symbol", "AAPL");
-        orderRequest.put("side", "BUY");
-        orderRequest.put("orderType", "LIMIT");
-        orderRequest.put("quantity", 10);
-        orderRequest.put("price", new BigDecimal("150.00"));
-        orderRequest.put("timeInForce", "DAY");
+        // La projection des soldes d'order-service suit le wallet avec un léger retard : un refus pour
+        // fonds insuffisants juste après le règlement du dépôt est retenté avec un nouveau clientOrderId
+        long deadline = System.currentTimeMillis() + SETTLEMENT_TIMEOUT_MS;
+        Response orderResponse = placeLimitBuy();
+        while (orderResponse.statusCode() == 400
+                && String.valueOf((Object) orderResponse.path("message")).startsWith("Insufficient funds")
+                && System.currentTimeMillis() < deadline) {
+            sleep(POLL_INTERVAL_MS);
+            orderResponse = placeLimitBuy();
+        }
 
-        orderId = given()
-            .header("Authorization", "Bearer " + jwtToken)
-            .contentType(ContentType.JSON)
-            .body(orderRequest)
-        .when()
-            .post("/orders")
+        orderId = orderResponse
         .then()
             .statusCode(200)
             .body("success", equalTo(true))
@@ -240,4 +244,51 @@ public class TestE2E {
         System.out.println(" FIN DES TESTS E2E - WORKFLOW COMPLET VALIDÉ");
         System.out.println("======================================================");
     }
-}
\ No newline at end of file
+
+    private static Response placeLimitBuy() {
+        Map<String, Object> orderRequest = new HashMap<>();
+        orderRequest.put("clientOrderId", "E2E_TEST_" + System.nanoTime());
+        orderRequest.put("symbol", "AAPL");
+        orderRequest.put("side", "BUY");
+        orderRequest.put("orderType", "LIMIT");
+        orderRequest.put("quantity", 10);
+        orderRequest.put("price", new BigDecimal("150.00"));
+        orderRequest.put("timeInForce", "DAY");
+
+        return given()
+            .header("Authorization", "Bearer " + jwtToken)
+            .contentType(ContentType.JSON)
+            .body(orderRequest)
+        .when()
+            .post("/orders");
+    }
+
+    private static void awaitBalanceAtLeast(BigDecimal expected) {
+        long deadline = System.currentTimeMillis() + SETTLEMENT_TIMEOUT_MS;
+        BigDecimal balance = BigDecimal.ZERO;
+        while (System.currentTimeMillis() < deadline) {
+            Object value = given()
+                .header("Authorization", "Bearer " + jwtToken)
+            .when()
+                .get("/wallets/" + walletId + "/balance")
+            .then()
+                .statusCode(200)
+                .extract().path("balance");
+            balance = value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+            if (balance.compareTo(expected) >= 0) {
+                return;
+            }
+            sleep(POLL_INTERVAL_MS);
+        }
+        Assertions.fail("Dépôt non réglé après " + SETTLEMENT_TIMEOUT_MS + " ms : solde " + balance + ", attendu " + expected);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Assertions.fail("Attente interrompue");
+        }
+    }
+}
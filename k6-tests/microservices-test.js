@@ -27,13 +27,22 @@ const totalRequests = new Counter('total_requests');
 // ============================================
 // CONFIGURATION DU TEST
 // ============================================
+// TARGET_VUS (optionnel) : palier de concurrence fixe, utilisé par virtual-threads-comparison.sh
+const TARGET_VUS = __ENV.TARGET_VUS ? parseInt(__ENV.TARGET_VUS, 10) : 0;
+const HOLD_DURATION = __ENV.HOLD_DURATION || '2m';
+
 export const options = {
-  stages: [
+  stages: TARGET_VUS > 0 ? [
+    { duration: '30s', target: TARGET_VUS },          // Montée jusqu'au palier
+    { duration: HOLD_DURATION, target: TARGET_VUS },  // Palier mesuré
+    { duration: '15s', target: 0 }
+  ] : [
     { duration: '1m', target: 10 },    // Montée douce
     { duration: '2m', target: 20 },    // Stabilisation
     { duration: '2m', target: 30 },    // Pic modéré (au lieu de 100)
     { duration: '1m', target: 0 }
   ],
+  summaryTrendStats: ['avg', 'min', 'med', 'max', 'p(90)', 'p(95)', 'p(99)'],
   thresholds: {
     'http_req_duration': ['p(95)<2000', 'p(99)<5000'],  // 95% < 2s, 99% < 5s
     'http_req_failed': ['rate<0.1'],                     // Moins de 10% d'erreurs
@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# ============================================
+# Comparaison threads plateforme / threads virtuels
+# ============================================
+# Rejoue microservices-test.js à plusieurs paliers de concurrence, une fois en mode
+# classique (JDK 17, pool Tomcat) et une fois en mode threads virtuels (JDK 21),
+# puis écrit p99 et débit par palier dans k6-tests/results/virtual-threads-<date>.csv.
+#
+# Usage (depuis /microservices) : ./k6-tests/virtual-threads-comparison.sh [paliers...]
+#   ex. ./k6-tests/virtual-threads-comparison.sh 50 100 200 400
+# Nécessite docker compose, k6 et jq.
+
+set -euo pipefail
+
+COMPOSE_FILE="docker-compose-microservices.yml"
+if [[ $# -gt 0 ]]; then LEVELS=("$@"); else LEVELS=(50 100 200 400); fi
+HOLD_DURATION="${HOLD_DURATION:-2m}"
+RESULTS_DIR="k6-tests/results"
+RESULTS_FILE="${RESULTS_DIR}/virtual-threads-$(date +%Y%m%d-%H%M%S).csv"
+
+mkdir -p "${RESULTS_DIR}"
+echo "mode,vus,p99_ms,p95_ms,avg_ms,req_per_s,error_rate" > "${RESULTS_FILE}"
+
+wait_for_services() {
+  for port in 8081 8082 8083 8080; do
+    until curl -sf "http://localhost:${port}/actuator/health" > /dev/null 2>&1 \
+       || curl -sf "http://localhost:${port}/" > /dev/null 2>&1; do
+      sleep 2
+    done
+  done
+}
+
+run_mode() {
+  local mode="$1" java_version="$2" virtual="$3"
+
+  echo "=== Mode ${mode} (JDK ${java_version}, virtual threads=${virtual}) ==="
+  docker compose -f "${COMPOSE_FILE}" down -v > /dev/null 2>&1 || true
+  JAVA_VERSION="${java_version}" VIRTUAL_THREADS_ENABLED="${virtual}" \
+  EXTRA_JAVA_OPTS="$([[ "${virtual}" == "true" ]] && echo "-Djdk.tracePinnedThreads=short")" \
+    docker compose -f "${COMPOSE_FILE}" up --build -d
+  wait_for_services
+
+  for vus in "${LEVELS[@]}"; do
+    local summary="${RESULTS_DIR}/summary-${mode}-${vus}.json"
+    TARGET_VUS="${vus}" HOLD_DURATION="${HOLD_DURATION}" \
+      k6 run --quiet --summary-export "${summary}" k6-tests/microservices-test.js || true
+
+    jq -r --arg mode "${mode}" --arg vus "${vus}" '
+      [ $mode, $vus,
+        .metrics.http_req_duration["p(99)"],
+        .metrics.http_req_duration["p(95)"],
+        .metrics.http_req_duration.avg,
+        .metrics.http_reqs.rate,
+        .metrics.http_req_failed.value ] | @csv' "${summary}" >> "${RESULTS_FILE}"
+  done
+
+  # Sites d'épinglage remontés par -Djdk.tracePinnedThreads et VirtualThreadPinningMonitor
+  if [[ "${virtual}" == "true" ]]; then
+    for svc in account-service wallet-service order-service; do
+      docker logs "${svc}" 2>&1 | grep -B2 -A8 -E "<== monitors|Virtual thread pinned" \
+        > "${RESULTS_DIR}/pinning-${svc}.log" || true
+    done
+  fi
+}
+
+run_mode platform 17 false
+run_mode virtual 21 true
+
+docker compose -f "${COMPOSE_FILE}" down -v > /dev/null 2>&1 || true
+echo "Résultats : ${RESULTS_FILE}"
+column -s, -t < "${RESULTS_FILE}"
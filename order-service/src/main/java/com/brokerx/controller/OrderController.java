@@ -1,18 +1,41 @@
 package com.brokerx.controller;
 
+import com.brokerx.dto.order.BatchOrderResponse;
+import com.brokerx.dto.order.CancelAllOrdersRequest;
+import com.brokerx.dto.order.CancelAllOrdersResponse;
 import com.brokerx.dto.order.OrderRequest;
 import com.brokerx.dto.order.OrderResponse;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.security.StreamTicketService;
+import com.brokerx.service.AccountContextCache;
+import com.brokerx.service.ClientOrderIdIndex;
+import com.brokerx.service.InstrumentIndex;
+import com.brokerx.service.MarketDataService;
+import com.brokerx.service.TimeInForceScheduler;
+import com.brokerx.service.AccountProjection;
+import com.brokerx.service.OrderEventRelay;
+import com.brokerx.service.UserEventBus;
 import com.brokerx.service.FundReservationService;
+import com.brokerx.service.OrderExecutionService;
 import com.brokerx.service.OrderService;
 import com.brokerx.dto.order.CancelOrderRequest;
 import com.brokerx.dto.order.ModifyOrderRequest;
 import com.brokerx.dto.order.OrderModificationResponse;
+import com.brokerx.dto.order.OrderPageResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,10 +49,42 @@ public class OrderController {
     
     private final OrderService orderService;
     private final FundReservationService fundReservationService;
+    private final AccountContextCache accountContextCache;
+    private final MatchingEngine matchingEngine;
+    private final OrderExecutionService orderExecutionService;
+    private final ObjectMapper objectMapper;
+    private final ClientOrderIdIndex clientOrderIdIndex;
+    private final InstrumentIndex instrumentIndex;
+    private final MarketDataService marketDataService;
+    private final UserEventBus userEventBus;
+    private final TimeInForceScheduler timeInForceScheduler;
+    private final AccountProjection accountProjection;
+    private final OrderEventRelay orderEventRelay;
+    private final StreamTicketService streamTicketService;
 
-    public OrderController(OrderService orderService, FundReservationService fundReservationService) {
+    public OrderController(OrderService orderService, FundReservationService fundReservationService,
+                           AccountContextCache accountContextCache, MatchingEngine matchingEngine,
+                           OrderExecutionService orderExecutionService, ObjectMapper objectMapper,
+                           ClientOrderIdIndex clientOrderIdIndex, InstrumentIndex instrumentIndex,
+                           MarketDataService marketDataService, UserEventBus userEventBus,
+                           TimeInForceScheduler timeInForceScheduler,
+                           AccountProjection accountProjection,
+                           OrderEventRelay orderEventRelay,
+                           StreamTicketService streamTicketService) {
         this.orderService = orderService;
         this.fundReservationService = fundReservationService;
+        this.accountContextCache = accountContextCache;
+        this.matchingEngine = matchingEngine;
+        this.orderExecutionService = orderExecutionService;
+        this.objectMapper = objectMapper;
+        this.clientOrderIdIndex = clientOrderIdIndex;
+        this.instrumentIndex = instrumentIndex;
+        this.marketDataService = marketDataService;
+        this.userEventBus = userEventBus;
+        this.timeInForceScheduler = timeInForceScheduler;
+        this.accountProjection = accountProjection;
+        this.orderEventRelay = orderEventRelay;
+        this.streamTicketService = streamTicketService;
     }
 
     @PostMapping
@@ -55,6 +110,22 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BatchOrderResponse> placeOrderBatch(@RequestBody List<OrderRequest> requests) {
+        logger.info("Received batch order placement request: size={}", requests.size());
+
+        BatchOrderResponse response = orderService.placeOrderBatch(requests);
+
+        if (response.isSuccess()) {
+            logger.info("Order batch processed: accepted={}, rejected={}",
+                       response.getAccepted(), response.getRejected());
+            return ResponseEntity.ok(response);
+        } else {
+            logger.warn("Order batch rejected: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         List<OrderResponse> orders = orderService.getAllOrders();
@@ -70,6 +141,128 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageResponse> getOrdersPage(
+            Authentication authentication,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            OrderPageResponse page = orderService.getOrdersPageForUser(
+                authentication.getName(), status, symbol, cursor, limit);
+            if (page == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/all/page")
+    public ResponseEntity<OrderPageResponse> getAllOrdersPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String symbol,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(orderService.getAllOrdersPage(status, symbol, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Tous les ordres de l'utilisateur en NDJSON (un objet JSON par ligne), écrits au fil du curseur JDBC.
+     * Le compte est résolu sur le thread de la requête : le corps est produit sur un thread asynchrone.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            Authentication authentication,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String symbol) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        UUID accountId = orderService.findAccountIdForUser(authentication.getName());
+        if (accountId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjson(accountId, status, symbol));
+    }
+
+    /**
+     * Ticket à usage unique pour ouvrir le flux SSE : la requête porte le JWT en en-tête,
+     * seul le ticket apparaît ensuite dans l'URL d'EventSource.
+     */
+    @PostMapping("/events/ticket")
+    public ResponseEntity<Map<String, Object>> issueEventsTicket(Authentication authentication,
+                                                                 HttpServletRequest request) {
+        if (authentication == null || !(request.getAttribute("userId") instanceof UUID userId)) {
+            return ResponseEntity.status(401).build();
+        }
+        String ticket = streamTicketService.issue(authentication.getName(), userId, authentication.getAuthorities());
+        return ResponseEntity.ok(Map.of(
+            "ticket", ticket,
+            "expiresInSeconds", streamTicketService.getTtl().toSeconds()
+        ));
+    }
+
+    /**
+     * Flux SSE des changements d'état et des exécutions des ordres de l'utilisateur.
+     * EventSource ne pouvant pas envoyer d'en-tête, l'authentification passe par un ticket (paramètre ticket).
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        UUID accountId = orderService.findAccountIdForUser(authentication.getName());
+        if (accountId == null) {
+            return ResponseEntity.notFound().build();
+        }
+        logger.info("SSE subscription opened: accountId={}", accountId);
+        return ResponseEntity.ok(userEventBus.subscribe(accountId));
+    }
+
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String symbol) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(ndjson(null, status, symbol));
+    }
+
+    private StreamingResponseBody ndjson(UUID accountId, String status, String symbol) {
+        return outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                long count = orderService.streamOrders(accountId, status, symbol, order -> {
+                    try {
+                        writer.write(order);
+                    } catch (IOException e) {
+                        // Client déconnecté : l'exception interrompt le parcours du curseur
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (count > 0) {
+                    outputStream.write('\n');
+                }
+                logger.info("Streamed {} orders (accountId={})", count, accountId);
+            } catch (UncheckedIOException e) {
+                logger.warn("Order stream aborted (accountId={}): {}", accountId, e.getCause().getMessage());
+            }
+        };
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable UUID orderId) {
         OrderResponse response = orderService.getOrderById(orderId);
@@ -93,6 +286,14 @@ public class OrderController {
         
         try {
             debug.put("reservationStats", fundReservationService.getReservationStats());
+            debug.put("accountCacheStats", accountContextCache.getStats());
+            debug.put("executionStats", orderExecutionService.getStats());
+            debug.put("clientOrderIdIndexStats", clientOrderIdIndex.getStats());
+            debug.put("instrumentStats", instrumentIndex.getStats());
+            debug.put("eventStats", userEventBus.getStats());
+            debug.put("timeInForceStats", timeInForceScheduler.getStats());
+            debug.put("accountProjectionStats", accountProjection.getStats());
+            debug.put("orderEventStats", orderEventRelay.getStats());
         } catch (Exception e) {
             debug.put("error", e.getMessage());
             logger.error("Error in debug endpoint", e);
@@ -101,6 +302,42 @@ public class OrderController {
         return ResponseEntity.ok(debug);
     }
 
+    @GetMapping("/books")
+    public ResponseEntity<Map<String, Object>> getOrderBooks() {
+        return ResponseEntity.ok(matchingEngine.getStats());
+    }
+
+    @GetMapping("/quotes")
+    public ResponseEntity<Map<String, Object>> getQuotes() {
+        return ResponseEntity.ok(marketDataService.getStats());
+    }
+
+    @GetMapping("/instruments")
+    public ResponseEntity<List<InstrumentIndex.Instrument>> getInstruments() {
+        return ResponseEntity.ok(instrumentIndex.getInstruments());
+    }
+
+    @PostMapping("/instruments/reload")
+    public ResponseEntity<Map<String, Object>> reloadInstruments() {
+        int loaded = instrumentIndex.reload();
+        logger.info("Instrument index reloaded on demand: {} instruments", loaded);
+        return ResponseEntity.ok(instrumentIndex.getStats());
+    }
+
+    @DeleteMapping("/account-cache")
+    public ResponseEntity<Map<String, Object>> invalidateAccountCache(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) UUID accountId) {
+        if (email != null) {
+            accountContextCache.invalidate(email);
+        } else if (accountId != null) {
+            accountContextCache.invalidateAccount(accountId);
+        } else {
+            accountContextCache.invalidateAll();
+        }
+        return ResponseEntity.ok(accountContextCache.getStats());
+    }
+
     @DeleteMapping("/{orderId}")
     public ResponseEntity<OrderModificationResponse> cancelOrder(@PathVariable UUID orderId) {
         logger.info("Cancel order request received: orderId={}", orderId);
@@ -116,6 +353,22 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/cancel-all")
+    public ResponseEntity<CancelAllOrdersResponse> cancelAllOrders(
+            @RequestBody(required = false) CancelAllOrdersRequest request) {
+        logger.info("Cancel-all request received: symbol={}, side={}",
+                   request != null ? request.getSymbol() : null, request != null ? request.getSide() : null);
+
+        CancelAllOrdersResponse response = orderService.cancelAllOrders(request);
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            logger.warn("Cancel-all failed: {}", response.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PostMapping("/cancel")
     public ResponseEntity<OrderModificationResponse> cancelOrderWithBody(@RequestBody CancelOrderRequest request) {
         logger.info("Cancel order request received: orderId={}, clientOrderId={}", 
@@ -0,0 +1,32 @@
+package com.brokerx.dto.order;
+
+import java.util.List;
+
+public class BatchOrderResponse {
+    private boolean success;
+    private String message;
+    private int accepted;
+    private int rejected;
+    private List<OrderResponse> results;
+
+    public BatchOrderResponse(String message, boolean success) {
+        this.message = message;
+        this.success = success;
+        this.results = List.of();
+    }
+
+    public BatchOrderResponse(List<OrderResponse> results) {
+        this.results = results;
+        this.accepted = (int) results.stream().filter(OrderResponse::isSuccess).count();
+        this.rejected = results.size() - accepted;
+        this.success = accepted > 0;
+        this.message = String.format("%d order(s) accepted, %d rejected", accepted, rejected);
+    }
+
+    // Getters
+    public boolean isSuccess() { return success; }
+    public String getMessage() { return message; }
+    public int getAccepted() { return accepted; }
+    public int getRejected() { return rejected; }
+    public List<OrderResponse> getResults() { return results; }
+}
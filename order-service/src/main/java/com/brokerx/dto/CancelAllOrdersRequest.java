@@ -0,0 +1,12 @@
+package com.brokerx.dto.order;
+
+public class CancelAllOrdersRequest {
+    private String symbol; // optionnel
+    private String side;   // optionnel : BUY, SELL
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getSide() { return side; }
+    public void setSide(String side) { this.side = side; }
+}
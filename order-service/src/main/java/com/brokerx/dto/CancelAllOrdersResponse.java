@@ -0,0 +1,30 @@
+package com.brokerx.dto.order;
+
+import java.util.List;
+import java.util.UUID;
+
+public class CancelAllOrdersResponse {
+    private boolean success;
+    private String message;
+    private int cancelled;
+    private List<UUID> orderIds;
+
+    public CancelAllOrdersResponse(String message, boolean success) {
+        this.message = message;
+        this.success = success;
+        this.orderIds = List.of();
+    }
+
+    public CancelAllOrdersResponse(List<UUID> orderIds) {
+        this.success = true;
+        this.orderIds = orderIds;
+        this.cancelled = orderIds.size();
+        this.message = String.format("%d order(s) cancelled", cancelled);
+    }
+
+    // Getters
+    public boolean isSuccess() { return success; }
+    public String getMessage() { return message; }
+    public int getCancelled() { return cancelled; }
+    public List<UUID> getOrderIds() { return orderIds; }
+}
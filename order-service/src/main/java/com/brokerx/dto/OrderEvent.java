@@ -0,0 +1,56 @@
+package com.brokerx.dto.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Événement du cycle de vie d'un ordre relayé depuis l'outbox order_events.
+ * Livraison au moins une fois : les abonnés dédoublonnent sur eventId, croissant pour un même ordre.
+ */
+public class OrderEvent {
+    private long eventId;
+    private String eventType;
+    private UUID orderId;
+    private UUID accountId;
+    private String symbol;
+    private String side;
+    private Integer quantity;
+    private BigDecimal price;
+    private String status;
+    private Integer filledQuantity;
+    private Integer remainingQuantity;
+    private LocalDateTime occurredAt;
+
+    public OrderEvent() {}
+
+    public OrderEvent(long eventId, String eventType, UUID orderId, UUID accountId, String symbol, String side,
+                      Integer quantity, BigDecimal price, String status, Integer filledQuantity,
+                      Integer remainingQuantity, LocalDateTime occurredAt) {
+        this.eventId = eventId;
+        this.eventType = eventType;
+        this.orderId = orderId;
+        this.accountId = accountId;
+        this.symbol = symbol;
+        this.side = side;
+        this.quantity = quantity;
+        this.price = price;
+        this.status = status;
+        this.filledQuantity = filledQuantity;
+        this.remainingQuantity = remainingQuantity;
+        this.occurredAt = occurredAt;
+    }
+
+    public long getEventId() { return eventId; }
+    public String getEventType() { return eventType; }
+    public UUID getOrderId() { return orderId; }
+    public UUID getAccountId() { return accountId; }
+    public String getSymbol() { return symbol; }
+    public String getSide() { return side; }
+    public Integer getQuantity() { return quantity; }
+    public BigDecimal getPrice() { return price; }
+    public String getStatus() { return status; }
+    public Integer getFilledQuantity() { return filledQuantity; }
+    public Integer getRemainingQuantity() { return remainingQuantity; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
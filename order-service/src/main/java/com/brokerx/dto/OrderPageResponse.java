@@ -0,0 +1,23 @@
+package com.brokerx.dto.order;
+
+import java.util.List;
+
+public class OrderPageResponse {
+    private List<OrderResponse> orders;
+    private int count;
+    private boolean hasMore;
+    private String nextCursor;
+
+    public OrderPageResponse(List<OrderResponse> orders, String nextCursor) {
+        this.orders = orders;
+        this.count = orders.size();
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters
+    public List<OrderResponse> getOrders() { return orders; }
+    public int getCount() { return count; }
+    public boolean isHasMore() { return hasMore; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -45,11 +45,42 @@ public class OrderResponse {
         this.success = true;
     }
 
+    /**
+     * Construction directe depuis une ligne SQL (pagination par curseur, flux NDJSON),
+     * sans passer par l'entité JPA.
+     */
+    public OrderResponse(UUID orderId, UUID accountId, String clientOrderId, String symbol, String side,
+                         String orderType, Integer quantity, BigDecimal price, String timeInForce,
+                         String status, Integer filledQuantity, Integer remainingQuantity,
+                         LocalDateTime createdAt, String message) {
+        this.orderId = orderId;
+        this.accountId = accountId;
+        this.clientOrderId = clientOrderId;
+        this.symbol = symbol;
+        this.side = side;
+        this.orderType = orderType;
+        this.quantity = quantity;
+        this.price = price;
+        this.timeInForce = timeInForce;
+        this.status = status;
+        this.filledQuantity = filledQuantity;
+        this.remainingQuantity = remainingQuantity;
+        this.createdAt = createdAt;
+        this.message = message;
+        this.success = true;
+    }
+
     public OrderResponse(String message, boolean success) {
         this.message = message;
         this.success = success;
     }
 
+    public OrderResponse(String clientOrderId, String message, boolean success) {
+        this.clientOrderId = clientOrderId;
+        this.message = message;
+        this.success = success;
+    }
+
     // Getters/Setters
     public UUID getOrderId() { return orderId; }
     public UUID getAccountId() { return accountId; }
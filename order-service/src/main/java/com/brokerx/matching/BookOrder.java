@@ -0,0 +1,68 @@
+package com.brokerx.matching;
+
+import java.util.UUID;
+
+/**
+ * Ordre au repos dans le carnet. Les pointeurs prev/next forment la file intrusive
+ * de son niveau de prix : aucune allocation n'est nécessaire pour l'enfiler ou le retirer.
+ */
+public final class BookOrder {
+
+    UUID orderId;
+    UUID accountId;
+    UUID walletId;
+    boolean buy;
+    boolean market;
+    /** IOC ou FOK : le reliquat n'est jamais placé dans le carnet. */
+    boolean immediate;
+    /** FOK : exécution totale immédiate, sinon aucune. */
+    boolean allOrNone;
+    long priceTicks;
+    int quantity;
+    int remaining;
+
+    BookOrder prev;
+    BookOrder next;
+    PriceLevel level;
+
+    public BookOrder() {}
+
+    public BookOrder init(UUID orderId, UUID accountId, UUID walletId,
+                          boolean buy, boolean market, long priceTicks, int quantity) {
+        this.orderId = orderId;
+        this.accountId = accountId;
+        this.walletId = walletId;
+        this.buy = buy;
+        this.market = market;
+        this.immediate = false;
+        this.allOrNone = false;
+        this.priceTicks = priceTicks;
+        this.quantity = quantity;
+        this.remaining = quantity;
+        this.prev = null;
+        this.next = null;
+        this.level = null;
+        return this;
+    }
+
+    /**
+     * Applique la durée de validité (DAY, IOC, FOK) ; à appeler après {@link #init}.
+     */
+    public BookOrder timeInForce(String timeInForce) {
+        this.immediate = "IOC".equals(timeInForce) || "FOK".equals(timeInForce);
+        this.allOrNone = "FOK".equals(timeInForce);
+        return this;
+    }
+
+    public UUID getOrderId() { return orderId; }
+    public UUID getAccountId() { return accountId; }
+    public UUID getWalletId() { return walletId; }
+    public boolean isBuy() { return buy; }
+    public boolean isMarket() { return market; }
+    public boolean isImmediate() { return immediate; }
+    public boolean isAllOrNone() { return allOrNone; }
+    public long getPriceTicks() { return priceTicks; }
+    public int getQuantity() { return quantity; }
+    public int getRemaining() { return remaining; }
+    public boolean isResting() { return level != null; }
+}
@@ -0,0 +1,71 @@
+package com.brokerx.matching;
+
+import java.util.Arrays;
+
+/**
+ * Un côté du carnet. Les niveaux sont triés dans un tableau de clés primitives
+ * (prix pour les achats, prix négatif pour les ventes) : le meilleur prix est toujours
+ * en fin de tableau, ce qui rend le retrait du meilleur niveau O(1).
+ */
+final class BookSide {
+
+    private final boolean bids;
+    private long[] keys;
+    private PriceLevel[] levels;
+    private int size;
+
+    BookSide(boolean bids, int initialCapacity) {
+        this.bids = bids;
+        this.keys = new long[initialCapacity];
+        this.levels = new PriceLevel[initialCapacity];
+    }
+
+    PriceLevel best() {
+        return size == 0 ? null : levels[size - 1];
+    }
+
+    PriceLevel find(long priceTicks) {
+        int index = Arrays.binarySearch(keys, 0, size, key(priceTicks));
+        return index >= 0 ? levels[index] : null;
+    }
+
+    /**
+     * Insère un niveau vide fourni par l'appelant (recyclé) à sa position triée.
+     */
+    void insert(PriceLevel level) {
+        long key = key(level.priceTicks);
+        int index = -(Arrays.binarySearch(keys, 0, size, key) + 1);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(levels, index, levels, index + 1, size - index);
+        keys[index] = key;
+        levels[index] = level;
+        size++;
+    }
+
+    void remove(PriceLevel level) {
+        int index = size - 1;
+        if (levels[index] != level) {
+            index = Arrays.binarySearch(keys, 0, size, key(level.priceTicks));
+        }
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+        size--;
+        levels[size] = null;
+    }
+
+    int depth() {
+        return size;
+    }
+
+    PriceLevel levelAt(int distanceFromBest) {
+        return levels[size - 1 - distanceFromBest];
+    }
+
+    private long key(long priceTicks) {
+        return bids ? priceTicks : -priceTicks;
+    }
+}
@@ -0,0 +1,43 @@
+package com.brokerx.matching;
+
+import java.util.List;
+
+/**
+ * Diffuse les événements du carnet à plusieurs écouteurs, dans l'ordre de la liste.
+ */
+final class CompositeMatchListener implements MatchListener {
+
+    private final MatchListener[] listeners;
+
+    private CompositeMatchListener(MatchListener[] listeners) {
+        this.listeners = listeners;
+    }
+
+    static MatchListener of(List<MatchListener> listeners) {
+        if (listeners.size() == 1) {
+            return listeners.get(0);
+        }
+        return new CompositeMatchListener(listeners.toArray(new MatchListener[0]));
+    }
+
+    @Override
+    public void onTrade(String symbol, BookOrder aggressor, BookOrder resting, long priceTicks, int quantity) {
+        for (MatchListener listener : listeners) {
+            listener.onTrade(symbol, aggressor, resting, priceTicks, quantity);
+        }
+    }
+
+    @Override
+    public void onCancelled(String symbol, BookOrder order, int cancelledQuantity) {
+        for (MatchListener listener : listeners) {
+            listener.onCancelled(symbol, order, cancelledQuantity);
+        }
+    }
+
+    @Override
+    public void onBookUpdated(String symbol, long bestBidTicks, long bestAskTicks) {
+        for (MatchListener listener : listeners) {
+            listener.onBookUpdated(symbol, bestBidTicks, bestAskTicks);
+        }
+    }
+}
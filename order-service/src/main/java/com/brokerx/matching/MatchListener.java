@@ -0,0 +1,18 @@
+package com.brokerx.matching;
+
+/**
+ * Reçoit les événements produits par le carnet, sur le thread d'écriture du symbole.
+ * Les implémentations doivent rendre la main rapidement (pas d'I/O bloquante).
+ */
+public interface MatchListener {
+
+    void onTrade(String symbol, BookOrder aggressor, BookOrder resting, long priceTicks, int quantity);
+
+    void onCancelled(String symbol, BookOrder order, int cancelledQuantity);
+
+    /**
+     * Meilleurs prix après chaque commande traitée par le carnet ({@link OrderBook#NO_PRICE} si le côté est vide).
+     */
+    default void onBookUpdated(String symbol, long bestBidTicks, long bestAskTicks) {
+    }
+}
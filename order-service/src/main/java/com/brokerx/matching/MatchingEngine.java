@@ -0,0 +1,231 @@
+package com.brokerx.matching;
+
+import com.brokerx.entity.Order;
+import com.brokerx.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moteur d'appariement : un carnet par symbole, chacun piloté par son propre thread écrivain.
+ * Toutes les mutations d'un carnet passent par la file de commandes de ce thread.
+ */
+@Component
+public class MatchingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchingEngine.class);
+
+    /** Les prix sont manipulés en ticks de 0.01. */
+    public static final int PRICE_SCALE = 2;
+
+    private final MatchListener listener;
+    private final OrderRepository orderRepository;
+    private final Map<String, SymbolWorker> workers = new ConcurrentHashMap<>();
+
+    @Value("${order.matching.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    @Value("${order.matching.recover-on-startup:true}")
+    private boolean recoverOnStartup;
+
+    public MatchingEngine(List<MatchListener> listeners, OrderRepository orderRepository) {
+        this.listener = CompositeMatchListener.of(listeners);
+        this.orderRepository = orderRepository;
+    }
+
+    public void submit(Order order, UUID walletId) {
+        submit(order, walletId, null);
+    }
+
+    /**
+     * @param marketPriceLimit prix de protection d'un ordre MARKET (null : aucun), ignoré pour un LIMIT
+     */
+    public void submit(Order order, UUID walletId, BigDecimal marketPriceLimit) {
+        submit(order, walletId, marketPriceLimit, order.getRemainingQuantity());
+    }
+
+    /**
+     * Remet au carnet un ordre retiré pour modification, avec la quantité qui y restait :
+     * une exécution appariée avant le retrait peut ne pas être encore comptée en base.
+     */
+    public void restore(Order order, int quantity) {
+        submit(order, null, null, quantity);
+    }
+
+    private void submit(Order order, UUID walletId, BigDecimal marketPriceLimit, int quantity) {
+        BigDecimal price = order.getPrice() != null ? order.getPrice() : marketPriceLimit;
+        BookOrder bookOrder = new BookOrder().init(
+            order.getOrderId(),
+            order.getAccountId(),
+            walletId,
+            "BUY".equals(order.getSide()),
+            "MARKET".equals(order.getOrderType()),
+            price != null ? toTicks(price) : OrderBook.NO_PRICE,
+            quantity
+        ).timeInForce(order.getTimeInForce());
+
+        SymbolWorker worker = worker(order.getSymbol());
+        worker.executor.execute(() -> {
+            try {
+                worker.book.submit(bookOrder, listener);
+                publishTopOfBook(worker.book);
+            } catch (Exception e) {
+                logger.error("Matching failed for order {}: {}", bookOrder.orderId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Retire un ordre du carnet et attend la confirmation du thread écrivain.
+     *
+     * @return quantité qui restait au carnet, 0 si l'ordre n'était pas au repos (déjà exécuté ou inconnu) ;
+     *         elle peut être inférieure au reste connu en base si une exécution n'est pas encore appliquée
+     */
+    public int cancel(String symbol, UUID orderId) {
+        SymbolWorker worker = workers.get(symbol);
+        if (worker == null) {
+            return 0;
+        }
+        try {
+            // Quantité lue sur le thread écrivain : le BookOrder peut être réutilisé ensuite
+            Future<Integer> result = worker.executor.submit(() -> {
+                BookOrder cancelled = worker.book.cancel(orderId);
+                if (cancelled == null) {
+                    return 0;
+                }
+                publishTopOfBook(worker.book);
+                return cancelled.getRemaining();
+            });
+            return result.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while cancelling order " + orderId, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Matching engine did not acknowledge cancel of " + orderId, e);
+        }
+    }
+
+    /**
+     * Retire en une seule commande un lot d'ordres d'un même symbole (expiration) et attend la confirmation.
+     * Aucun événement d'annulation n'est émis : l'appelant met lui-même la base à jour.
+     *
+     * @return ordres effectivement retirés du carnet ; les autres ont déjà été exécutés ou retirés
+     */
+    public List<UUID> removeAll(String symbol, List<UUID> orderIds) {
+        SymbolWorker worker = workers.get(symbol);
+        if (worker == null) {
+            return List.of();
+        }
+        try {
+            Future<List<UUID>> result = worker.executor.submit(() -> {
+                List<UUID> removed = new ArrayList<>(orderIds.size());
+                for (UUID orderId : orderIds) {
+                    if (worker.book.cancel(orderId) != null) {
+                        removed.add(orderId);
+                    }
+                }
+                if (!removed.isEmpty()) {
+                    publishTopOfBook(worker.book);
+                }
+                return removed;
+            });
+            return result.get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while removing orders from " + symbol, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Matching engine did not acknowledge removal of " + orderIds.size()
+                + " orders from " + symbol, e);
+        }
+    }
+
+    public OrderBook getBook(String symbol) {
+        SymbolWorker worker = workers.get(symbol);
+        return worker != null ? worker.book : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        workers.forEach((symbol, worker) -> stats.put(symbol, Map.of(
+            "bestBid", fromTicks(worker.book.getBestBidTicks()),
+            "bestAsk", fromTicks(worker.book.getBestAskTicks()),
+            "restingOrders", worker.book.getRestingOrders(),
+            "trades", worker.book.getTradeCount()
+        )));
+        return stats;
+    }
+
+    /**
+     * Reconstruit les carnets à partir des ordres encore actifs, dans leur ordre d'arrivée.
+     * Passe avant les autres écouteurs : les expirations au démarrage doivent trouver les ordres au carnet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recoverBooks() {
+        if (!recoverOnStartup) {
+            return;
+        }
+        List<Order> workingOrders = orderRepository.findByStatusInOrderByCreatedAtAsc(List.of("NEW", "WORKING"));
+        int recovered = 0;
+        for (Order order : workingOrders) {
+            if ("LIMIT".equals(order.getOrderType()) && order.getRemainingQuantity() > 0) {
+                submit(order, null);
+                recovered++;
+            }
+        }
+        logger.info("Matching engine recovered {} resting orders", recovered);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.values().forEach(worker -> worker.executor.shutdown());
+    }
+
+    public static long toTicks(BigDecimal price) {
+        return price.movePointRight(PRICE_SCALE).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+    }
+
+    public static BigDecimal fromTicks(long ticks) {
+        return BigDecimal.valueOf(ticks, PRICE_SCALE);
+    }
+
+    private void publishTopOfBook(OrderBook book) {
+        listener.onBookUpdated(book.getSymbol(), book.getBestBidTicks(), book.getBestAskTicks());
+    }
+
+    private SymbolWorker worker(String symbol) {
+        return workers.computeIfAbsent(symbol, SymbolWorker::new);
+    }
+
+    private static final class SymbolWorker {
+        private final OrderBook book;
+        private final ExecutorService executor;
+
+        private SymbolWorker(String symbol) {
+            this.book = new OrderBook(symbol);
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "matching-" + symbol);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
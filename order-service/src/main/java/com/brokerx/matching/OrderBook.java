@@ -0,0 +1,177 @@
+package com.brokerx.matching;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * Carnet d'ordres à priorité prix/temps pour un symbole.
+ * Non thread-safe : un seul thread écrivain par symbole (voir {@link MatchingEngine}).
+ * Les compteurs publiés (meilleur bid/ask, nombre d'ordres) sont volatils pour la lecture externe.
+ */
+public final class OrderBook {
+
+    public static final long NO_PRICE = 0L;
+
+    private final String symbol;
+    private final BookSide bids;
+    private final BookSide asks;
+    private final OrderIndex ordersById;
+    private final ArrayDeque<PriceLevel> levelPool = new ArrayDeque<>();
+
+    private volatile long bestBidTicks = NO_PRICE;
+    private volatile long bestAskTicks = NO_PRICE;
+    private volatile int restingOrders;
+    private volatile long tradeCount;
+
+    public OrderBook(String symbol) {
+        this(symbol, 64, 1024);
+    }
+
+    public OrderBook(String symbol, int expectedLevels, int expectedOrders) {
+        this.symbol = symbol;
+        this.bids = new BookSide(true, expectedLevels);
+        this.asks = new BookSide(false, expectedLevels);
+        this.ordersById = new OrderIndex(expectedOrders);
+    }
+
+    /**
+     * Apparie l'ordre entrant contre le côté opposé puis place le reliquat d'un ordre LIMIT DAY
+     * dans le carnet. Le reliquat d'un ordre MARKET ou IOC est annulé, de même que la partie qui
+     * dépasserait un prix de protection. Un FOK est exécuté en totalité ou annulé sans exécution :
+     * la vérification et l'appariement se font sur le même thread, donc de façon atomique.
+     */
+    public void submit(BookOrder order, MatchListener listener) {
+        if (ordersById.get(order.orderId) != null) {
+            return;
+        }
+
+        if (order.allOrNone && !canFillCompletely(order)) {
+            int unfilled = order.remaining;
+            order.remaining = 0;
+            listener.onCancelled(symbol, order, unfilled);
+            return;
+        }
+
+        match(order, listener);
+
+        if (order.remaining > 0) {
+            if (order.market || order.immediate) {
+                int unfilled = order.remaining;
+                order.remaining = 0;
+                listener.onCancelled(symbol, order, unfilled);
+            } else {
+                rest(order);
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Retire un ordre au repos. Retourne l'ordre retiré, ou null s'il n'est pas (ou plus) dans le carnet.
+     */
+    public BookOrder cancel(UUID orderId) {
+        BookOrder order = ordersById.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        PriceLevel level = order.level;
+        BookSide side = order.buy ? bids : asks;
+        level.remove(order);
+        if (level.isEmpty()) {
+            side.remove(level);
+            levelPool.push(level);
+        }
+        publish();
+        return order;
+    }
+
+    private void match(BookOrder incoming, MatchListener listener) {
+        BookSide opposite = incoming.buy ? asks : bids;
+
+        while (incoming.remaining > 0) {
+            PriceLevel level = opposite.best();
+            if (level == null || !crosses(incoming, level.priceTicks)) {
+                break;
+            }
+
+            BookOrder resting = level.head;
+            while (resting != null && incoming.remaining > 0) {
+                BookOrder next = resting.next;
+                int quantity = Math.min(incoming.remaining, resting.remaining);
+
+                incoming.remaining -= quantity;
+                resting.remaining -= quantity;
+                level.totalQuantity -= quantity;
+                tradeCount++;
+
+                listener.onTrade(symbol, incoming, resting, level.priceTicks, quantity);
+
+                if (resting.remaining == 0) {
+                    level.remove(resting);
+                    ordersById.remove(resting.orderId);
+                }
+                resting = next;
+            }
+
+            if (level.isEmpty()) {
+                opposite.remove(level);
+                levelPool.push(level);
+            }
+        }
+    }
+
+    /**
+     * Quantité disponible aux prix compatibles, niveau par niveau depuis le meilleur, sans rien modifier.
+     */
+    private boolean canFillCompletely(BookOrder incoming) {
+        BookSide opposite = incoming.buy ? asks : bids;
+        long available = 0;
+        for (int i = 0; i < opposite.depth(); i++) {
+            PriceLevel level = opposite.levelAt(i);
+            if (!crosses(incoming, level.priceTicks)) {
+                return false;
+            }
+            available += level.totalQuantity;
+            if (available >= incoming.remaining) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rest(BookOrder order) {
+        BookSide side = order.buy ? bids : asks;
+        PriceLevel level = side.find(order.priceTicks);
+        if (level == null) {
+            PriceLevel recycled = levelPool.poll();
+            level = (recycled != null ? recycled : new PriceLevel()).reset(order.priceTicks);
+            side.insert(level);
+        }
+        level.append(order);
+        ordersById.put(order);
+    }
+
+    private static boolean crosses(BookOrder incoming, long restingPrice) {
+        // Un ordre MARKET peut porter un prix de protection : au-delà, le reliquat est annulé
+        if (incoming.market && incoming.priceTicks == NO_PRICE) {
+            return true;
+        }
+        return incoming.buy ? restingPrice <= incoming.priceTicks : restingPrice >= incoming.priceTicks;
+    }
+
+    private void publish() {
+        PriceLevel bestBid = bids.best();
+        PriceLevel bestAsk = asks.best();
+        bestBidTicks = bestBid != null ? bestBid.priceTicks : NO_PRICE;
+        bestAskTicks = bestAsk != null ? bestAsk.priceTicks : NO_PRICE;
+        restingOrders = ordersById.size();
+    }
+
+    public String getSymbol() { return symbol; }
+    public long getBestBidTicks() { return bestBidTicks; }
+    public long getBestAskTicks() { return bestAskTicks; }
+    public int getRestingOrders() { return restingOrders; }
+    public long getTradeCount() { return tradeCount; }
+    public int getBidDepth() { return bids.depth(); }
+    public int getAskDepth() { return asks.depth(); }
+}
@@ -0,0 +1,121 @@
+package com.brokerx.matching;
+
+import java.util.UUID;
+
+/**
+ * Index orderId → ordre au repos en adressage ouvert (sondage linéaire, suppression par
+ * décalage arrière). Les clés sont les deux longs de l'UUID : aucune allocation par entrée.
+ */
+final class OrderIndex {
+
+    private long[] msbs;
+    private long[] lsbs;
+    private BookOrder[] values;
+    private int mask;
+    private int size;
+
+    OrderIndex(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1;
+        allocate(capacity);
+    }
+
+    BookOrder get(UUID orderId) {
+        long msb = orderId.getMostSignificantBits();
+        long lsb = orderId.getLeastSignificantBits();
+        for (int i = hash(msb, lsb) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    void put(BookOrder order) {
+        if ((size + 1) * 2 > values.length) {
+            resize();
+        }
+        long msb = order.orderId.getMostSignificantBits();
+        long lsb = order.orderId.getLeastSignificantBits();
+        int i = hash(msb, lsb) & mask;
+        while (values[i] != null) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                values[i] = order;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        values[i] = order;
+        size++;
+    }
+
+    BookOrder remove(UUID orderId) {
+        long msb = orderId.getMostSignificantBits();
+        long lsb = orderId.getLeastSignificantBits();
+        int i = hash(msb, lsb) & mask;
+        while (values[i] != null) {
+            if (msbs[i] == msb && lsbs[i] == lsb) {
+                BookOrder removed = values[i];
+                shiftBack(i);
+                size--;
+                return removed;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void shiftBack(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                break;
+            }
+            int home = hash(msbs[j], lsbs[j]) & mask;
+            boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+            if (movable) {
+                msbs[hole] = msbs[j];
+                lsbs[hole] = lsbs[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private void resize() {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        BookOrder[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = hash(oldMsbs[i], oldLsbs[i]) & mask;
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                msbs[j] = oldMsbs[i];
+                lsbs[j] = oldLsbs[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        values = new BookOrder[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,58 @@
+package com.brokerx.matching;
+
+/**
+ * Niveau de prix : file FIFO intrusive des ordres au même prix (priorité temporelle).
+ */
+final class PriceLevel {
+
+    long priceTicks;
+    long totalQuantity;
+    int orderCount;
+    BookOrder head;
+    BookOrder tail;
+
+    PriceLevel reset(long priceTicks) {
+        this.priceTicks = priceTicks;
+        this.totalQuantity = 0;
+        this.orderCount = 0;
+        this.head = null;
+        this.tail = null;
+        return this;
+    }
+
+    void append(BookOrder order) {
+        order.level = this;
+        order.next = null;
+        order.prev = tail;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.remaining;
+        orderCount++;
+    }
+
+    void remove(BookOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.remaining;
+        orderCount--;
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.brokerx.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Exécutions mises de côté par l'écrivain d'exécutions (order_execution_dead_letters), en JDBC.
+ */
+@Repository
+public class ExecutionDeadLetterRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExecutionDeadLetterRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void park(UUID orderId, int quantity, long priceTicks, boolean cancelled, String error) {
+        jdbcTemplate.update(
+            "INSERT INTO order_execution_dead_letters (order_id, quantity, price_ticks, cancelled, error) " +
+            "VALUES (?, ?, ?, ?, ?)", orderId, quantity, priceTicks, cancelled, error);
+    }
+}
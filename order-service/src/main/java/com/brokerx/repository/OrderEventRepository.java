@@ -0,0 +1,133 @@
+package com.brokerx.repository;
+
+import com.brokerx.dto.order.OrderEvent;
+import com.brokerx.entity.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Outbox order_events en JDBC. L'écriture se fait dans la transaction qui modifie l'ordre, APRÈS le flush
+ * de l'ordre : le verrou de ligne garantit alors que les event_id d'un même ordre suivent l'ordre des commits.
+ */
+@Repository
+public class OrderEventRepository {
+
+    private static final String INSERT =
+        "INSERT INTO order_events (order_id, account_id, event_type, symbol, side, quantity, price, " +
+        "status, filled_quantity, remaining_quantity) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_PENDING =
+        "SELECT event_id, event_type, order_id, account_id, symbol, side, quantity, price, status, " +
+        "filled_quantity, remaining_quantity, occurred_at FROM order_events " +
+        "WHERE published_at IS NULL ORDER BY event_id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // Événements en attente hors du lot (pris par un autre relais ou pas encore vus) qui précèdent
+    // le dernier événement du lot pour le même ordre
+    private static final String SELECT_FOREIGN_PENDING =
+        "SELECT e.order_id, MIN(e.event_id) AS event_id FROM order_events e " +
+        "JOIN unnest(?::uuid[], ?::bigint[]) AS latest(order_id, event_id) ON e.order_id = latest.order_id " +
+        "WHERE e.published_at IS NULL AND e.event_id < latest.event_id AND NOT (e.event_id = ANY(?)) " +
+        "GROUP BY e.order_id";
+
+    private static final RowMapper<OrderEvent> ROW_MAPPER = (rs, rowNum) -> new OrderEvent(
+        rs.getLong("event_id"),
+        rs.getString("event_type"),
+        rs.getObject("order_id", UUID.class),
+        rs.getObject("account_id", UUID.class),
+        rs.getString("symbol"),
+        rs.getString("side"),
+        rs.getInt("quantity"),
+        rs.getBigDecimal("price"),
+        rs.getString("status"),
+        rs.getInt("filled_quantity"),
+        rs.getInt("remaining_quantity"),
+        rs.getTimestamp("occurred_at").toLocalDateTime()
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Order order, String eventType) {
+        recordAll(List.of(order), eventType);
+    }
+
+    public void recordAll(List<Order> orders, String eventType) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, orders, orders.size(), (statement, order) -> {
+            statement.setObject(1, order.getOrderId());
+            statement.setObject(2, order.getAccountId());
+            statement.setString(3, eventType);
+            statement.setString(4, order.getSymbol());
+            statement.setString(5, order.getSide());
+            statement.setInt(6, order.getQuantity());
+            statement.setBigDecimal(7, order.getPrice());
+            statement.setString(8, order.getStatus());
+            statement.setInt(9, order.getFilledQuantity());
+            statement.setInt(10, order.getRemainingQuantity());
+        });
+    }
+
+    /**
+     * Verrouille au plus {@code limit} événements en attente, sans attendre ceux déjà pris par un autre relais.
+     * À appeler dans une transaction : les verrous tiennent jusqu'au marquage.
+     */
+    public List<OrderEvent> lockPending(int limit) {
+        return jdbcTemplate.query(SELECT_PENDING, ROW_MAPPER, limit);
+    }
+
+    /**
+     * Pour chaque ordre du lot, le premier événement en attente qui n'est pas dans le lot et précède l'un des siens.
+     * Les événements du lot à partir de celui-ci ne peuvent pas être livrés sans casser l'ordre par ordre.
+     */
+    public Map<UUID, Long> findForeignPending(List<OrderEvent> events) {
+        Map<UUID, Long> lastByOrder = new LinkedHashMap<>();
+        Long[] eventIds = new Long[events.size()];
+        for (int i = 0; i < events.size(); i++) {
+            OrderEvent event = events.get(i);
+            lastByOrder.put(event.getOrderId(), event.getEventId());
+            eventIds[i] = event.getEventId();
+        }
+        Map<UUID, Long> foreign = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_FOREIGN_PENDING);
+            statement.setArray(1, connection.createArrayOf("uuid", lastByOrder.keySet().toArray()));
+            statement.setArray(2, connection.createArrayOf("bigint", lastByOrder.values().toArray()));
+            statement.setArray(3, connection.createArrayOf("bigint", eventIds));
+            return statement;
+        }, rs -> {
+            foreign.put(rs.getObject("order_id", UUID.class), rs.getLong("event_id"));
+        });
+        return foreign;
+    }
+
+    public void markPublished(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                "UPDATE order_events SET published_at = now() WHERE event_id = ANY(?)");
+            statement.setArray(1, connection.createArrayOf("bigint", eventIds.toArray()));
+            return statement;
+        });
+    }
+
+    public int purgePublishedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM order_events WHERE published_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,215 @@
+package com.brokerx.repository;
+
+import com.brokerx.dto.order.OrderResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lectures des ordres en JDBC, sans entités JPA en mémoire.
+ * Pagination par curseur (keyset) sur (created_at, order_id), du plus récent au plus ancien :
+ * le coût d'une page ne dépend pas de sa position, contrairement à OFFSET.
+ */
+@Repository
+public class OrderQueryRepository {
+
+    private static final String SELECT_COLUMNS =
+        "SELECT order_id, account_id, client_order_id, symbol, side, order_type, quantity, price, " +
+        "time_in_force, status, filled_quantity, remaining_quantity, created_at FROM orders";
+
+    private static final String ORDER_BY = " ORDER BY created_at DESC, order_id DESC";
+
+    private static final String RETURNING_COLUMNS =
+        " RETURNING order_id, account_id, client_order_id, symbol, side, order_type, quantity, price, " +
+        "time_in_force, status, filled_quantity, remaining_quantity, created_at";
+
+    private static final RowMapper<OrderResponse> ROW_MAPPER = rowMapper("Order found");
+
+    private static RowMapper<OrderResponse> rowMapper(String message) {
+        return (rs, rowNum) -> new OrderResponse(
+            rs.getObject("order_id", UUID.class),
+            rs.getObject("account_id", UUID.class),
+            rs.getString("client_order_id"),
+            rs.getString("symbol"),
+            rs.getString("side"),
+            rs.getString("order_type"),
+            rs.getInt("quantity"),
+            rs.getBigDecimal("price"),
+            rs.getString("time_in_force"),
+            rs.getString("status"),
+            rs.getInt("filled_quantity"),
+            rs.getInt("remaining_quantity"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            message
+        );
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public OrderQueryRepository(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${order.query.stream-fetch-size:500}") int streamFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Template dédié : le fetch size ne doit pas s'appliquer aux autres requêtes du service
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(streamFetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Une page d'au plus {@code limit} ordres strictement après {@code after} (null = première page).
+     * Une ligne de plus est lue pour savoir s'il reste des résultats.
+     */
+    public Page findPage(UUID accountId, String status, String symbol, Cursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS);
+        appendFilters(sql, args, accountId, status, symbol);
+        if (after != null) {
+            sql.append(args.isEmpty() ? " WHERE" : " AND").append(" (created_at, order_id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.orderId());
+        }
+        sql.append(ORDER_BY).append(" LIMIT ?");
+        args.add(limit + 1);
+
+        List<OrderResponse> rows = jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+        if (rows.size() <= limit) {
+            return new Page(rows, null);
+        }
+        List<OrderResponse> page = rows.subList(0, limit);
+        OrderResponse last = page.get(limit - 1);
+        return new Page(page, new Cursor(last.getCreatedAt(), last.getOrderId()));
+    }
+
+    /**
+     * Parcourt tous les ordres correspondants via un curseur serveur : PostgreSQL ne respecte
+     * le fetch size qu'hors autocommit, d'où la transaction en lecture seule.
+     * Chaque ligne est remise au consommateur puis oubliée.
+     */
+    public long stream(UUID accountId, String status, String symbol, Consumer<OrderResponse> consumer) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS);
+        appendFilters(sql, args, accountId, status, symbol);
+        sql.append(ORDER_BY);
+
+        Long count = readOnlyTransaction.execute(tx -> {
+            long[] rows = {0L};
+            streamingJdbcTemplate.query(sql.toString(), rs -> {
+                consumer.accept(ROW_MAPPER.mapRow(rs, (int) rows[0]));
+                rows[0]++;
+            }, args.toArray());
+            return rows[0];
+        });
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Ordres encore actifs d'un compte, filtrés par symbole et/ou côté (null = tous) : identifiant
+     * et symbole seulement, de quoi les retirer des carnets avant l'annulation.
+     */
+    public List<ActiveOrder> findActive(UUID accountId, String symbol, String side) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+            "SELECT order_id, symbol FROM orders WHERE account_id = ? AND status IN ('NEW', 'WORKING')");
+        args.add(accountId);
+        if (symbol != null) {
+            sql.append(" AND symbol = ?");
+            args.add(symbol);
+        }
+        if (side != null) {
+            sql.append(" AND side = ?");
+            args.add(side);
+        }
+        return jdbcTemplate.query(sql.toString(),
+            (rs, rowNum) -> new ActiveOrder(rs.getObject("order_id", UUID.class), rs.getString("symbol")),
+            args.toArray());
+    }
+
+    /**
+     * Annule en une seule requête les ordres encore actifs de la liste ; les ordres déjà terminés
+     * (exécutés, annulés entre-temps) sont ignorés. Retourne l'état final des seules lignes modifiées.
+     * L'événement {@code eventType} de chaque ordre annulé est écrit dans l'outbox par la même instruction.
+     */
+    public List<OrderResponse> cancelActive(List<UUID> orderIds, String message, String eventType) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = "WITH cancelled AS (" +
+                     "UPDATE orders SET status = 'CANCELLED', updated_at = now(), version = version + 1 " +
+                     "WHERE order_id = ANY(?) AND status IN ('NEW', 'WORKING')" + RETURNING_COLUMNS + "), " +
+                     "events AS (INSERT INTO order_events (order_id, account_id, event_type, symbol, side, " +
+                     "quantity, price, status, filled_quantity, remaining_quantity) " +
+                     "SELECT order_id, account_id, ?, symbol, side, quantity, price, status, filled_quantity, " +
+                     "remaining_quantity FROM cancelled) " +
+                     "SELECT * FROM cancelled";
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("uuid", orderIds.toArray()));
+            statement.setString(2, eventType);
+            return statement;
+        }, rowMapper(message));
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> args,
+                                      UUID accountId, String status, String symbol) {
+        List<String> conditions = new ArrayList<>();
+        if (accountId != null) {
+            conditions.add("account_id = ?");
+            args.add(accountId);
+        }
+        if (status != null) {
+            conditions.add("status = ?");
+            args.add(status);
+        }
+        if (symbol != null) {
+            conditions.add("symbol = ?");
+            args.add(symbol);
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+    }
+
+    public record Page(List<OrderResponse> orders, Cursor next) {}
+
+    public record ActiveOrder(UUID orderId, String symbol) {}
+
+    /**
+     * Position opaque pour le client : (created_at, order_id) du dernier ordre renvoyé, en Base64 URL.
+     */
+    public record Cursor(LocalDateTime createdAt, UUID orderId) {
+
+        public String encode() {
+            String raw = createdAt + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                  UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
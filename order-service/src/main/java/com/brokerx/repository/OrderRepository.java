@@ -2,6 +2,10 @@ package com.brokerx.repository;
 
 import com.brokerx.entity.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
@@ -9,4 +13,12 @@ import java.util.Optional;
 public interface OrderRepository extends JpaRepository<Order, UUID> {
     List<Order> findByAccountId(UUID accountId);
     Optional<Order> findByAccountIdAndClientOrderId(UUID accountId, String clientOrderId);
+    List<Order> findByStatusInOrderByCreatedAtAsc(Collection<String> statuses);
+
+    @Query("SELECT o.clientOrderId FROM Order o WHERE o.accountId = :accountId")
+    List<String> findClientOrderIdsByAccountId(@Param("accountId") UUID accountId);
+
+    @Query("SELECT o.clientOrderId FROM Order o WHERE o.accountId = :accountId AND o.clientOrderId IN :clientOrderIds")
+    List<String> findExistingClientOrderIds(@Param("accountId") UUID accountId,
+                                            @Param("clientOrderIds") Collection<String> clientOrderIds);
 }
\ No newline at end of file
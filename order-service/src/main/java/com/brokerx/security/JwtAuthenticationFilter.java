@@ -6,6 +6,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
 
@@ -20,9 +22,11 @@ import java.util.UUID;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtConfig jwtConfig;
+    private final StreamTicketService streamTicketService;
 
-    public JwtAuthenticationFilter(JwtConfig jwtConfig) {
+    public JwtAuthenticationFilter(JwtConfig jwtConfig, StreamTicketService streamTicketService) {
         this.jwtConfig = jwtConfig;
+        this.streamTicketService = streamTicketService;
     }
 
     @Override
@@ -49,28 +53,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             } catch (Exception e) {
                 logger.error("Invalid JWT token: " + e.getMessage());
             }
+        } else if (path.endsWith("/events") && request.getParameter("ticket") != null) {
+            // Flux SSE : EventSource ne permet pas d'en-tête Authorization, un ticket à usage unique en tient lieu
+            StreamTicketService.Ticket ticket = streamTicketService.redeem(request.getParameter("ticket"));
+            if (ticket != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                authenticate(request, ticket.email(), ticket.userId(), ticket.authorities());
+            }
         }
 
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             if (jwtConfig.validateToken(jwt, email)) {
                 UUID userId = jwtConfig.extractUserId(jwt);
                 String role = jwtConfig.extractRole(jwt);
-
-                UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                        email,
-                        null,
-                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                request.setAttribute("userId", userId);
-                request.setAttribute("userEmail", email);
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                authenticate(request, email, userId,
+                             Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, String email, UUID userId,
+                              Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authentication =
+            new UsernamePasswordAuthenticationToken(email, null, authorities);
+
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        request.setAttribute("userId", userId);
+        request.setAttribute("userEmail", email);
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.brokerx.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache local de la chaîne d'identité email → userId → accountId → walletId.
+ * Le solde n'est jamais mis en cache : il reste lu de façon autoritaire dans wallet-service.
+ */
+@Component
+public class AccountContextCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountContextCache.class);
+
+    @Value("${order.account-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${order.account-cache.ttl:PT5M}")
+    private Duration ttl;
+
+    private final Map<String, CachedContext> contextsByEmail = new ConcurrentHashMap<>();
+    private final Map<UUID, String> emailsByAccount = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AccountContext get(String email) {
+        CachedContext cached = contextsByEmail.get(email);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.isExpired(System.nanoTime())) {
+            remove(email, cached);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.context;
+    }
+
+    public String getEmailForAccount(UUID accountId) {
+        return emailsByAccount.get(accountId);
+    }
+
+    public void put(String email, AccountContext context) {
+        if (contextsByEmail.size() >= maxSize) {
+            evict();
+        }
+        contextsByEmail.put(email, new CachedContext(context, System.nanoTime() + ttl.toNanos()));
+        emailsByAccount.put(context.accountId(), email);
+    }
+
+    public void invalidate(String email) {
+        CachedContext cached = contextsByEmail.remove(email);
+        if (cached != null) {
+            emailsByAccount.remove(cached.context.accountId(), email);
+            logger.info("Account context invalidated: email={}", email);
+        }
+    }
+
+    public void invalidateAccount(UUID accountId) {
+        String email = emailsByAccount.get(accountId);
+        if (email != null) {
+            invalidate(email);
+        }
+    }
+
+    public void invalidateAll() {
+        contextsByEmail.clear();
+        emailsByAccount.clear();
+        logger.info("Account context cache cleared");
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "size", contextsByEmail.size(),
+            "maxSize", maxSize,
+            "ttlSeconds", ttl.toSeconds(),
+            "hits", hits.sum(),
+            "misses", misses.sum(),
+            "evictions", evictions.sum()
+        );
+    }
+
+    /**
+     * Retire d'abord les entrées expirées, puis un dixième du cache si la limite est toujours atteinte.
+     */
+    private void evict() {
+        long now = System.nanoTime();
+        contextsByEmail.forEach((email, cached) -> {
+            if (cached.isExpired(now)) {
+                remove(email, cached);
+            }
+        });
+
+        int toRemove = contextsByEmail.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Map.Entry<String, CachedContext>> it = contextsByEmail.entrySet().iterator();
+        while (toRemove > 0 && it.hasNext()) {
+            Map.Entry<String, CachedContext> entry = it.next();
+            remove(entry.getKey(), entry.getValue());
+            toRemove--;
+        }
+    }
+
+    private void remove(String email, CachedContext cached) {
+        if (contextsByEmail.remove(email, cached)) {
+            emailsByAccount.remove(cached.context.accountId(), email);
+            evictions.increment();
+        }
+    }
+
+    public record AccountContext(
+        UUID userId,
+        UUID accountId,
+        String accountStatus,
+        UUID walletId
+    ) {}
+
+    private static final class CachedContext {
+        private final AccountContext context;
+        private final long expiresAtNanos;
+
+        private CachedContext(AccountContext context, long expiresAtNanos) {
+            this.context = context;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
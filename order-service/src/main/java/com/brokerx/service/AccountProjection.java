@@ -0,0 +1,344 @@
+package com.brokerx.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Modèle de lecture local accountId → statut, walletId, solde, alimenté par les outbox
+ * d'account-service (GET /accounts/changes) et de wallet-service (GET /wallets/changes).
+ *
+ * Chaque événement porte l'état complet et sa seq sert de version : il n'est appliqué que s'il est
+ * plus récent que la version connue, ce qui rend la relecture idempotente. Les trous de seq
+ * (transactions pas encore commitées) sont relus jusqu'à leur délai d'abandon. Une entrée inconnue
+ * est amorcée par l'appel distant, versionnée à la position sûre du flux prise avant l'appel.
+ *
+ * Un flux qui n'a pas été lu avec succès depuis max-staleness n'est plus servi : retour aux appels distants.
+ */
+@Component
+public class AccountProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountProjection.class);
+
+    private static final String ACCOUNT_CHANGES_URL = "http://account-service:8081/accounts/changes";
+    private static final String WALLET_CHANGES_URL = "http://wallet-service:8082/wallets/changes";
+
+    // Version d'un champ jamais renseigné : tout événement ou amorçage l'emporte
+    private static final long UNKNOWN = Long.MIN_VALUE;
+    private static final int MAX_HOLES = 10_000;
+
+    private final RestTemplate restTemplate;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${order.projection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.projection.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${order.projection.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order.projection.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${order.projection.max-staleness:PT5S}")
+    private Duration maxStaleness;
+
+    @Value("${order.projection.hole-timeout:PT30S}")
+    private Duration holeTimeout;
+
+    @Value("${order.projection.resync-after:PT1H}")
+    private Duration resyncAfter;
+
+    @Value("${internal.service-token}")
+    private String internalServiceToken;
+
+    private final Feed accountFeed = new Feed("account", ACCOUNT_CHANGES_URL, this::applyAccountChange);
+    private final Feed walletFeed = new Feed("wallet", WALLET_CHANGES_URL, this::applyWalletChange);
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder ignored = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile boolean running;
+    private Thread pollerThread;
+
+    public AccountProjection(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Account projection disabled: account and wallet are read remotely");
+            return;
+        }
+        running = true;
+        pollerThread = new Thread(this::pollLoop, "projection-poller");
+        pollerThread.setDaemon(true);
+        pollerThread.start();
+        logger.info("Account projection started: poll every {} ms, max staleness {}", pollIntervalMs, maxStaleness);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (pollerThread != null) {
+            pollerThread.interrupt();
+        }
+    }
+
+    /**
+     * Solde et wallet d'un compte si le flux wallet est à jour et l'entrée connue ; null sinon.
+     * Le statut est null tant qu'il n'est pas connu ou que le flux compte est en retard.
+     */
+    public View get(UUID accountId) {
+        Entry entry = entries.get(accountId);
+        long now = System.nanoTime();
+        if (entry == null || entry.walletId == null || !walletFeed.isLive(now)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        String status = accountFeed.isLive(now) ? entry.status : null;
+        return new View(status, entry.walletId, entry.balance);
+    }
+
+    /**
+     * Position sûre du flux wallet, à relever AVANT l'appel distant qui servira à amorcer une entrée.
+     */
+    public long walletVersion() {
+        return walletFeed.safeVersion;
+    }
+
+    public long accountVersion() {
+        return accountFeed.safeVersion;
+    }
+
+    public void seedWallet(UUID accountId, UUID walletId, BigDecimal balance, long version) {
+        if (running && applyWallet(accountId, walletId, balance, version)) {
+            seeds.increment();
+        }
+    }
+
+    public void seedStatus(UUID accountId, String status, long version) {
+        if (running && applyStatus(accountId, status, version)) {
+            seeds.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "enabled", enabled,
+            "entries", entries.size(),
+            "accountFeed", accountFeed.stats(System.nanoTime()),
+            "walletFeed", walletFeed.stats(System.nanoTime()),
+            "applied", applied.sum(),
+            "ignored", ignored.sum(),
+            "seeds", seeds.sum(),
+            "hits", hits.sum(),
+            "misses", misses.sum()
+        );
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                boolean more = poll(accountFeed) | poll(walletFeed);
+                if (!more) {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true si le lot était plein : on relit sans attendre
+     */
+    private boolean poll(Feed feed) {
+        long now = System.nanoTime();
+        boolean resync = feed.cursor >= 0 && now - feed.lastSuccessNanos > resyncAfter.toNanos();
+        long after = feed.cursor < 0 || resync ? -1 : feed.readFrom();
+
+        Map<String, Object> body;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Internal-Token", internalServiceToken);
+            body = restTemplate.exchange(feed.url + "?after=" + after + "&limit=" + batchSize, HttpMethod.GET,
+                                         new HttpEntity<>(headers), Map.class).getBody();
+        } catch (Exception e) {
+            feed.failures.increment();
+            logger.warn("Projection {} feed unreachable: {}", feed.name, e.getMessage());
+            return false;
+        }
+        if (body == null) {
+            return false;
+        }
+
+        if (after < 0) {
+            // Démarrage ou trop long silence (outbox possiblement purgé) : on repart de la tête
+            if (resync) {
+                entries.clear();
+                logger.warn("Projection {} feed silent for more than {}, entries cleared", feed.name, resyncAfter);
+            }
+            feed.holes.clear();
+            feed.holeCount = 0;
+            feed.cursor = ((Number) body.get("head")).longValue();
+            feed.safeVersion = feed.cursor;
+            feed.lastSuccessNanos = now;
+            logger.info("Projection {} feed positioned at seq {}", feed.name, feed.cursor);
+            return false;
+        }
+
+        List<Map<String, Object>> changes = (List<Map<String, Object>>) body.get("changes");
+        for (Map<String, Object> change : changes) {
+            long seq = ((Number) change.get("seq")).longValue();
+            feed.holes.remove(seq);
+            if (seq > feed.cursor) {
+                long gapStart = Math.max(feed.cursor + 1, seq - (MAX_HOLES - feed.holes.size()));
+                for (long missing = gapStart; missing < seq; missing++) {
+                    feed.holes.put(missing, now);
+                }
+                feed.cursor = seq;
+            }
+            feed.applier.accept(seq, change);
+        }
+
+        // Séquence consommée par une transaction annulée : le trou ne se comblera jamais
+        long holeDeadline = now - holeTimeout.toNanos();
+        feed.holes.values().removeIf(firstSeen -> firstSeen - holeDeadline < 0);
+        feed.holeCount = feed.holes.size();
+        feed.safeVersion = feed.readFrom();
+        feed.lastSuccessNanos = now;
+        return changes.size() >= batchSize;
+    }
+
+    private void applyAccountChange(long seq, Map<String, Object> change) {
+        UUID accountId = UUID.fromString(change.get("accountId").toString());
+        count(applyStatus(accountId, (String) change.get("status"), seq));
+    }
+
+    private void applyWalletChange(long seq, Map<String, Object> change) {
+        UUID accountId = UUID.fromString(change.get("accountId").toString());
+        UUID walletId = UUID.fromString(change.get("walletId").toString());
+        BigDecimal balance = new BigDecimal(change.get("balance").toString());
+        count(applyWallet(accountId, walletId, balance, seq));
+    }
+
+    private void count(boolean wasApplied) {
+        if (wasApplied) {
+            applied.increment();
+        } else {
+            ignored.increment();
+        }
+    }
+
+    private boolean applyStatus(UUID accountId, String status, long version) {
+        boolean[] changed = {false};
+        entries.compute(accountId, (id, entry) -> {
+            if (entry == null) {
+                if (entries.size() >= maxEntries) {
+                    return null;
+                }
+                entry = Entry.EMPTY;
+            }
+            if (version <= entry.statusVersion) {
+                return entry == Entry.EMPTY ? null : entry;
+            }
+            changed[0] = true;
+            return new Entry(status, version, entry.walletId, entry.balance, entry.walletVersion);
+        });
+        return changed[0];
+    }
+
+    private boolean applyWallet(UUID accountId, UUID walletId, BigDecimal balance, long version) {
+        boolean[] changed = {false};
+        entries.compute(accountId, (id, entry) -> {
+            if (entry == null) {
+                // Plafond atteint : l'entrée sera amorcée à distance, à une version qui couvre cet événement
+                if (entries.size() >= maxEntries) {
+                    return null;
+                }
+                entry = Entry.EMPTY;
+            }
+            if (version <= entry.walletVersion) {
+                return entry == Entry.EMPTY ? null : entry;
+            }
+            changed[0] = true;
+            return new Entry(entry.status, entry.statusVersion, walletId, balance, version);
+        });
+        return changed[0];
+    }
+
+    public record View(String status, UUID walletId, BigDecimal balance) {}
+
+    private record Entry(String status, long statusVersion, UUID walletId, BigDecimal balance, long walletVersion) {
+        private static final Entry EMPTY = new Entry(null, UNKNOWN, null, null, UNKNOWN);
+    }
+
+    /**
+     * Curseur d'un flux. cursor et holes ne sont touchés que par le thread de lecture ;
+     * safeVersion, lastSuccessNanos et holeCount sont publiés aux lecteurs.
+     */
+    private final class Feed {
+        private final String name;
+        private final String url;
+        private final BiConsumer<Long, Map<String, Object>> applier;
+        // seq manquantes sous le curseur → instant où le trou a été vu
+        private final TreeMap<Long, Long> holes = new TreeMap<>();
+        private final LongAdder failures = new LongAdder();
+
+        private long cursor = -1;
+        private volatile long safeVersion = -1;
+        private volatile long lastSuccessNanos;
+        private volatile int holeCount;
+
+        private Feed(String name, String url, BiConsumer<Long, Map<String, Object>> applier) {
+            this.name = name;
+            this.url = url;
+            this.applier = applier;
+        }
+
+        private long readFrom() {
+            return holes.isEmpty() ? cursor : holes.firstKey() - 1;
+        }
+
+        private boolean isLive(long now) {
+            return safeVersion >= 0 && now - lastSuccessNanos <= maxStaleness.toNanos();
+        }
+
+        private Map<String, Object> stats(long now) {
+            return Map.of(
+                "live", isLive(now),
+                "safeVersion", safeVersion,
+                "holes", holeCount,
+                "failures", failures.sum()
+            );
+        }
+    }
+}
@@ -4,8 +4,8 @@ import com.brokerx.dto.audit.CreateAuditLogRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 
@@ -13,14 +13,15 @@ import java.util.UUID;
 public class AuditService {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
-    private final RestTemplate restTemplate;
-    
-    private static final String ACCOUNT_SERVICE_URL = "http://account-service:8081";
+    private final AuditShipper auditShipper;
 
-    public AuditService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public AuditService(AuditShipper auditShipper) {
+        this.auditShipper = auditShipper;
     }
 
+    /**
+     * Dépose le log dans le tampon d'expédition : aucun appel distant sur le chemin de la requête.
+     */
     public void logAction(String entityType, UUID entityId, String action, 
                          UUID performedBy, String ipAddress, Map<String, Object> details) {
         try {
@@ -31,17 +32,14 @@ public class AuditService {
             logRequest.performedBy = performedBy;
             logRequest.ipAddress = ipAddress;
             logRequest.details = details;
+            logRequest.performedAt = LocalDateTime.now();
 
-            restTemplate.postForObject(
-                ACCOUNT_SERVICE_URL + "/audit", 
-                logRequest, 
-                Void.class
-            );
+            auditShipper.enqueue(logRequest);
             
-            logger.debug("Audit log sent: {} {} {}", entityType, entityId, action);
+            logger.debug("Audit log queued: {} {} {}", entityType, entityId, action);
             
         } catch (Exception e) {
-            logger.error("Failed to send audit log: {}", e.getMessage());
+            logger.error("Failed to queue audit log: {}", e.getMessage());
         }
     }
 }
\ No newline at end of file
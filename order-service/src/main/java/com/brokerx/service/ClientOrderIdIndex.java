@@ -0,0 +1,211 @@
+package com.brokerx.service;
+
+import com.brokerx.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index local des clientOrderId déjà utilisés, par compte : filtre de Bloom + derniers identifiants exacts.
+ * Le cas courant (identifiant neuf) est tranché sans lecture en base ; seul un « peut-être » du filtre
+ * déclenche la requête. La contrainte unique (account_id, client_order_id) reste l'arbitre final :
+ * un identifiant manqué (autre instance, commit concurrent) se termine en violation de contrainte.
+ */
+@Component
+public class ClientOrderIdIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientOrderIdIndex.class);
+
+    private static final int BITS_PER_ID = 10;
+    private static final int HASH_FUNCTIONS = 7;
+
+    public enum Presence { ABSENT, PRESENT, UNKNOWN }
+
+    private final OrderRepository orderRepository;
+    private final Map<UUID, AccountIds> accounts = new ConcurrentHashMap<>();
+
+    @Value("${order.client-order-index.max-accounts:10000}")
+    private int maxAccounts;
+
+    @Value("${order.client-order-index.min-capacity:1024}")
+    private int minCapacity;
+
+    @Value("${order.client-order-index.recent-ids:256}")
+    private int recentIds;
+
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder present = new LongAdder();
+    private final LongAdder unknown = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public ClientOrderIdIndex(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * ABSENT : jamais vu (sûr, aux commits concurrents près) ; PRESENT : identifiant récent connu ;
+     * UNKNOWN : faux positif possible, à vérifier en base.
+     */
+    public Presence check(UUID accountId, String clientOrderId) {
+        Presence result = load(accountId).check(clientOrderId);
+        switch (result) {
+            case ABSENT -> absent.increment();
+            case PRESENT -> present.increment();
+            case UNKNOWN -> unknown.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Enregistre l'identifiant une fois la transaction commitée : un rollback ne doit pas
+     * laisser un identifiant « connu » qui n'existe pas en base.
+     */
+    public void recordAfterCommit(UUID accountId, String clientOrderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(accountId, clientOrderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(accountId, clientOrderId);
+            }
+        });
+    }
+
+    /**
+     * L'index d'un compte s'est révélé incomplet (violation de contrainte) : il sera reconstruit au prochain accès.
+     */
+    public void invalidate(UUID accountId) {
+        accounts.remove(accountId);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "accounts", accounts.size(),
+            "maxAccounts", maxAccounts,
+            "absent", absent.sum(),
+            "present", present.sum(),
+            "unknown", unknown.sum(),
+            "rebuilds", rebuilds.sum()
+        );
+    }
+
+    private void record(UUID accountId, String clientOrderId) {
+        // Compte absent : l'identifiant sera relu en base lors de la reconstruction
+        AccountIds ids = accounts.get(accountId);
+        if (ids != null && !ids.add(clientOrderId)) {
+            // Filtre saturé : taux de faux positifs trop élevé, reconstruction avec une capacité doublée
+            accounts.remove(accountId, ids);
+        }
+    }
+
+    private AccountIds load(UUID accountId) {
+        AccountIds ids = accounts.get(accountId);
+        if (ids != null) {
+            return ids;
+        }
+        if (accounts.size() >= maxAccounts) {
+            evict();
+        }
+        // Requête hors de la map : un computeIfAbsent la ferait sous le verrou du bucket (autres comptes bloqués,
+        // thread porteur épinglé en mode threads virtuels). Deux reconstructions concurrentes : la première gagne
+        AccountIds rebuilt = rebuild(accountId);
+        AccountIds existing = accounts.putIfAbsent(accountId, rebuilt);
+        return existing != null ? existing : rebuilt;
+    }
+
+    private AccountIds rebuild(UUID accountId) {
+        List<String> existing = orderRepository.findClientOrderIdsByAccountId(accountId);
+        AccountIds ids = new AccountIds(Math.max(minCapacity, existing.size() * 2), recentIds);
+        existing.forEach(ids::add);
+        rebuilds.increment();
+        logger.debug("Client order id index rebuilt: accountId={}, ids={}", accountId, existing.size());
+        return ids;
+    }
+
+    private void evict() {
+        int toRemove = accounts.size() - maxAccounts + Math.max(1, maxAccounts / 10);
+        Iterator<UUID> it = accounts.keySet().iterator();
+        while (toRemove > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            toRemove--;
+        }
+    }
+
+    /**
+     * Identifiants d'un compte. Sections critiques courtes et sans I/O.
+     */
+    private static final class AccountIds {
+        private final long[] bits;
+        private final int bitCount;
+        private final int capacity;
+        private final LinkedHashMap<String, Boolean> recent;
+        private int size;
+
+        private AccountIds(int capacity, int recentIds) {
+            this.capacity = capacity;
+            this.bitCount = capacity * BITS_PER_ID;
+            this.bits = new long[(bitCount + 63) >>> 6];
+            this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > recentIds;
+                }
+            };
+        }
+
+        private synchronized Presence check(String clientOrderId) {
+            if (recent.containsKey(clientOrderId)) {
+                return Presence.PRESENT;
+            }
+            long hash = hash(clientOrderId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return Presence.ABSENT;
+                }
+            }
+            return Presence.UNKNOWN;
+        }
+
+        /**
+         * @return false si la capacité prévue est dépassée
+         */
+        private synchronized boolean add(String clientOrderId) {
+            long hash = hash(clientOrderId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASH_FUNCTIONS; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+            recent.put(clientOrderId, Boolean.TRUE);
+            return ++size <= capacity;
+        }
+
+        // FNV-1a 64 bits : les deux moitiés servent au double hachage
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
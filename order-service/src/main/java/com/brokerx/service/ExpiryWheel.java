@@ -0,0 +1,152 @@
+package com.brokerx.service;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Roue temporelle hiérarchique d'échéances d'ordres (4 niveaux de 64 cases).
+ * Une entrée n'est pas un objet : identifiant, symbole et échéance sont rangés dans les tableaux
+ * primitifs de la case. Ajout et avance sont en O(1) amorti ; les entrées d'un niveau supérieur
+ * redescendent (cascade) quand le temps atteint leur case.
+ *
+ * Non thread-safe : l'appelant sérialise les accès.
+ */
+public final class ExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final long[] levelTickMs = new long[LEVELS];
+    private final Bucket[][] buckets = new Bucket[LEVELS][SLOTS];
+    private long currentTime;
+    private int size;
+
+    /**
+     * @param tickMs résolution de la roue ; une échéance est déclenchée au plus un tick après son heure
+     */
+    public ExpiryWheel(long tickMs, long startTimeMs) {
+        this.tickMs = tickMs;
+        for (int level = 0; level < LEVELS; level++) {
+            levelTickMs[level] = tickMs << (SLOT_BITS * level);
+        }
+        this.currentTime = startTimeMs - Math.floorMod(startTimeMs, tickMs);
+    }
+
+    /**
+     * Programme une échéance. Retourne false si elle est déjà atteinte : l'appelant expire l'ordre lui-même.
+     */
+    public boolean add(UUID orderId, String symbol, long expiresAtMs) {
+        if (!place(orderId.getMostSignificantBits(), orderId.getLeastSignificantBits(), symbol, expiresAtMs)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Avance jusqu'à {@code nowMs} et remet au consommateur chaque entrée échue.
+     */
+    public void advance(long nowMs, ExpiredConsumer consumer) {
+        while (currentTime + tickMs <= nowMs) {
+            long slotStart = currentTime;
+            currentTime += tickMs;
+
+            drain(0, slotIndex(0, slotStart), consumer);
+            // Les cases des niveaux supérieurs qui commencent maintenant redescendent d'un cran
+            for (int level = 1; level < LEVELS && currentTime % levelTickMs[level] == 0; level++) {
+                drain(level, slotIndex(level, currentTime), consumer);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTime() {
+        return currentTime;
+    }
+
+    private boolean place(long msb, long lsb, String symbol, long expiresAtMs) {
+        long delay = expiresAtMs - currentTime;
+        if (delay <= 0) {
+            return false;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= levelTickMs[level] * SLOTS) {
+            level++;
+        }
+        // Au-delà de l'horizon du dernier niveau, l'entrée repassera par la cascade jusqu'à son tour
+        int slot = slotIndex(level, expiresAtMs);
+        Bucket bucket = buckets[level][slot];
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets[level][slot] = bucket;
+        }
+        bucket.add(msb, lsb, symbol, expiresAtMs);
+        return true;
+    }
+
+    /**
+     * Vide une case : chaque entrée échue est remise au consommateur, les autres sont replacées plus bas
+     * (ou dans la même case pour une échéance au-delà de l'horizon). La case est détachée pendant le
+     * parcours pour qu'une entrée replacée n'écrase pas celles qui restent à lire ; elle est remise en
+     * place ensuite si aucune nouvelle case n'a été créée entre-temps.
+     */
+    private void drain(int level, int slot, ExpiredConsumer consumer) {
+        Bucket bucket = buckets[level][slot];
+        if (bucket == null || bucket.size == 0) {
+            return;
+        }
+        buckets[level][slot] = null;
+        int count = bucket.size;
+        bucket.size = 0;
+        for (int i = 0; i < count; i++) {
+            if (!place(bucket.msb[i], bucket.lsb[i], bucket.symbols[i], bucket.expiresAt[i])) {
+                size--;
+                consumer.expired(new UUID(bucket.msb[i], bucket.lsb[i]), bucket.symbols[i]);
+            }
+            bucket.symbols[i] = null;
+        }
+        if (buckets[level][slot] == null) {
+            buckets[level][slot] = bucket;
+        }
+    }
+
+    private int slotIndex(int level, long timeMs) {
+        return (int) ((timeMs / levelTickMs[level]) & (SLOTS - 1));
+    }
+
+    @FunctionalInterface
+    public interface ExpiredConsumer {
+        void expired(UUID orderId, String symbol);
+    }
+
+    /**
+     * Colonnes d'une case ; la capacité double à la demande et n'est jamais rendue.
+     */
+    private static final class Bucket {
+        private long[] msb = new long[16];
+        private long[] lsb = new long[16];
+        private long[] expiresAt = new long[16];
+        private String[] symbols = new String[16];
+        private int size;
+
+        private void add(long mostSig, long leastSig, String symbol, long expiresAtMs) {
+            if (size == msb.length) {
+                int capacity = size * 2;
+                msb = Arrays.copyOf(msb, capacity);
+                lsb = Arrays.copyOf(lsb, capacity);
+                expiresAt = Arrays.copyOf(expiresAt, capacity);
+                symbols = Arrays.copyOf(symbols, capacity);
+            }
+            msb[size] = mostSig;
+            lsb[size] = leastSig;
+            expiresAt[size] = expiresAtMs;
+            symbols[size] = symbol;
+            size++;
+        }
+    }
+}
@@ -1,82 +1,219 @@
 package com.brokerx.service;
 
 import com.brokerx.entity.Order;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Réservations de fonds en mémoire, rendues durables par {@link ReservationJournal} :
+ * chaque mutation est journalisée sous le verrou de son ordre. Le stockage ({@link ReservationStore})
+ * est en types primitifs : les montants n'existent en BigDecimal qu'aux frontières de ce service.
+ *
+ * Les réservations conditionnelles (« si le disponible suffit ») d'un même wallet sont sérialisées
+ * par un verrou choisi dans un tableau fixe (lock striping) : deux wallets différents ne se
+ * bloquent presque jamais, et aucun verrou n'est alloué par wallet.
+ */
 @Service
 public class FundReservationService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(FundReservationService.class);
-    
-    private final Map<UUID, BigDecimal> reservations = new ConcurrentHashMap<>();
-    private final Map<UUID, BigDecimal> totalReservationsByWallet = new ConcurrentHashMap<>();
-    
+
+    // Puissance de 2 : l'index de verrou est un simple masque
+    private static final int LOCK_STRIPES = 256;
+
+    private final ReservationStore store;
+    private final ReservationJournal journal;
+    private final MarketDataService marketDataService;
+    private final ReentrantLock[] walletLocks = new ReentrantLock[LOCK_STRIPES];
+
+    private final LongAdder conditionalReserves = new LongAdder();
+    private final LongAdder insufficientFunds = new LongAdder();
+
+    public FundReservationService(ReservationJournal journal, MarketDataService marketDataService) {
+        this.journal = journal;
+        this.marketDataService = marketDataService;
+        this.store = new ReservationStore(journal);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            walletLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        journal.recover().forEach((orderId, reservation) ->
+            store.restore(orderId, reservation.walletId(), ReservationStore.toUnits(reservation.amount())));
+    }
+
     public boolean reserveFunds(UUID orderId, UUID walletId, BigDecimal amount) {
-        logger.info("Reserving funds: orderId={}, walletId={}, amount={}", orderId, walletId, amount);
-        
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             return false;
         }
-        
-        if (reservations.containsKey(orderId)) {
+        if (!store.reserve(orderId, walletId, ReservationStore.toUnits(amount))) {
+            return false;
+        }
+        logger.info("Funds reserved: orderId={}, walletId={}, amount={}", orderId, walletId, amount);
+        return true;
+    }
+
+    /**
+     * Réserve {@code amount} seulement si le solde du wallet, diminué de ses réservations en cours,
+     * le couvre. Vérification et réservation sont atomiques pour un même wallet : deux achats
+     * concurrents ne peuvent pas consommer le même disponible.
+     *
+     * Les libérations et consommations ne prennent pas le verrou : elles ne font qu'augmenter
+     * le disponible, ce qui ne peut pas invalider une vérification déjà faite.
+     */
+    public boolean reserveIfAvailable(UUID orderId, UUID walletId, BigDecimal walletBalance, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
             return false;
         }
-        
-        reservations.put(orderId, amount);
-        totalReservationsByWallet.merge(walletId, amount, BigDecimal::add);
-        
-        logger.info("Funds reserved: orderId={}, amount={}", orderId, amount);
+        conditionalReserves.increment();
+        long units = ReservationStore.toUnits(amount);
+        long balanceUnits = balanceUnits(walletBalance);
+        ReentrantLock lock = lockFor(walletId);
+        lock.lock();
+        try {
+            if (balanceUnits - store.walletUnits(walletId) < units) {
+                insufficientFunds.increment();
+                return false;
+            }
+            if (!store.reserve(orderId, walletId, units)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.info("Funds reserved: orderId={}, walletId={}, amount={}", orderId, walletId, amount);
         return true;
     }
-    
+
+    /**
+     * Remplace la réservation d'un ordre par {@code newAmount} si le disponible, en comptant l'ancienne
+     * réservation comme libérée, le permet ; sinon l'ancienne réservation est conservée intacte.
+     */
+    public boolean replaceIfAvailable(UUID orderId, UUID walletId, BigDecimal walletBalance, BigDecimal newAmount) {
+        long units = newAmount.compareTo(BigDecimal.ZERO) > 0 ? ReservationStore.toUnits(newAmount) : 0L;
+        long balanceUnits = balanceUnits(walletBalance);
+        ReentrantLock lock = lockFor(walletId);
+        lock.lock();
+        try {
+            long available = balanceUnits - store.walletUnits(walletId) + store.reservedUnits(orderId);
+            if (available < units) {
+                insufficientFunds.increment();
+                return false;
+            }
+            store.release(orderId);
+            return units == 0L || store.reserve(orderId, walletId, units);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Solde diminué des réservations en cours ; indicatif hors verrou (messages d'erreur, pré-contrôles).
+     */
+    public BigDecimal getAvailable(UUID walletId, BigDecimal walletBalance) {
+        return walletBalance.subtract(getTotalReserved(walletId));
+    }
+
     public void releaseFunds(UUID orderId, UUID walletId) {
-        BigDecimal reservedAmount = reservations.remove(orderId);
-        
-        if (reservedAmount != null) {
-            totalReservationsByWallet.merge(walletId, reservedAmount.negate(), BigDecimal::add);
-            
-            if (totalReservationsByWallet.get(walletId).compareTo(BigDecimal.ZERO) == 0) {
-                totalReservationsByWallet.remove(walletId);
+        long released = store.release(orderId);
+        if (released > 0) {
+            logger.info("Funds released: orderId={}, amount={}", orderId, ReservationStore.fromUnits(released));
+        }
+    }
+
+    /**
+     * Libère les réservations d'un lot d'ordres (annulation groupée, expiration) ; une seule trace
+     * pour tout le lot. Les ordres sans réservation (ventes, déjà libérés) sont ignorés.
+     */
+    public BigDecimal releaseAll(Collection<UUID> orderIds) {
+        long released = 0L;
+        int count = 0;
+        for (UUID orderId : orderIds) {
+            long units = store.release(orderId);
+            if (units > 0) {
+                released += units;
+                count++;
             }
-            
-            logger.info("Funds released: orderId={}, amount={}", orderId, reservedAmount);
         }
+        BigDecimal total = ReservationStore.fromUnits(released);
+        if (count > 0) {
+            logger.info("Funds released for {} orders: amount={}", count, total);
+        }
+        return total;
     }
-    
+
+    /**
+     * Consomme une partie de la réservation d'un ordre lors d'une exécution (fill).
+     * Retourne le montant effectivement consommé, plafonné au montant encore réservé.
+     */
+    public BigDecimal consumeFunds(UUID orderId, BigDecimal amount) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        long consumed = store.consume(orderId, ReservationStore.toUnits(amount));
+        if (consumed == 0L) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal consumedAmount = ReservationStore.fromUnits(consumed);
+        logger.info("Funds consumed by execution: orderId={}, amount={}", orderId, consumedAmount);
+        return consumedAmount;
+    }
+
     public BigDecimal getTotalReserved(UUID walletId) {
-        return totalReservationsByWallet.getOrDefault(walletId, BigDecimal.ZERO);
+        return ReservationStore.fromUnits(store.walletUnits(walletId));
     }
-    
+
     public BigDecimal getReservedAmount(UUID orderId) {
-        return reservations.getOrDefault(orderId, BigDecimal.ZERO);
+        return ReservationStore.fromUnits(store.reservedUnits(orderId));
     }
-    
+
     public BigDecimal calculateReservationAmount(Order order) {
         if (!"BUY".equals(order.getSide())) {
             return BigDecimal.ZERO;
         }
-        
+
         if ("MARKET".equals(order.getOrderType())) {
-            return new BigDecimal(order.getQuantity()).multiply(new BigDecimal("100.00"));
+            return new BigDecimal(order.getQuantity()).multiply(marketDataService.marketBuyReservationPrice(order.getSymbol()));
         } else if ("LIMIT".equals(order.getOrderType())) {
             return new BigDecimal(order.getQuantity()).multiply(order.getPrice());
         }
-        
+
         return BigDecimal.ZERO;
     }
-    
+
+    /**
+     * Compteurs maintenus à chaque mutation : aucune copie de l'état.
+     */
     public Map<String, Object> getReservationStats() {
         return Map.of(
-            "totalActiveReservations", reservations.size(),
-            "walletsWithReservations", totalReservationsByWallet.size(),
-            "totalReservationsByWallet", totalReservationsByWallet
+            "totalActiveReservations", store.activeReservations(),
+            "walletsWithReservations", store.walletsWithReservations(),
+            "totalReserved", ReservationStore.fromUnits(store.totalReservedUnits()),
+            "conditionalReserves", conditionalReserves.sum(),
+            "insufficientFunds", insufficientFunds.sum(),
+            "journal", journal.getStats()
         );
     }
-}
\ No newline at end of file
+
+    // Un solde n'est jamais arrondi à la hausse : le disponible calculé reste prudent
+    private static long balanceUnits(BigDecimal walletBalance) {
+        return walletBalance.setScale(ReservationStore.AMOUNT_SCALE, RoundingMode.DOWN).unscaledValue().longValueExact();
+    }
+
+    private ReentrantLock lockFor(UUID walletId) {
+        int hash = walletId.hashCode();
+        return walletLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+}
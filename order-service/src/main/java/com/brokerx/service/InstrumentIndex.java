@@ -0,0 +1,172 @@
+package com.brokerx.service;
+
+import com.brokerx.matching.MatchingEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Référentiel des instruments en mémoire : tableaux triés immuables, publiés par une référence volatile.
+ * La recherche (dichotomie insensible à la casse) ne prend aucun verrou et n'alloue rien ;
+ * un rechargement construit un nouvel instantané et le remplace d'un bloc.
+ */
+@Component
+public class InstrumentIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentIndex.class);
+
+    private static final Comparator<String> SYMBOL_ORDER = String.CASE_INSENSITIVE_ORDER;
+
+    private static final String SELECT_INSTRUMENTS =
+        "SELECT symbol, tick_size, lot_size, min_quantity, max_quantity, min_price, max_price, " +
+        "max_order_value, trading_status FROM instruments";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLong reloads = new AtomicLong();
+
+    @Value("${order.instruments.refresh-interval:PT30S}")
+    private Duration refreshInterval;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Instrument[0], null);
+    private ScheduledExecutorService refresher;
+
+    public InstrumentIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        reload();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "instrument-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = refreshInterval.toMillis();
+        refresher.scheduleWithFixedDelay(this::refreshIfChanged, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Instrument du symbole (casse indifférente), ou null s'il n'est pas référencé.
+     */
+    public Instrument find(String symbol) {
+        Snapshot current = snapshot;
+        int index = Arrays.binarySearch(current.symbols, symbol, SYMBOL_ORDER);
+        return index >= 0 ? current.instruments[index] : null;
+    }
+
+    /**
+     * Relit toute la table et publie un nouvel instantané.
+     */
+    public synchronized int reload() {
+        // Empreinte lue avant les lignes : une modification concurrente déclenchera un nouveau chargement
+        String fingerprint = fingerprint();
+        List<Instrument> loaded = new ArrayList<>();
+        jdbcTemplate.query(SELECT_INSTRUMENTS, rs -> {
+            Instrument instrument = new Instrument(
+                rs.getString("symbol").toUpperCase(),
+                rs.getBigDecimal("tick_size"),
+                rs.getInt("lot_size"),
+                rs.getInt("min_quantity"),
+                rs.getInt("max_quantity"),
+                rs.getBigDecimal("min_price"),
+                rs.getBigDecimal("max_price"),
+                rs.getBigDecimal("max_order_value"),
+                rs.getString("trading_status")
+            );
+            // Le carnet travaille en centimes : un pas plus fin serait arrondi à l'appariement
+            if (instrument.tickSize().stripTrailingZeros().scale() > MatchingEngine.PRICE_SCALE) {
+                logger.warn("Instrument {} ignored: tick size {} finer than the engine price scale",
+                           instrument.symbol(), instrument.tickSize());
+                return;
+            }
+            loaded.add(instrument);
+        });
+        loaded.sort(Comparator.comparing(Instrument::symbol, SYMBOL_ORDER));
+
+        String[] symbols = new String[loaded.size()];
+        Instrument[] instruments = new Instrument[loaded.size()];
+        for (int i = 0; i < loaded.size(); i++) {
+            symbols[i] = loaded.get(i).symbol();
+            instruments[i] = loaded.get(i);
+        }
+        snapshot = new Snapshot(symbols, instruments, fingerprint);
+        reloads.incrementAndGet();
+        logger.info("Instrument index loaded: {} instruments", instruments.length);
+        return instruments.length;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        return Map.of(
+            "instruments", current.instruments.length,
+            "reloads", reloads.get(),
+            "fingerprint", current.fingerprint != null ? current.fingerprint : "none"
+        );
+    }
+
+    public List<Instrument> getInstruments() {
+        return List.of(snapshot.instruments);
+    }
+
+    private void refreshIfChanged() {
+        try {
+            if (!Objects.equals(fingerprint(), snapshot.fingerprint)) {
+                reload();
+            }
+        } catch (Exception e) {
+            // L'instantané précédent reste en service
+            logger.warn("Instrument refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Empreinte de la table : une modification doit mettre à jour updated_at, une suppression change le compte.
+     */
+    private String fingerprint() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) || ':' || COALESCE(MAX(updated_at)::text, '') FROM instruments", String.class);
+    }
+
+    public record Instrument(
+        String symbol,
+        BigDecimal tickSize,
+        int lotSize,
+        int minQuantity,
+        int maxQuantity,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        BigDecimal maxOrderValue,
+        String tradingStatus
+    ) {
+        public boolean isTradable() {
+            return "ACTIVE".equals(tradingStatus);
+        }
+    }
+
+    private record Snapshot(String[] symbols, Instrument[] instruments, String fingerprint) {}
+}
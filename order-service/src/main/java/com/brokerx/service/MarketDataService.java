@@ -0,0 +1,176 @@
+package com.brokerx.service;
+
+import com.brokerx.matching.BookOrder;
+import com.brokerx.matching.MatchListener;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.matching.OrderBook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Prix de référence par symbole (dernier, meilleur bid, meilleure ask) alimentés par le moteur
+ * d'appariement, ou par un flux simulé local pour les environnements sans liquidité.
+ * Chaque symbole publie un instantané immuable via une référence atomique : lecture sans verrou.
+ */
+@Service
+public class MarketDataService implements MatchListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MarketDataService.class);
+
+    private static final Quote EMPTY = new Quote(OrderBook.NO_PRICE, OrderBook.NO_PRICE, OrderBook.NO_PRICE, 0L);
+
+    private final InstrumentIndex instrumentIndex;
+    private final Map<String, AtomicReference<Quote>> quotes = new ConcurrentHashMap<>();
+
+    @Value("${order.market-data.collar:0.05}")
+    private BigDecimal collar;
+
+    @Value("${order.market-data.fallback-price:100.00}")
+    private BigDecimal fallbackPrice;
+
+    @Value("${order.market-data.simulated-feed.enabled:false}")
+    private boolean simulatedFeedEnabled;
+
+    @Value("${order.market-data.simulated-feed.interval-ms:500}")
+    private long simulatedFeedIntervalMs;
+
+    @Value("${order.market-data.simulated-feed.initial-price:100.00}")
+    private BigDecimal simulatedInitialPrice;
+
+    private volatile boolean running;
+    private Thread simulatedFeed;
+
+    public MarketDataService(InstrumentIndex instrumentIndex) {
+        this.instrumentIndex = instrumentIndex;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!simulatedFeedEnabled) {
+            return;
+        }
+        running = true;
+        simulatedFeed = new Thread(this::simulateLoop, "market-data-simulator");
+        simulatedFeed.setDaemon(true);
+        simulatedFeed.start();
+        logger.info("Simulated market data feed started (interval={} ms)", simulatedFeedIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (simulatedFeed != null) {
+            simulatedFeed.interrupt();
+        }
+    }
+
+    @Override
+    public void onTrade(String symbol, BookOrder aggressor, BookOrder resting, long priceTicks, int quantity) {
+        update(symbol, quote -> new Quote(priceTicks, quote.bidTicks(), quote.askTicks(), System.currentTimeMillis()));
+    }
+
+    @Override
+    public void onCancelled(String symbol, BookOrder order, int cancelledQuantity) {
+    }
+
+    @Override
+    public void onBookUpdated(String symbol, long bestBidTicks, long bestAskTicks) {
+        update(symbol, quote -> quote.bidTicks() == bestBidTicks && quote.askTicks() == bestAskTicks
+            ? quote
+            : new Quote(quote.lastTicks(), bestBidTicks, bestAskTicks, System.currentTimeMillis()));
+    }
+
+    /**
+     * Dernier instantané connu ; jamais null (prix à {@link OrderBook#NO_PRICE} si inconnus).
+     */
+    public Quote getQuote(String symbol) {
+        AtomicReference<Quote> quote = quotes.get(symbol.toUpperCase());
+        return quote != null ? quote.get() : EMPTY;
+    }
+
+    /**
+     * Prix unitaire à réserver pour un achat MARKET : ask, sinon dernier prix, sinon prix de repli,
+     * majoré du collar et borné par le prix maximum de l'instrument. Sert aussi de prix de protection
+     * au carnet, pour que l'exécution ne dépasse jamais la réservation.
+     */
+    public BigDecimal marketBuyReservationPrice(String symbol) {
+        Quote quote = getQuote(symbol);
+        long referenceTicks = quote.askTicks() != OrderBook.NO_PRICE ? quote.askTicks() : quote.lastTicks();
+        BigDecimal reference = referenceTicks != OrderBook.NO_PRICE
+            ? MatchingEngine.fromTicks(referenceTicks)
+            : fallbackPrice;
+
+        BigDecimal price = reference.multiply(BigDecimal.ONE.add(collar))
+                                    .setScale(MatchingEngine.PRICE_SCALE, RoundingMode.UP);
+        InstrumentIndex.Instrument instrument = instrumentIndex.find(symbol);
+        if (instrument != null && price.compareTo(instrument.maxPrice()) > 0) {
+            return instrument.maxPrice();
+        }
+        return price;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        quotes.forEach((symbol, reference) -> {
+            Quote quote = reference.get();
+            stats.put(symbol, Map.of(
+                "last", MatchingEngine.fromTicks(quote.lastTicks()),
+                "bid", MatchingEngine.fromTicks(quote.bidTicks()),
+                "ask", MatchingEngine.fromTicks(quote.askTicks()),
+                "updatedAt", quote.updatedAtMillis()
+            ));
+        });
+        return stats;
+    }
+
+    private void update(String symbol, UnaryOperator<Quote> change) {
+        AtomicReference<Quote> quote = quotes.get(symbol);
+        if (quote == null) {
+            quote = quotes.computeIfAbsent(symbol.toUpperCase(), key -> new AtomicReference<>(EMPTY));
+        }
+        quote.updateAndGet(change);
+    }
+
+    /**
+     * Marche aléatoire d'un pas de cotation par instrument, fourchette d'un pas de part et d'autre.
+     */
+    private void simulateLoop() {
+        Map<String, Long> mids = new HashMap<>();
+        while (running) {
+            for (InstrumentIndex.Instrument instrument : instrumentIndex.getInstruments()) {
+                long tick = MatchingEngine.toTicks(instrument.tickSize());
+                long min = MatchingEngine.toTicks(instrument.minPrice()) + tick;
+                long max = MatchingEngine.toTicks(instrument.maxPrice()) - tick;
+                long mid = mids.getOrDefault(instrument.symbol(), MatchingEngine.toTicks(simulatedInitialPrice));
+                mid = Math.max(min, Math.min(max, mid + tick * ThreadLocalRandom.current().nextInt(-3, 4)));
+                mids.put(instrument.symbol(), mid);
+
+                long last = mid;
+                update(instrument.symbol(), quote -> new Quote(last, last - tick, last + tick, System.currentTimeMillis()));
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(simulatedFeedIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public record Quote(long lastTicks, long bidTicks, long askTicks, long updatedAtMillis) {}
+}
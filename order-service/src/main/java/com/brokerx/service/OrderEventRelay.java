@@ -0,0 +1,182 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.order.OrderEvent;
+import com.brokerx.repository.OrderEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Relais de l'outbox order_events vers les abonnés, hors du chemin de placement des ordres.
+ *
+ * Chaque thread verrouille un lot d'événements en attente (FOR UPDATE SKIP LOCKED, plusieurs relais
+ * et plusieurs instances se partagent la file), le livre à tous les abonnés puis le marque publié dans
+ * la même transaction : livraison au moins une fois. Un événement n'est livré que si aucun événement
+ * plus ancien du même ordre n'est en attente ailleurs ; sinon il reste pour un tour suivant.
+ */
+@Service
+public class OrderEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventRelay.class);
+
+    private final OrderEventRepository orderEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OrderEventSubscriber> subscribers;
+
+    @Value("${order.events.relay-threads:2}")
+    private int relayThreads;
+
+    @Value("${order.events.batch-size:200}")
+    private int batchSize;
+
+    @Value("${order.events.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${order.events.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${order.events.retention:PT24H}")
+    private Duration retention;
+
+    @Value("${order.events.purge-interval:PT10M}")
+    private Duration purgeInterval;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    private volatile boolean running;
+    private final List<Thread> relays = new ArrayList<>();
+    private long nextPurgeNanos;
+
+    public OrderEventRelay(OrderEventRepository orderEventRepository,
+                           TransactionTemplate transactionTemplate,
+                           ObjectProvider<OrderEventSubscriber> subscribers) {
+        this.orderEventRepository = orderEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.subscribers = subscribers.orderedStream().toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        nextPurgeNanos = System.nanoTime() + purgeInterval.toNanos();
+        for (int i = 0; i < relayThreads; i++) {
+            boolean purger = i == 0;
+            Thread relay = new Thread(() -> relayLoop(purger), "order-event-relay-" + i);
+            relay.setDaemon(true);
+            relay.start();
+            relays.add(relay);
+        }
+        logger.info("Order event relay started: {} threads, subscribers {}",
+                    relayThreads, subscribers.stream().map(OrderEventSubscriber::name).toList());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        relays.forEach(Thread::interrupt);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "relayThreads", relayThreads,
+            "subscribers", subscribers.stream().map(OrderEventSubscriber::name).toList(),
+            "delivered", delivered.sum(),
+            "deferred", deferred.sum(),
+            "failedBatches", failedBatches.sum(),
+            "purged", purged.sum()
+        );
+    }
+
+    private void relayLoop(boolean purger) {
+        while (running) {
+            try {
+                int relayed = relayBatch();
+                if (relayed < 0) {
+                    TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+                } else if (relayed == 0) {
+                    if (purger) {
+                        purgeIfDue();
+                    }
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return nombre d'événements livrés, -1 si le lot a échoué (il sera relivré)
+     */
+    private int relayBatch() {
+        try {
+            Integer relayed = transactionTemplate.execute(status -> {
+                List<OrderEvent> pending = orderEventRepository.lockPending(batchSize);
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                Map<UUID, Long> foreign = orderEventRepository.findForeignPending(pending);
+                List<OrderEvent> deliverable = new ArrayList<>(pending.size());
+                for (OrderEvent event : pending) {
+                    Long blockedFrom = foreign.get(event.getOrderId());
+                    if (blockedFrom == null || event.getEventId() < blockedFrom) {
+                        deliverable.add(event);
+                    }
+                }
+                deferred.add(pending.size() - deliverable.size());
+                if (deliverable.isEmpty()) {
+                    return 0;
+                }
+
+                for (OrderEventSubscriber subscriber : subscribers) {
+                    subscriber.deliver(deliverable);
+                }
+                orderEventRepository.markPublished(deliverable.stream().map(OrderEvent::getEventId).toList());
+                return deliverable.size();
+            });
+            int count = relayed != null ? relayed : 0;
+            delivered.add(count);
+            return count;
+        } catch (Exception e) {
+            failedBatches.increment();
+            logger.warn("Order event relay batch failed, will be redelivered: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private void purgeIfDue() {
+        long now = System.nanoTime();
+        if (now - nextPurgeNanos < 0) {
+            return;
+        }
+        nextPurgeNanos = now + purgeInterval.toNanos();
+        try {
+            int count = orderEventRepository.purgePublishedBefore(LocalDateTime.now().minus(retention));
+            purged.add(count);
+            if (count > 0) {
+                logger.info("Order events purged: {} published more than {} ago", count, retention);
+            }
+        } catch (Exception e) {
+            logger.warn("Order event purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.order.OrderEvent;
+
+import java.util.List;
+
+/**
+ * Consommateur des événements d'ordres relayés depuis l'outbox (audit, notifications, risque...).
+ * Les événements d'un même ordre arrivent dans l'ordre ; un lot peut être relivré si une livraison échoue.
+ */
+public interface OrderEventSubscriber {
+
+    String name();
+
+    /**
+     * Lève une exception pour refuser le lot : il reste en attente et sera relivré à tous les abonnés.
+     */
+    void deliver(List<OrderEvent> events);
+}
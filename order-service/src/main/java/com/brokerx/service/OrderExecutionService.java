@@ -0,0 +1,406 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.order.OrderResponse;
+import com.brokerx.entity.Order;
+import com.brokerx.matching.BookOrder;
+import com.brokerx.matching.MatchListener;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.matching.OrderBook;
+import com.brokerx.repository.ExecutionDeadLetterRepository;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applique les exécutions produites par le moteur d'appariement : quantités exécutées,
+ * statut des ordres et consommation des réservations de fonds.
+ * Les threads d'appariement se contentent d'enfiler ; un unique thread écrivain persiste par lots.
+ * Les annulations demandées hors du carnet passent par la même file : elles sont appliquées après
+ * les exécutions appariées avant le retrait de l'ordre.
+ */
+@Service
+public class OrderExecutionService implements MatchListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExecutionService.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_BASE_MS = 50;
+    private static final long BACKOFF_MAX_MS = 5000;
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("FILLED", "CANCELLED", "REJECTED");
+
+    private final OrderRepository orderRepository;
+    private final FundReservationService fundReservationService;
+    private final TransactionTemplate transactionTemplate;
+    private final UserEventBus userEventBus;
+    private final OrderEventRepository orderEventRepository;
+    private final ExecutionDeadLetterRepository deadLetterRepository;
+    private final Counter deadLettered;
+    private final BlockingQueue<Execution> executions = new LinkedBlockingQueue<>();
+
+    private final AtomicLong appliedExecutions = new AtomicLong();
+    private final AtomicLong deadLetteredExecutions = new AtomicLong();
+    private final AtomicLong skippedExecutions = new AtomicLong();
+
+    @Value("${order.matching.execution-batch-size:256}")
+    private int batchSize;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public OrderExecutionService(OrderRepository orderRepository,
+                                 FundReservationService fundReservationService,
+                                 TransactionTemplate transactionTemplate,
+                                 UserEventBus userEventBus,
+                                 OrderEventRepository orderEventRepository,
+                                 ExecutionDeadLetterRepository deadLetterRepository,
+                                 MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.fundReservationService = fundReservationService;
+        this.transactionTemplate = transactionTemplate;
+        this.userEventBus = userEventBus;
+        this.orderEventRepository = orderEventRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        // À surveiller : toute valeur non nulle signifie un carnet désynchronisé de la base
+        this.deadLettered = meterRegistry.counter("order.executions.dead_lettered");
+    }
+
+    @Override
+    public void onTrade(String symbol, BookOrder aggressor, BookOrder resting, long priceTicks, int quantity) {
+        // Les BookOrder sont réutilisés par le carnet : on ne garde que des copies immuables
+        executions.offer(new Execution(aggressor.getOrderId(), quantity, priceTicks, false));
+        executions.offer(new Execution(resting.getOrderId(), quantity, priceTicks, false));
+    }
+
+    @Override
+    public void onCancelled(String symbol, BookOrder order, int cancelledQuantity) {
+        executions.offer(new Execution(order.getOrderId(), cancelledQuantity, OrderBook.NO_PRICE, true));
+    }
+
+    /**
+     * Termine l'annulation d'un ordre déjà retiré du carnet, derrière ses exécutions encore en file :
+     * leurs quantités et leurs fonds sont appliqués d'abord, puis le reste est annulé et libéré.
+     *
+     * @return état final de l'ordre une fois commité (null si inconnu) ; en échec si l'annulation est mise de côté
+     */
+    public CompletableFuture<Order> cancel(UUID orderId) {
+        CompletableFuture<Order> done = new CompletableFuture<>();
+        executions.offer(new Execution(orderId, 0, OrderBook.NO_PRICE, true, done));
+        return done;
+    }
+
+    /**
+     * Attend que les exécutions en file au moment de l'appel soient appliquées (ou mises de côté).
+     * Appelée après un retrait du carnet, elle garantit que la base reflète tout ce qui a été apparié avant.
+     *
+     * @return false si le délai est écoulé
+     */
+    public boolean awaitPending(long timeoutMs) throws InterruptedException {
+        CompletableFuture<Order> done = new CompletableFuture<>();
+        executions.offer(new Execution(null, 0, OrderBook.NO_PRICE, false, done));
+        try {
+            done.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            // Jamais levée : un point d'attente n'est pas appliqué, seulement complété
+            return true;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "order-execution-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        if (!executions.isEmpty()) {
+            logger.warn("Order execution writer stopped with {} pending executions", executions.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "pendingExecutions", executions.size(),
+            "appliedExecutions", appliedExecutions.get(),
+            "deadLetteredExecutions", deadLetteredExecutions.get(),
+            "skippedExecutions", skippedExecutions.get()
+        );
+    }
+
+    private void drainLoop() {
+        List<Execution> batch = new ArrayList<>(batchSize);
+        while (running || !executions.isEmpty()) {
+            try {
+                Execution first = executions.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                executions.drainTo(batch, batchSize - 1);
+                applyWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Le carnet a déjà apparié ces exécutions : aucune n'est abandonnée. Un lot qui échoue après
+     * MAX_ATTEMPTS tentatives est rejoué exécution par exécution ; celle qui échoue encore est mise
+     * de côté dans order_execution_dead_letters (alerte), écriture réessayée jusqu'à ce qu'elle passe.
+     */
+    private void applyWithRetry(List<Execution> batch) throws InterruptedException {
+        if (tryApply(batch)) {
+            return;
+        }
+        if (batch.size() > 1) {
+            logger.warn("Applying {} executions one by one to isolate the failure", batch.size());
+            for (Execution execution : batch) {
+                if (!tryApply(List.of(execution))) {
+                    park(execution);
+                }
+            }
+            return;
+        }
+        park(batch.get(0));
+    }
+
+    private boolean tryApply(List<Execution> batch) throws InterruptedException {
+        AppliedBatch applied = null;
+        for (int attempt = 1; applied == null; attempt++) {
+            try {
+                applied = transactionTemplate.execute(status -> apply(batch));
+            } catch (Exception e) {
+                if (e instanceof ObjectOptimisticLockingFailureException) {
+                    logger.warn("Concurrent order update while applying executions (attempt {}/{})", attempt, MAX_ATTEMPTS);
+                } else {
+                    logger.error("Failed to apply {} executions (attempt {}/{}): {}",
+                                 batch.size(), attempt, MAX_ATTEMPTS, e.getMessage(), e);
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    return false;
+                }
+                backoff(attempt);
+            }
+        }
+        // Ordres commités : les réservations et les abonnés suivent, sans rejouer la transaction
+        for (FundAction action : applied.fundActions()) {
+            try {
+                applyFundAction(action);
+            } catch (Exception e) {
+                logger.error("Reservation update failed after commit for order {}: {}", action.orderId(), e.getMessage(), e);
+            }
+        }
+        try {
+            publish(applied);
+        } catch (Exception e) {
+            logger.warn("Failed to publish {} applied executions: {}", batch.size(), e.getMessage());
+        }
+        appliedExecutions.addAndGet(batch.size());
+        skippedExecutions.addAndGet(applied.skipped());
+        // Fonds déjà libérés : l'appelant peut répondre sur l'état final
+        Map<UUID, Order> byId = new HashMap<>();
+        applied.orders().forEach(order -> byId.put(order.getOrderId(), order));
+        for (Execution execution : batch) {
+            if (execution.done() != null) {
+                execution.done().complete(execution.orderId() != null ? byId.get(execution.orderId()) : null);
+            }
+        }
+        return true;
+    }
+
+    private void park(Execution execution) throws InterruptedException {
+        if (execution.orderId() == null) {
+            // Point d'attente : tout ce qui le précède est appliqué ou mis de côté
+            execution.done().complete(null);
+            return;
+        }
+        String error = "Not applied after " + MAX_ATTEMPTS + " attempts";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                deadLetterRepository.park(execution.orderId(), execution.quantity(), execution.priceTicks(),
+                                          execution.cancelled(), error);
+                break;
+            } catch (Exception e) {
+                logger.error("Cannot park execution {} (attempt {}), retrying: {}", execution, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+        deadLetteredExecutions.incrementAndGet();
+        deadLettered.increment();
+        logger.error("ALERT execution parked in order_execution_dead_letters, book and orders diverge until replayed: {}",
+                     execution);
+        if (execution.done() != null) {
+            execution.done().completeExceptionally(new IllegalStateException(error));
+        }
+    }
+
+    private static void backoff(int attempt) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(attempt - 1, 10)));
+    }
+
+    private AppliedBatch apply(List<Execution> batch) {
+        Map<UUID, Order> orders = new HashMap<>();
+        List<FundAction> fundActions = new ArrayList<>();
+        List<Map<String, Object>> fills = new ArrayList<>();
+        // Un événement d'outbox par ordre modifié, portant son état final dans le lot
+        Map<UUID, Order> filledOrders = new LinkedHashMap<>();
+        Map<UUID, Order> cancelledOrders = new LinkedHashMap<>();
+        int skipped = 0;
+
+        for (Execution execution : batch) {
+            if (execution.orderId() == null) {
+                continue;
+            }
+            Order order = orders.computeIfAbsent(execution.orderId(),
+                id -> orderRepository.findById(id).orElse(null));
+            if (order == null) {
+                logger.warn("Execution received for unknown order {}", execution.orderId());
+                continue;
+            }
+            if (TERMINAL_STATUSES.contains(order.getStatus())) {
+                // Ordre déjà terminé (annulé, expiré) : ni quantité ni fonds ne doivent plus bouger
+                skipped++;
+                logger.warn("Execution ignored for order {} already {}: quantity={}, cancelled={}",
+                            order.getOrderId(), order.getStatus(), execution.quantity(), execution.cancelled());
+                continue;
+            }
+            boolean buy = "BUY".equals(order.getSide());
+
+            if (execution.cancelled()) {
+                order.setStatus("CANCELLED");
+                cancelledOrders.put(order.getOrderId(), order);
+                if (buy) {
+                    fundActions.add(new FundAction(order.getOrderId(), 0, 0, true));
+                }
+                continue;
+            }
+
+            int remainingBefore = order.getRemainingQuantity();
+            int fill = Math.min(execution.quantity(), remainingBefore);
+            if (fill <= 0) {
+                continue;
+            }
+            order.setFilledQuantity(order.getFilledQuantity() + fill);
+            boolean complete = order.getRemainingQuantity() == 0;
+            if (complete) {
+                order.setStatus("FILLED");
+            }
+            fills.add(fillEvent(order, fill, execution.priceTicks()));
+            filledOrders.put(order.getOrderId(), order);
+            if (buy) {
+                fundActions.add(new FundAction(order.getOrderId(), fill, remainingBefore, complete));
+            }
+        }
+
+        // Flush avant l'outbox : le verrou de ligne ordonne les événements d'un même ordre
+        orderRepository.saveAllAndFlush(orders.values());
+        filledOrders.keySet().removeAll(cancelledOrders.keySet());
+        orderEventRepository.recordAll(new ArrayList<>(filledOrders.values()), "FILL");
+        orderEventRepository.recordAll(new ArrayList<>(cancelledOrders.values()), "CANCEL");
+        return new AppliedBatch(fundActions, new ArrayList<>(orders.values()), fills, skipped);
+    }
+
+    /**
+     * Exécutions et nouvel état des ordres poussés aux comptes concernés, après commit.
+     */
+    private void publish(AppliedBatch applied) {
+        for (Map<String, Object> fill : applied.fills()) {
+            userEventBus.publish((UUID) fill.get("accountId"), "fill",
+                                 "fill:" + fill.get("orderId") + ":" + fill.get("filledQuantity"), fill);
+        }
+        for (Order order : applied.orders()) {
+            userEventBus.publish(order.getAccountId(), "order", "order:" + order.getOrderId(),
+                                 new OrderResponse(order, "Order updated"));
+        }
+    }
+
+    private static Map<String, Object> fillEvent(Order order, int quantity, long priceTicks) {
+        Map<String, Object> fill = new HashMap<>();
+        fill.put("orderId", order.getOrderId());
+        fill.put("accountId", order.getAccountId());
+        fill.put("clientOrderId", order.getClientOrderId());
+        fill.put("symbol", order.getSymbol());
+        fill.put("side", order.getSide());
+        fill.put("quantity", quantity);
+        fill.put("price", MatchingEngine.fromTicks(priceTicks));
+        fill.put("filledQuantity", order.getFilledQuantity());
+        fill.put("remainingQuantity", order.getRemainingQuantity());
+        fill.put("status", order.getStatus());
+        return fill;
+    }
+
+    private void applyFundAction(FundAction action) {
+        if (action.complete()) {
+            // Ordre terminé : le reliquat (amélioration de prix, reste annulé) est libéré
+            fundReservationService.consumeFunds(action.orderId(), consumedShare(action));
+            fundReservationService.releaseFunds(action.orderId(), null);
+            return;
+        }
+        fundReservationService.consumeFunds(action.orderId(), consumedShare(action));
+    }
+
+    private BigDecimal consumedShare(FundAction action) {
+        if (action.fill() == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal reserved = fundReservationService.getReservedAmount(action.orderId());
+        return reserved.multiply(BigDecimal.valueOf(action.fill()))
+                       .divide(BigDecimal.valueOf(action.remainingBefore()), 4, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param done complété après application pour une annulation demandée ou un point d'attente (orderId null)
+     */
+    private record Execution(UUID orderId, int quantity, long priceTicks, boolean cancelled,
+                             CompletableFuture<Order> done) {
+
+        Execution(UUID orderId, int quantity, long priceTicks, boolean cancelled) {
+            this(orderId, quantity, priceTicks, cancelled, null);
+        }
+    }
+
+    private record AppliedBatch(List<FundAction> fundActions, List<Order> orders, List<Map<String, Object>> fills,
+                                int skipped) {}
+
+    private record FundAction(UUID orderId, int fill, int remainingBefore, boolean complete) {}
+}
@@ -1,21 +1,42 @@
 package com.brokerx.service;
 
+import com.brokerx.config.HttpCallDeadline;
 import com.brokerx.dto.audit.CreateAuditLogRequest;
+import com.brokerx.dto.order.BatchOrderResponse;
+import com.brokerx.dto.order.CancelAllOrdersRequest;
+import com.brokerx.dto.order.CancelAllOrdersResponse;
 import com.brokerx.dto.order.OrderModificationResponse;
+import com.brokerx.dto.order.OrderPageResponse;
 import com.brokerx.dto.order.OrderRequest;
 import com.brokerx.dto.order.OrderResponse;
 import com.brokerx.entity.Order;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.repository.OrderQueryRepository;
 import com.brokerx.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
@@ -27,20 +48,66 @@ public class OrderService {
     private final FundReservationService fundReservationService;
     private final AuditService auditService;
     private final RestTemplate restTemplate;
+    private final AccountContextCache accountContextCache;
+    private final MatchingEngine matchingEngine;
+    private final RemoteFanOut remoteFanOut;
+    private final OrderQueryRepository orderQueryRepository;
+    private final ClientOrderIdIndex clientOrderIdIndex;
+    private final MarketDataService marketDataService;
+    private final UserEventBus userEventBus;
+    private final TimeInForceScheduler timeInForceScheduler;
+    private final AccountProjection accountProjection;
+    private final OrderEventRepository orderEventRepository;
+    private final OrderExecutionService orderExecutionService;
     
     private static final String ACCOUNT_SERVICE_URL = "http://account-service:8081";
     private static final String WALLET_SERVICE_URL = "http://wallet-service:8082";
+    private static final String DUPLICATE_CLIENT_ORDER_ID = "Order with this Client Order ID already exists";
+
+    @Value("${order.batch.max-size:500}")
+    private int maxBatchSize;
+
+    @Value("${order.remote.deadline-ms:3000}")
+    private long remoteDeadlineMs;
+
+    @Value("${order.query.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${order.matching.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
 
     public OrderService(OrderRepository orderRepository, 
                        OrderValidationService validationService,
                        FundReservationService fundReservationService,
                        AuditService auditService,
-                       RestTemplate restTemplate) {
+                       RestTemplate restTemplate,
+                       AccountContextCache accountContextCache,
+                       MatchingEngine matchingEngine,
+                       RemoteFanOut remoteFanOut,
+                       OrderQueryRepository orderQueryRepository,
+                       ClientOrderIdIndex clientOrderIdIndex,
+                       MarketDataService marketDataService,
+                       UserEventBus userEventBus,
+                       TimeInForceScheduler timeInForceScheduler,
+                       AccountProjection accountProjection,
+                       OrderEventRepository orderEventRepository,
+                       OrderExecutionService orderExecutionService) {
         this.orderRepository = orderRepository;
         this.validationService = validationService;
         this.fundReservationService = fundReservationService;
         this.auditService = auditService;
         this.restTemplate = restTemplate;
+        this.accountContextCache = accountContextCache;
+        this.matchingEngine = matchingEngine;
+        this.remoteFanOut = remoteFanOut;
+        this.orderQueryRepository = orderQueryRepository;
+        this.clientOrderIdIndex = clientOrderIdIndex;
+        this.marketDataService = marketDataService;
+        this.userEventBus = userEventBus;
+        this.timeInForceScheduler = timeInForceScheduler;
+        this.accountProjection = accountProjection;
+        this.orderEventRepository = orderEventRepository;
+        this.orderExecutionService = orderExecutionService;
     }
     
     @Transactional
@@ -58,9 +125,8 @@ public class OrderService {
                 return new OrderResponse("Account is not active", false);
             }
 
-            if (orderRepository.findByAccountIdAndClientOrderId(
-                    info.accountId, request.getClientOrderId()).isPresent()) {
-                return new OrderResponse("Order with this Client Order ID already exists", false);
+            if (clientOrderIdExists(info.accountId, request.getClientOrderId())) {
+                return new OrderResponse(DUPLICATE_CLIENT_ORDER_ID, false);
             }
 
             var basicValidation = validationService.validateBasicFields(request);
@@ -70,33 +136,56 @@ public class OrderService {
 
             BigDecimal reservationAmount = calculateReservationAmount(request);
 
+            // Pré-contrôle sans verrou (réservations en cours déduites) ; l'arbitrage se fait à la réservation
             if ("BUY".equals(request.getSide())) {
-                if (info.walletBalance.compareTo(reservationAmount) < 0) {
+                BigDecimal available = fundReservationService.getAvailable(info.walletId, info.walletBalance);
+                if (available.compareTo(reservationAmount) < 0) {
                     return new OrderResponse(
                         String.format("Insufficient funds. Required: %s, Available: %s", 
-                                     reservationAmount, info.walletBalance), 
+                                     reservationAmount, available), 
                         false
                     );
                 }
             }
 
             Order order = createOrderFromRequest(request, info.accountId);
-            Order savedOrder = orderRepository.save(order);
+            Order savedOrder;
+            try {
+                // Flush immédiat : une violation de la contrainte unique doit remonter ici
+                savedOrder = orderRepository.saveAndFlush(order);
+            } catch (DataIntegrityViolationException e) {
+                if (!isDuplicateClientOrderId(e)) {
+                    throw e;
+                }
+                clientOrderIdIndex.invalidate(info.accountId);
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return new OrderResponse(DUPLICATE_CLIENT_ORDER_ID, false);
+            }
+            clientOrderIdIndex.recordAfterCommit(info.accountId, savedOrder.getClientOrderId());
 
             if ("BUY".equals(savedOrder.getSide()) && 
                 reservationAmount.compareTo(BigDecimal.ZERO) > 0) {
                 
-                boolean reserved = fundReservationService.reserveFunds(
+                boolean reserved = fundReservationService.reserveIfAvailable(
                     savedOrder.getOrderId(), 
                     info.walletId, 
+                    info.walletBalance,
                     reservationAmount
                 );
                 
                 if (!reserved) {
-                    throw new RuntimeException("Failed to reserve funds");
+                    // Un achat concurrent a pris le disponible entre le pré-contrôle et la réservation
+                    TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                    return new OrderResponse(
+                        String.format("Insufficient funds. Required: %s, Available: %s",
+                                     reservationAmount, fundReservationService.getAvailable(info.walletId, info.walletBalance)),
+                        false
+                    );
                 }
             }
 
+            orderEventRepository.record(savedOrder, "CREATE");
+
             // ✅ AUDIT : Log création ordre
             auditService.logAction(
                 "ORDER",
@@ -115,6 +204,9 @@ public class OrderService {
                 )
             );
 
+            submitToBookAfterCommit(savedOrder, info.walletId, reservationAmount);
+            publishOrderAfterCommit(savedOrder, "Order placed");
+
             logger.info("Order placed successfully: orderId={}, clientOrderId={}", 
                        savedOrder.getOrderId(), savedOrder.getClientOrderId());
 
@@ -126,7 +218,162 @@ public class OrderService {
         }
     }
     
+    /**
+     * Place un lot d'ordres : contexte compte résolu une seule fois, validation complète en amont,
+     * insertion en lot (JDBC batch) dans une seule transaction et un seul enregistrement d'audit.
+     */
     @Transactional
+    public BatchOrderResponse placeOrderBatch(List<OrderRequest> requests) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        logger.info("Placing batch of {} orders for user: {}", requests.size(), email);
+
+        if (requests.isEmpty()) {
+            return new BatchOrderResponse("Batch contains no orders", false);
+        }
+        if (requests.size() > maxBatchSize) {
+            return new BatchOrderResponse("Batch size exceeds maximum: " + maxBatchSize, false);
+        }
+
+        AccountWalletInfo info = getAccountWalletInfo(email);
+        if (info == null) {
+            return new BatchOrderResponse("Failed to retrieve account information", false);
+        }
+        if (!"ACTIVE".equals(info.accountStatus)) {
+            return new BatchOrderResponse("Account is not active", false);
+        }
+
+        // Seuls les identifiants que l'index ne sait pas trancher sont vérifiés en base
+        Set<String> existingIds = new HashSet<>();
+        Set<String> uncertainIds = new HashSet<>();
+        for (OrderRequest request : requests) {
+            String clientOrderId = request.getClientOrderId();
+            if (clientOrderId == null) {
+                continue;
+            }
+            switch (clientOrderIdIndex.check(info.accountId, clientOrderId)) {
+                case PRESENT -> existingIds.add(clientOrderId);
+                case UNKNOWN -> uncertainIds.add(clientOrderId);
+                case ABSENT -> { }
+            }
+        }
+        if (!uncertainIds.isEmpty()) {
+            existingIds.addAll(orderRepository.findExistingClientOrderIds(info.accountId, uncertainIds));
+        }
+
+        OrderResponse[] results = new OrderResponse[requests.size()];
+        List<Order> ordersToSave = new ArrayList<>();
+        List<BigDecimal> reservationAmounts = new ArrayList<>();
+        List<Integer> resultIndexes = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        BigDecimal availableBalance = fundReservationService.getAvailable(info.walletId, info.walletBalance);
+
+        for (int i = 0; i < requests.size(); i++) {
+            OrderRequest request = requests.get(i);
+            String clientOrderId = request.getClientOrderId();
+
+            if (clientOrderId == null || clientOrderId.trim().isEmpty()) {
+                results[i] = new OrderResponse(clientOrderId, "Client Order ID is required", false);
+                continue;
+            }
+            if (existingIds.contains(clientOrderId) || !seenIds.add(clientOrderId)) {
+                results[i] = new OrderResponse(clientOrderId, DUPLICATE_CLIENT_ORDER_ID, false);
+                continue;
+            }
+
+            var validation = validationService.validateBasicFields(request);
+            if (!validation.isValid()) {
+                results[i] = new OrderResponse(clientOrderId, validation.getMessage(), false);
+                continue;
+            }
+
+            BigDecimal reservationAmount = calculateReservationAmount(request);
+            if ("BUY".equals(request.getSide()) && availableBalance.compareTo(reservationAmount) < 0) {
+                results[i] = new OrderResponse(clientOrderId,
+                    String.format("Insufficient funds. Required: %s, Available: %s", reservationAmount, availableBalance),
+                    false);
+                continue;
+            }
+            availableBalance = availableBalance.subtract(reservationAmount);
+
+            ordersToSave.add(createOrderFromRequest(request, info.accountId));
+            reservationAmounts.add(reservationAmount);
+            resultIndexes.add(i);
+        }
+
+        if (ordersToSave.isEmpty()) {
+            return new BatchOrderResponse(Arrays.asList(results));
+        }
+
+        List<Order> savedOrders = new ArrayList<>(ordersToSave.size());
+        try {
+            savedOrders.addAll(orderRepository.saveAll(ordersToSave));
+            orderRepository.flush();
+
+            for (int i = 0; i < savedOrders.size(); i++) {
+                Order savedOrder = savedOrders.get(i);
+                BigDecimal reservationAmount = reservationAmounts.get(i);
+
+                if ("BUY".equals(savedOrder.getSide()) && reservationAmount.compareTo(BigDecimal.ZERO) > 0
+                        && !fundReservationService.reserveIfAvailable(savedOrder.getOrderId(), info.walletId,
+                                                                      info.walletBalance, reservationAmount)) {
+                    throw new IllegalStateException("Failed to reserve funds for order " + savedOrder.getClientOrderId());
+                }
+                results[resultIndexes.get(i)] = new OrderResponse(savedOrder, "Order placed successfully");
+            }
+            orderEventRepository.recordAll(savedOrders, "CREATE");
+        } catch (Exception e) {
+            logger.error("Error placing order batch: {}", e.getMessage(), e);
+            for (Order savedOrder : savedOrders) {
+                if (savedOrder.getOrderId() != null) {
+                    fundReservationService.releaseFunds(savedOrder.getOrderId(), info.walletId);
+                }
+            }
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            if (e instanceof DataIntegrityViolationException violation && isDuplicateClientOrderId(violation)) {
+                clientOrderIdIndex.invalidate(info.accountId);
+                return new BatchOrderResponse(DUPLICATE_CLIENT_ORDER_ID, false);
+            }
+            return new BatchOrderResponse("Internal error while placing order batch: " + e.getMessage(), false);
+        }
+
+        for (int i = 0; i < savedOrders.size(); i++) {
+            Order savedOrder = savedOrders.get(i);
+            clientOrderIdIndex.recordAfterCommit(info.accountId, savedOrder.getClientOrderId());
+            submitToBookAfterCommit(savedOrder, info.walletId, reservationAmounts.get(i));
+            publishOrderAfterCommit(savedOrder, "Order placed");
+        }
+
+        List<String> orderIds = savedOrders.stream()
+            .map(order -> order.getOrderId().toString())
+            .toList();
+
+        // ✅ AUDIT : un seul enregistrement pour tout le lot
+        auditService.logAction(
+            "ORDER_BATCH",
+            UUID.randomUUID(),
+            "CREATE",
+            info.userId,
+            "internal-order-service",
+            Map.of(
+                "accountId", info.accountId.toString(),
+                "submitted", requests.size(),
+                "accepted", savedOrders.size(),
+                "orderIds", orderIds
+            )
+        );
+
+        logger.info("Order batch placed: accountId={}, submitted={}, accepted={}",
+                   info.accountId, requests.size(), savedOrders.size());
+
+        return new BatchOrderResponse(Arrays.asList(results));
+    }
+
+    /**
+     * Retire l'ordre du carnet, puis laisse le thread écrivain des exécutions terminer l'annulation :
+     * une exécution appariée avant le retrait et pas encore appliquée est comptée d'abord (quantité
+     * et fonds), puis le reste est annulé et libéré. Aucune écriture ici : pas de conflit de version
+     * possible avec l'écrivain, qui retente lui-même ses lots.
+     */
     public OrderModificationResponse cancelOrder(UUID orderId) {
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         if (orderOpt.isEmpty()) {
@@ -142,36 +389,49 @@ public class OrderService {
         }
 
         String oldStatus = order.getStatus();
-        UUID userId = null;
 
-        // Libérer les fonds réservés
-        if ("BUY".equals(order.getSide())) {
-            try {
-                String accountUrl = ACCOUNT_SERVICE_URL + "/accounts/" + order.getAccountId();
-                Map<String, Object> accountResponse = restTemplate.getForObject(accountUrl, Map.class);
-                if (accountResponse != null) {
-                    Object userIdObj = accountResponse.get("userId");
-                    if (userIdObj != null) {
-                        userId = UUID.fromString(userIdObj.toString());
-                    }
-                    
-                    String walletUrl = WALLET_SERVICE_URL + "/wallets/account/" + order.getAccountId();
-                    Map<String, Object> walletResponse = restTemplate.getForObject(walletUrl, Map.class);
-                    if (walletResponse != null) {
-                        Object walletIdObj = walletResponse.get("walletId");
-                        if (walletIdObj != null) {
-                            UUID walletId = UUID.fromString(walletIdObj.toString());
-                            fundReservationService.releaseFunds(order.getOrderId(), walletId);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                logger.error("Error releasing funds during cancellation: {}", e.getMessage());
+        // Retirer l'ordre du carnet avant de toucher aux fonds : plus aucune exécution possible.
+        // Absent du carnet, il vient d'être exécuté : ses exécutions sont en cours d'application
+        try {
+            if (matchingEngine.cancel(order.getSymbol(), order.getOrderId()) == 0) {
+                return new OrderModificationResponse(false, "Order is being executed and can no longer be cancelled");
             }
+        } catch (IllegalStateException e) {
+            logger.error("Error removing order from book: {}", e.getMessage());
+            return new OrderModificationResponse(false, "Matching engine unavailable, please retry");
+        }
+
+        Order cancelledOrder;
+        try {
+            cancelledOrder = orderExecutionService.cancel(order.getOrderId()).get(commandTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Hors du carnet, l'annulation reste en file : l'écrivain la terminera
+            logger.warn("Cancellation of order {} queued behind pending executions", orderId);
+            return new OrderModificationResponse(true, "Order removed from book, cancellation pending",
+                                                 orderId, "CANCEL_PENDING");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new OrderModificationResponse(true, "Order removed from book, cancellation pending",
+                                                 orderId, "CANCEL_PENDING");
+        } catch (ExecutionException e) {
+            logger.error("Cancellation of order {} could not be recorded: {}", orderId, e.getCause().getMessage());
+            return new OrderModificationResponse(false, "Order removed from book but cancellation could not be recorded");
+        }
+        if (cancelledOrder == null || !"CANCELLED".equals(cancelledOrder.getStatus())) {
+            return new OrderModificationResponse(
+                false,
+                "Order cannot be cancelled in its current state: "
+                    + (cancelledOrder != null ? cancelledOrder.getStatus() : "UNKNOWN")
+            );
+        }
+
+        UUID userId = null;
+        try {
+            userId = HttpCallDeadline.within(Duration.ofMillis(remoteDeadlineMs),
+                () -> userIdOf(fetchAccount(cancelledOrder.getAccountId())));
+        } catch (Exception e) {
+            logger.warn("Could not fetch userId for audit: {}", e.getMessage());
         }
-        
-        order.setStatus("CANCELLED");
-        Order cancelledOrder = orderRepository.save(order);
         
         // ✅ AUDIT : Log annulation ordre
         auditService.logAction(
@@ -183,7 +443,8 @@ public class OrderService {
             Map.of(
                 "clientOrderId", cancelledOrder.getClientOrderId(),
                 "oldStatus", oldStatus,
-                "newStatus", "CANCELLED"
+                "newStatus", "CANCELLED",
+                "filledQuantity", cancelledOrder.getFilledQuantity()
             )
         );
         
@@ -195,6 +456,89 @@ public class OrderService {
         );
     }
 
+    /**
+     * Annule d'un coup les ordres actifs du compte connecté, filtrés par symbole et/ou côté.
+     * Contexte résolu une fois, ordres retirés des carnets par symbole, puis un seul UPDATE ensembliste :
+     * pas de transaction JPA ni d'appel distant par ordre. Un ordre exécuté entre-temps reste exécuté ;
+     * les exécutions appariées avant le retrait sont appliquées avant l'UPDATE.
+     */
+    public CancelAllOrdersResponse cancelAllOrders(CancelAllOrdersRequest request) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        String symbol = normalizeFilter(request != null ? request.getSymbol() : null);
+        String side = normalizeFilter(request != null ? request.getSide() : null);
+        if (side != null && !"BUY".equals(side) && !"SELL".equals(side)) {
+            return new CancelAllOrdersResponse("Side must be BUY or SELL", false);
+        }
+
+        AccountContextCache.AccountContext context = getAccountContext(email);
+        if (context == null) {
+            return new CancelAllOrdersResponse("Failed to retrieve account information", false);
+        }
+
+        List<OrderQueryRepository.ActiveOrder> active = orderQueryRepository.findActive(context.accountId(), symbol, side);
+        if (active.isEmpty()) {
+            return new CancelAllOrdersResponse(List.of());
+        }
+
+        // Carnets d'abord : plus aucune exécution possible pour ces ordres
+        Map<String, List<UUID>> bySymbol = new HashMap<>();
+        for (OrderQueryRepository.ActiveOrder order : active) {
+            bySymbol.computeIfAbsent(order.symbol(), key -> new ArrayList<>()).add(order.orderId());
+        }
+        // Seuls les ordres retirés du carnet sont annulés : les autres viennent d'être exécutés
+        List<UUID> orderIds = new ArrayList<>(active.size());
+        try {
+            for (Map.Entry<String, List<UUID>> symbolOrders : bySymbol.entrySet()) {
+                orderIds.addAll(matchingEngine.removeAll(symbolOrders.getKey(), symbolOrders.getValue()));
+            }
+        } catch (IllegalStateException e) {
+            logger.error("Error removing orders from book: {}", e.getMessage());
+            // Ceux déjà retirés ne doivent pas rester actifs hors du carnet
+            if (orderIds.isEmpty()) {
+                return new CancelAllOrdersResponse("Matching engine unavailable, please retry", false);
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return new CancelAllOrdersResponse(List.of());
+        }
+
+        // Quantités et fonds des exécutions encore en file à jour avant l'annulation ensembliste
+        if (!awaitPendingExecutions()) {
+            // Hors du carnet, ces ordres ne doivent pas rester actifs : l'écrivain termine chaque annulation
+            logger.warn("Bulk cancel of {} orders handed over to the execution writer", orderIds.size());
+            orderIds.forEach(orderExecutionService::cancel);
+            return new CancelAllOrdersResponse(orderIds);
+        }
+
+        List<OrderResponse> cancelled = orderQueryRepository.cancelActive(orderIds, "Order cancelled", "CANCEL");
+        List<UUID> cancelledIds = cancelled.stream().map(OrderResponse::getOrderId).toList();
+        BigDecimal released = fundReservationService.releaseAll(cancelledIds);
+        for (OrderResponse order : cancelled) {
+            userEventBus.publish(order.getAccountId(), "order", "order:" + order.getOrderId(), order);
+        }
+
+        // ✅ AUDIT : un seul enregistrement pour toute l'annulation groupée
+        auditService.logAction(
+            "ORDER_BATCH",
+            UUID.randomUUID(),
+            "CANCEL",
+            context.userId(),
+            "internal-order-service",
+            Map.of(
+                "accountId", context.accountId().toString(),
+                "symbol", symbol != null ? symbol : "ALL",
+                "side", side != null ? side : "ALL",
+                "cancelled", cancelledIds.size(),
+                "releasedFunds", released.toPlainString(),
+                "orderIds", cancelledIds.stream().map(UUID::toString).toList()
+            )
+        );
+
+        logger.info("Bulk cancel: accountId={}, symbol={}, side={}, cancelled={}, released={}",
+                   context.accountId(), symbol, side, cancelledIds.size(), released);
+        return new CancelAllOrdersResponse(cancelledIds);
+    }
+
     @Transactional
     public OrderModificationResponse modifyOrder(UUID orderId, Integer newQuantity, BigDecimal newPrice) {
         logger.info("Modifying order: orderId={}, newQuantity={}, newPrice={}", orderId, newQuantity, newPrice);
@@ -234,46 +578,59 @@ public class OrderService {
         if (newPrice != null && newPrice.compareTo(BigDecimal.ZERO) <= 0) {
             return new OrderModificationResponse(false, "New price must be positive");
         }
+
+        // Pas de cotation, lot, bornes de prix, valeur maximale et statut de l'instrument, comme au placement
+        Integer finalQuantity = newQuantity != null ? newQuantity : order.getQuantity();
+        BigDecimal finalPrice = newPrice != null ? newPrice : order.getPrice();
+        var termsValidation = validationService.validateModification(order.getSymbol(), order.getOrderType(),
+                                                                      finalQuantity, finalPrice);
+        if (!termsValidation.isValid()) {
+            return new OrderModificationResponse(false, termsValidation.getMessage());
+        }
         
         Integer oldQuantity = order.getQuantity();
         BigDecimal oldPrice = order.getPrice();
         UUID userId = null;
 
+        // L'ordre est retiré du carnet pendant la modification puis resoumis (perte de priorité)
+        int bookQuantity;
+        try {
+            bookQuantity = matchingEngine.cancel(order.getSymbol(), order.getOrderId());
+            if (bookQuantity == 0) {
+                return new OrderModificationResponse(false, "Order is being executed and can no longer be modified");
+            }
+        } catch (IllegalStateException e) {
+            logger.error("Error removing order from book: {}", e.getMessage());
+            return new OrderModificationResponse(false, "Matching engine unavailable, please retry");
+        }
+        // Le carnet fait foi : moins qu'en base, une exécution est encore en file et l'ordre n'est plus modifiable.
+        // Le reste retourne au carnet tel quel, l'exécution sera comptée à son application
+        if (bookQuantity < order.getRemainingQuantity()) {
+            matchingEngine.restore(order, bookQuantity);
+            return new OrderModificationResponse(
+                false,
+                "Cannot modify a partially filled order. Filled: " + (order.getQuantity() - bookQuantity)
+            );
+        }
+        submitToBookAfterCompletion(order);
+
         if ("BUY".equals(order.getSide())) {
             try {
-                String accountUrl = ACCOUNT_SERVICE_URL + "/accounts/" + order.getAccountId();
-                Map<String, Object> accountResponse = restTemplate.getForObject(accountUrl, Map.class);
-                if (accountResponse == null) {
+                // Compte et wallet sont indépendants : latence du plus lent des deux appels
+                AccountAndWallet lookup = fetchAccountAndWallet(order.getAccountId());
+                if (lookup.account() == null) {
                     return new OrderModificationResponse(false, "Account not found");
                 }
-                
-                // ✅ Extraction sécurisée du userId
-                Object userIdObj = accountResponse.get("userId");
-                if (userIdObj != null) {
-                    userId = UUID.fromString(userIdObj.toString());
-                }
-                
-                String walletUrl = WALLET_SERVICE_URL + "/wallets/account/" + order.getAccountId();
-                Map<String, Object> walletResponse = restTemplate.getForObject(walletUrl, Map.class);
-                if (walletResponse == null) {
+                if (lookup.wallet() == null) {
                     return new OrderModificationResponse(false, "Wallet not found");
                 }
                 
-                Object walletIdObj = walletResponse.get("walletId");
-                if (walletIdObj == null) {
-                    return new OrderModificationResponse(false, "Invalid wallet response");
-                }
-                UUID walletId = UUID.fromString(walletIdObj.toString());
-                
-                Object balanceObj = walletResponse.get("balance");
-                BigDecimal walletBalance = balanceObj instanceof Number 
-                    ? BigDecimal.valueOf(((Number) balanceObj).doubleValue())
-                    : new BigDecimal(balanceObj.toString());
+                userId = lookup.userId();
+                UUID walletId = lookup.walletId();
+                BigDecimal walletBalance = lookup.wallet().balance();
                 
                 BigDecimal oldReservation = fundReservationService.getReservedAmount(order.getOrderId());
                 
-                Integer finalQuantity = newQuantity != null ? newQuantity : order.getQuantity();
-                BigDecimal finalPrice = newPrice != null ? newPrice : order.getPrice();
                 BigDecimal newReservation = new BigDecimal(finalQuantity).multiply(finalPrice);
                 
                 BigDecimal reservationDelta = newReservation.subtract(oldReservation);
@@ -281,18 +638,15 @@ public class OrderService {
                 logger.info("Reservation calculation: old={}, new={}, delta={}, walletBalance={}", 
                            oldReservation, newReservation, reservationDelta, walletBalance);
                 
-                if (reservationDelta.compareTo(BigDecimal.ZERO) > 0) {
-                    if (walletBalance.compareTo(reservationDelta) < 0) {
-                        return new OrderModificationResponse(
-                            false, 
-                            String.format("Insufficient funds for modification. Additional required: %s, Available: %s", 
-                                         reservationDelta, walletBalance)
-                        );
-                    }
+                // Ancienne réservation remplacée d'un bloc, ou conservée si le disponible ne suffit pas
+                if (!fundReservationService.replaceIfAvailable(order.getOrderId(), walletId, walletBalance, newReservation)) {
+                    return new OrderModificationResponse(
+                        false, 
+                        String.format("Insufficient funds for modification. Additional required: %s, Available: %s", 
+                                     reservationDelta, fundReservationService.getAvailable(walletId, walletBalance))
+                    );
                 }
                 
-                fundReservationService.releaseFunds(order.getOrderId(), walletId);
-                
                 if (newQuantity != null) {
                     order.setQuantity(newQuantity);
                 }
@@ -301,19 +655,9 @@ public class OrderService {
                     order.setPrice(newPrice);
                 }
                 
-                Order modifiedOrder = orderRepository.save(order);
-                
-                boolean reserved = fundReservationService.reserveFunds(
-                    modifiedOrder.getOrderId(), 
-                    walletId, 
-                    newReservation
-                );
-                
-                if (!reserved) {
-                    logger.error("Failed to reserve new funds, rolling back");
-                    fundReservationService.reserveFunds(order.getOrderId(), walletId, oldReservation);
-                    return new OrderModificationResponse(false, "Failed to reserve funds for modification");
-                }
+                Order modifiedOrder = orderRepository.saveAndFlush(order);
+                orderEventRepository.record(modifiedOrder, "MODIFY");
+                publishOrderAfterCommit(modifiedOrder, "Order modified");
                 
                 // ✅ AUDIT : Log modification ordre
                 Map<String, Object> auditDetails = new HashMap<>();
@@ -365,18 +709,14 @@ public class OrderService {
                 order.setPrice(newPrice);
             }
             
-            Order modifiedOrder = orderRepository.save(order);
+            Order modifiedOrder = orderRepository.saveAndFlush(order);
+            orderEventRepository.record(modifiedOrder, "MODIFY");
+            publishOrderAfterCommit(modifiedOrder, "Order modified");
             
             // Récupérer userId pour l'audit
             try {
-                String accountUrl = ACCOUNT_SERVICE_URL + "/accounts/" + order.getAccountId();
-                Map<String, Object> accountResponse = restTemplate.getForObject(accountUrl, Map.class);
-                if (accountResponse != null) {
-                    Object userIdObj = accountResponse.get("userId");
-                    if (userIdObj != null) {
-                        userId = UUID.fromString(userIdObj.toString());
-                    }
-                }
+                userId = HttpCallDeadline.within(Duration.ofMillis(remoteDeadlineMs),
+                    () -> userIdOf(fetchAccount(order.getAccountId())));
             } catch (Exception e) {
                 logger.warn("Could not fetch userId for audit: {}", e.getMessage());
             }
@@ -413,75 +753,273 @@ public class OrderService {
         }
     }
 
-    // Méthodes auxiliaires (inchangées)
-    private AccountWalletInfo getAccountWalletInfo(String email) {
+    // Méthodes auxiliaires
+
+    private boolean awaitPendingExecutions() {
         try {
-            logger.info("Fetching account/wallet info for email: {}", email);
-            
-            String userUrl = ACCOUNT_SERVICE_URL + "/users/email/" + email;
-            ResponseEntity<Map> userResponseEntity = restTemplate.getForEntity(userUrl, Map.class);
-            Map<String, Object> userResponse = userResponseEntity.getBody();
-            
-            if (userResponse == null) {
-                logger.error("User not found for email: {}", email);
-                return null;
+            return orderExecutionService.awaitPending(commandTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Lecture en base uniquement quand l'index local ne peut pas conclure (faux positif possible du filtre).
+     */
+    private boolean clientOrderIdExists(UUID accountId, String clientOrderId) {
+        return switch (clientOrderIdIndex.check(accountId, clientOrderId)) {
+            case ABSENT -> false;
+            case PRESENT -> true;
+            case UNKNOWN -> orderRepository.findByAccountIdAndClientOrderId(accountId, clientOrderId).isPresent();
+        };
+    }
+
+    private static boolean isDuplicateClientOrderId(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains("client_order_id");
+    }
+
+    /**
+     * Pousse l'état de l'ordre aux abonnés SSE du compte, seulement si la transaction est commitée.
+     */
+    private void publishOrderAfterCommit(Order order, String message) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userEventBus.publish(order.getAccountId(), "order", "order:" + order.getOrderId(),
+                                     new OrderResponse(order, message));
             }
-            
-            Object userIdObj = userResponse.get("userId");
-            if (userIdObj == null) {
-                logger.error("userId is null in user response");
-                return null;
+        });
+    }
+
+    /**
+     * L'ordre n'entre dans le carnet qu'une fois la transaction commitée :
+     * une exécution ne peut jamais porter sur un ordre absent de la base.
+     * Un achat MARKET est borné au prix unitaire réservé : le carnet annule ce qui irait au-delà.
+     * Un ordre DAY reçoit son échéance de fin de séance.
+     */
+    private void submitToBookAfterCommit(Order order, UUID walletId, BigDecimal reservationAmount) {
+        BigDecimal marketPriceLimit = "MARKET".equals(order.getOrderType()) && "BUY".equals(order.getSide())
+                && reservationAmount.compareTo(BigDecimal.ZERO) > 0
+            ? reservationAmount.divide(BigDecimal.valueOf(order.getQuantity()), MatchingEngine.PRICE_SCALE, RoundingMode.DOWN)
+            : null;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            matchingEngine.submit(order, walletId, marketPriceLimit);
+            timeInForceScheduler.schedule(order);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                matchingEngine.submit(order, walletId, marketPriceLimit);
+                timeInForceScheduler.schedule(order);
             }
-            UUID userId = UUID.fromString(userIdObj.toString());
-            logger.info("Found userId: {}", userId);
+        });
+    }
 
-            String accountUrl = ACCOUNT_SERVICE_URL + "/accounts/user/" + userId;
-            ResponseEntity<Map> accountResponseEntity = restTemplate.getForEntity(accountUrl, Map.class);
-            Map<String, Object> accountResponse = accountResponseEntity.getBody();
-            
-            if (accountResponse == null) {
-                logger.error("Account not found for userId: {}", userId);
-                return null;
+    /**
+     * Resoumet un ordre retiré du carnet pour modification, quelle que soit l'issue :
+     * l'état de l'entité (modifié ou restauré par le rollback) est relu en base.
+     */
+    private void submitToBookAfterCompletion(Order order) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                orderRepository.findById(order.getOrderId())
+                    .filter(current -> "NEW".equals(current.getStatus()) || "WORKING".equals(current.getStatus()))
+                    .ifPresent(current -> matchingEngine.submit(current, null));
             }
-            
-            Object accountIdObj = accountResponse.get("accountId");
-            if (accountIdObj == null) {
-                logger.error("accountId is null in account response");
-                return null;
-            }
-            UUID accountId = UUID.fromString(accountIdObj.toString());
-            String accountStatus = (String) accountResponse.get("status");
-            logger.info("Found accountId: {}, status: {}", accountId, accountStatus);
-
-            String walletUrl = WALLET_SERVICE_URL + "/wallets/account/" + accountId;
-            ResponseEntity<Map> walletResponseEntity = restTemplate.getForEntity(walletUrl, Map.class);
-            Map<String, Object> walletResponse = walletResponseEntity.getBody();
-            
-            if (walletResponse == null) {
-                logger.error("Wallet not found for accountId: {}", accountId);
-                return null;
+        });
+    }
+    private AccountWalletInfo getAccountWalletInfo(String email) {
+        try {
+            // Budget unique pour toute la chaîne d'appels account-service / wallet-service
+            return HttpCallDeadline.within(Duration.ofMillis(remoteDeadlineMs), () -> loadAccountWalletInfo(email));
+        } catch (Exception e) {
+            logger.error("Failed to fetch account/wallet info for email {}: {}", email, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private AccountWalletInfo loadAccountWalletInfo(String email) {
+        AccountContextCache.AccountContext context = accountContextCache.get(email);
+        if (context != null) {
+            // Chaîne d'identité en mémoire : statut et solde lus dans la projection locale (aucun appel distant)
+            AccountProjection.View view = accountProjection.get(context.accountId());
+            if (view != null && view.walletId().equals(context.walletId())) {
+                String status = view.status() != null ? view.status() : context.accountStatus();
+                return new AccountWalletInfo(context.userId(), context.accountId(),
+                                             status, view.walletId(), view.balance());
             }
-            
-            Object walletIdObj = walletResponse.get("walletId");
-            if (walletIdObj == null) {
-                logger.error("walletId is null in wallet response");
-                return null;
+
+            // Projection froide ou en retard : seul le solde est relu (1 appel distant) et amorce la projection
+            long walletVersion = accountProjection.walletVersion();
+            WalletSnapshot wallet = fetchWallet(context.accountId());
+            if (wallet != null && wallet.walletId().equals(context.walletId())) {
+                accountProjection.seedWallet(context.accountId(), wallet.walletId(), wallet.balance(), walletVersion);
+                return new AccountWalletInfo(context.userId(), context.accountId(),
+                                             context.accountStatus(), wallet.walletId(), wallet.balance());
             }
-            UUID walletId = UUID.fromString(walletIdObj.toString());
-            
-            Object balanceObj = walletResponse.get("balance");
-            BigDecimal balance = balanceObj instanceof Number 
-                ? BigDecimal.valueOf(((Number) balanceObj).doubleValue())
-                : new BigDecimal(balanceObj.toString());
-            
-            logger.info("Found walletId: {}, balance: {}", walletId, balance);
+            logger.warn("Cached account context is stale for email {}, resolving again", email);
+            accountContextCache.invalidate(email);
+        }
 
-            return new AccountWalletInfo(userId, accountId, accountStatus, walletId, balance);
-            
-        } catch (Exception e) {
-            logger.error("Failed to fetch account/wallet info for email {}: {}", email, e.getMessage(), e);
+        // Versions relevées avant les appels : un événement concurrent plus récent l'emportera sur l'amorçage
+        long accountVersion = accountProjection.accountVersion();
+        long walletVersion = accountProjection.walletVersion();
+        AccountWalletInfo info = resolveAccountWalletInfo(email);
+        if (info != null) {
+            accountProjection.seedStatus(info.accountId, info.accountStatus, accountVersion);
+            accountProjection.seedWallet(info.accountId, info.walletId, info.walletBalance, walletVersion);
+        }
+        if (info != null && "ACTIVE".equals(info.accountStatus)) {
+            accountContextCache.put(email, new AccountContextCache.AccountContext(
+                info.userId, info.accountId, info.accountStatus, info.walletId));
+        }
+        return info;
+    }
+
+    /**
+     * Contexte de compte sans le solde : servi depuis le cache quand c'est possible (aucun appel distant).
+     */
+    private AccountContextCache.AccountContext getAccountContext(String email) {
+        AccountContextCache.AccountContext context = accountContextCache.get(email);
+        if (context != null) {
+            return context;
+        }
+
+        AccountWalletInfo info = getAccountWalletInfo(email);
+        if (info == null) {
             return null;
         }
+        return new AccountContextCache.AccountContext(info.userId, info.accountId, info.accountStatus, info.walletId);
+    }
+
+    private AccountWalletInfo resolveAccountWalletInfo(String email) {
+        logger.info("Fetching account/wallet info for email: {}", email);
+
+        Map<String, Object> userResponse;
+        Map<String, Object> accountResponse;
+        UUID jwtUserId = currentJwtUserId();
+
+        if (jwtUserId != null) {
+            // userId déjà connu par le JWT : utilisateur et compte sont interrogés en parallèle
+            try (RemoteFanOut.Scope scope = remoteFanOut.open()) {
+                RemoteFanOut.Subtask<Map<String, Object>> user = scope.fork(() -> fetchUserByEmail(email));
+                RemoteFanOut.Subtask<Map<String, Object>> account = scope.fork(() -> fetchAccountByUser(jwtUserId));
+                scope.join();
+                userResponse = user.get();
+                accountResponse = account.get();
+            }
+        } else {
+            userResponse = fetchUserByEmail(email);
+            UUID userId = userIdOf(userResponse);
+            accountResponse = userId != null ? fetchAccountByUser(userId) : null;
+        }
+        
+        if (userResponse == null) {
+            logger.error("User not found for email: {}", email);
+            return null;
+        }
+        
+        UUID userId = userIdOf(userResponse);
+        if (userId == null) {
+            logger.error("userId is null in user response");
+            return null;
+        }
+        if (jwtUserId != null && !jwtUserId.equals(userId)) {
+            logger.error("userId {} from token does not match user {} for email {}", jwtUserId, userId, email);
+            return null;
+        }
+        logger.info("Found userId: {}", userId);
+        
+        if (accountResponse == null) {
+            logger.error("Account not found for userId: {}", userId);
+            return null;
+        }
+        
+        Object accountIdObj = accountResponse.get("accountId");
+        if (accountIdObj == null) {
+            logger.error("accountId is null in account response");
+            return null;
+        }
+        UUID accountId = UUID.fromString(accountIdObj.toString());
+        String accountStatus = (String) accountResponse.get("status");
+        logger.info("Found accountId: {}, status: {}", accountId, accountStatus);
+
+        WalletSnapshot wallet = fetchWallet(accountId);
+        if (wallet == null) {
+            return null;
+        }
+        logger.info("Found walletId: {}, balance: {}", wallet.walletId(), wallet.balance());
+
+        return new AccountWalletInfo(userId, accountId, accountStatus, wallet.walletId(), wallet.balance());
+    }
+
+    /**
+     * Compte et wallet d'un accountId, récupérés en parallèle sous l'échéance distante.
+     * Si l'un des deux appels échoue, l'autre est annulé et l'erreur est propagée.
+     */
+    private AccountAndWallet fetchAccountAndWallet(UUID accountId) {
+        return HttpCallDeadline.within(Duration.ofMillis(remoteDeadlineMs), () -> {
+            try (RemoteFanOut.Scope scope = remoteFanOut.open()) {
+                RemoteFanOut.Subtask<Map<String, Object>> account = scope.fork(() -> fetchAccount(accountId));
+                RemoteFanOut.Subtask<WalletSnapshot> wallet = scope.fork(() -> fetchWallet(accountId));
+                scope.join();
+                return new AccountAndWallet(account.get(), wallet.get());
+            }
+        });
+    }
+
+    private Map<String, Object> fetchUserByEmail(String email) {
+        return restTemplate.getForObject(ACCOUNT_SERVICE_URL + "/users/email/" + email, Map.class);
+    }
+
+    private Map<String, Object> fetchAccountByUser(UUID userId) {
+        return restTemplate.getForObject(ACCOUNT_SERVICE_URL + "/accounts/user/" + userId, Map.class);
+    }
+
+    private Map<String, Object> fetchAccount(UUID accountId) {
+        return restTemplate.getForObject(ACCOUNT_SERVICE_URL + "/accounts/" + accountId, Map.class);
+    }
+
+    private static UUID userIdOf(Map<String, Object> response) {
+        Object userIdObj = response != null ? response.get("userId") : null;
+        return userIdObj != null ? UUID.fromString(userIdObj.toString()) : null;
+    }
+
+    private static UUID currentJwtUserId() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object userId = attributes != null
+            ? attributes.getAttribute("userId", RequestAttributes.SCOPE_REQUEST)
+            : null;
+        return userId instanceof UUID ? (UUID) userId : null;
+    }
+
+    private WalletSnapshot fetchWallet(UUID accountId) {
+        String walletUrl = WALLET_SERVICE_URL + "/wallets/account/" + accountId;
+        ResponseEntity<Map> walletResponseEntity = restTemplate.getForEntity(walletUrl, Map.class);
+        Map<String, Object> walletResponse = walletResponseEntity.getBody();
+        
+        if (walletResponse == null) {
+            logger.error("Wallet not found for accountId: {}", accountId);
+            return null;
+        }
+        
+        Object walletIdObj = walletResponse.get("walletId");
+        if (walletIdObj == null) {
+            logger.error("walletId is null in wallet response");
+            return null;
+        }
+        UUID walletId = UUID.fromString(walletIdObj.toString());
+        
+        Object balanceObj = walletResponse.get("balance");
+        BigDecimal balance = balanceObj instanceof Number 
+            ? BigDecimal.valueOf(((Number) balanceObj).doubleValue())
+            : new BigDecimal(balanceObj.toString());
+
+        return new WalletSnapshot(walletId, balance);
     }
 
     private BigDecimal calculateReservationAmount(OrderRequest request) {
@@ -490,7 +1028,7 @@ public class OrderService {
         }
         
         if ("MARKET".equals(request.getOrderType())) {
-            return new BigDecimal(request.getQuantity()).multiply(new BigDecimal("100.00"));
+            return new BigDecimal(request.getQuantity()).multiply(marketDataService.marketBuyReservationPrice(request.getSymbol()));
         } else if ("LIMIT".equals(request.getOrderType())) {
             return new BigDecimal(request.getQuantity()).multiply(request.getPrice());
         }
@@ -515,12 +1053,12 @@ public class OrderService {
 
     public List<OrderResponse> getOrdersForUser(String email) {
         try {
-            AccountWalletInfo info = getAccountWalletInfo(email);
-            if (info == null) {
+            AccountContextCache.AccountContext context = getAccountContext(email);
+            if (context == null) {
                 return Collections.emptyList();
             }
 
-            return orderRepository.findByAccountId(info.accountId)
+            return orderRepository.findByAccountId(context.accountId())
                     .stream()
                     .map(order -> new OrderResponse(order, "Order found"))
                     .toList();
@@ -530,6 +1068,50 @@ public class OrderService {
         }
     }
 
+    /**
+     * Page des ordres de l'utilisateur, la plus récente d'abord. Renvoie null si le compte est introuvable.
+     * Lève IllegalArgumentException pour un curseur invalide.
+     */
+    public OrderPageResponse getOrdersPageForUser(String email, String status, String symbol,
+                                                  String cursor, int limit) {
+        UUID accountId = findAccountIdForUser(email);
+        if (accountId == null) {
+            return null;
+        }
+        return getOrdersPage(accountId, status, symbol, cursor, limit);
+    }
+
+    public OrderPageResponse getAllOrdersPage(String status, String symbol, String cursor, int limit) {
+        return getOrdersPage(null, status, symbol, cursor, limit);
+    }
+
+    public UUID findAccountIdForUser(String email) {
+        AccountContextCache.AccountContext context = getAccountContext(email);
+        return context != null ? context.accountId() : null;
+    }
+
+    /**
+     * Diffuse les ordres d'un compte (ou de tous si accountId est null) ligne par ligne depuis un curseur JDBC.
+     */
+    public long streamOrders(UUID accountId, String status, String symbol, Consumer<OrderResponse> consumer) {
+        return orderQueryRepository.stream(accountId, normalizeFilter(status), normalizeFilter(symbol), consumer);
+    }
+
+    private OrderPageResponse getOrdersPage(UUID accountId, String status, String symbol, String cursor, int limit) {
+        OrderQueryRepository.Cursor after = cursor != null && !cursor.isBlank()
+            ? OrderQueryRepository.Cursor.decode(cursor)
+            : null;
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        OrderQueryRepository.Page page = orderQueryRepository.findPage(
+            accountId, normalizeFilter(status), normalizeFilter(symbol), after, pageSize);
+        return new OrderPageResponse(page.orders(), page.next() != null ? page.next().encode() : null);
+    }
+
+    private static String normalizeFilter(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toUpperCase();
+    }
+
     public OrderResponse getOrderById(UUID orderId) {
         return orderRepository.findById(orderId)
                 .map(order -> new OrderResponse(order, "Order found"))
@@ -550,4 +1132,11 @@ public class OrderService {
         UUID walletId, 
         BigDecimal walletBalance
     ) {}
+
+    private record WalletSnapshot(UUID walletId, BigDecimal balance) {}
+
+    private record AccountAndWallet(Map<String, Object> account, WalletSnapshot wallet) {
+        UUID userId() { return userIdOf(account); }
+        UUID walletId() { return wallet != null ? wallet.walletId() : null; }
+    }
 }
\ No newline at end of file
@@ -7,22 +7,17 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
-import java.util.List;
 
 @Service
 public class OrderValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderValidationService.class);
     
-    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
-    private static final BigDecimal MAX_PRICE = new BigDecimal("10000.00");
-    private static final int MIN_QUANTITY = 1;
-    private static final int MAX_QUANTITY = 100000;
-    private static final BigDecimal MAX_ORDER_VALUE = new BigDecimal("100000.00");
-    
-    private static final List<String> ALLOWED_SYMBOLS = Arrays.asList(
-        "AAPL", "GOOGL", "MSFT", "TSLA", "AMZN"
-    );
+    private final InstrumentIndex instrumentIndex;
+
+    public OrderValidationService(InstrumentIndex instrumentIndex) {
+        this.instrumentIndex = instrumentIndex;
+    }
 
     /**
      * Valide les champs de base d'un ordre (sans appels HTTP)
@@ -35,8 +30,10 @@ public class OrderValidationService {
             return ValidationResult.failure("Symbol is required");
         }
         
-        if (!ALLOWED_SYMBOLS.contains(request.getSymbol().toUpperCase())) {
-            return ValidationResult.failure("Symbol not allowed: " + request.getSymbol());
+        InstrumentIndex.Instrument instrument = instrumentIndex.find(request.getSymbol());
+        ValidationResult instrumentValidation = validateInstrument(instrument, request.getSymbol());
+        if (!instrumentValidation.isValid()) {
+            return instrumentValidation;
         }
         
         // Validation du side
@@ -51,52 +48,91 @@ public class OrderValidationService {
             return ValidationResult.failure("Order type must be MARKET or LIMIT");
         }
         
+        ValidationResult termsValidation = validateQuantityAndPrice(instrument, request.getOrderType(),
+                                                                    request.getQuantity(), request.getPrice());
+        if (!termsValidation.isValid()) {
+            return termsValidation;
+        }
+        
+        // Validation du Time In Force
+        if (request.getTimeInForce() == null || 
+            !Arrays.asList("DAY", "IOC", "FOK").contains(request.getTimeInForce())) {
+            return ValidationResult.failure("Time in force must be DAY, IOC, or FOK");
+        }
+
+        logger.debug("Basic validation passed for order: {}", request.getClientOrderId());
+        return ValidationResult.success("Basic validation passed");
+    }
+
+    /**
+     * Règles de l'instrument appliquées à la quantité et au prix finaux d'un ordre modifié :
+     * mêmes contrôles qu'au placement, pour que le carnet et la base gardent le même prix.
+     */
+    public ValidationResult validateModification(String symbol, String orderType, Integer quantity, BigDecimal price) {
+        InstrumentIndex.Instrument instrument = instrumentIndex.find(symbol);
+        ValidationResult instrumentValidation = validateInstrument(instrument, symbol);
+        if (!instrumentValidation.isValid()) {
+            return instrumentValidation;
+        }
+        return validateQuantityAndPrice(instrument, orderType, quantity, price);
+    }
+
+    private static ValidationResult validateInstrument(InstrumentIndex.Instrument instrument, String symbol) {
+        if (instrument == null) {
+            return ValidationResult.failure("Symbol not allowed: " + symbol);
+        }
+
+        if (!instrument.isTradable()) {
+            return ValidationResult.failure("Trading is " + instrument.tradingStatus().toLowerCase()
+                + " for symbol: " + instrument.symbol());
+        }
+        return ValidationResult.success("Instrument is tradable");
+    }
+
+    private static ValidationResult validateQuantityAndPrice(InstrumentIndex.Instrument instrument, String orderType,
+                                                             Integer quantity, BigDecimal price) {
         // Validation de la quantité
-        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+        if (quantity == null || quantity <= 0) {
             return ValidationResult.failure("Quantity must be positive");
         }
         
-        if (request.getQuantity() < MIN_QUANTITY || request.getQuantity() > MAX_QUANTITY) {
+        if (quantity < instrument.minQuantity() || quantity > instrument.maxQuantity()) {
             return ValidationResult.failure(
-                String.format("Quantity must be between %d and %d", MIN_QUANTITY, MAX_QUANTITY)
+                String.format("Quantity must be between %d and %d", instrument.minQuantity(), instrument.maxQuantity())
             );
         }
+
+        if (quantity % instrument.lotSize() != 0) {
+            return ValidationResult.failure("Quantity must be a multiple of lot size " + instrument.lotSize());
+        }
         
         // Validation du prix pour LIMIT
-        if ("LIMIT".equals(request.getOrderType())) {
-            if (request.getPrice() == null || request.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+        if ("LIMIT".equals(orderType)) {
+            if (price == null || price.compareTo(BigDecimal.ZERO) <= 0) {
                 return ValidationResult.failure("Price is required for LIMIT orders");
             }
             
-            if (request.getPrice().compareTo(MIN_PRICE) < 0) {
-                return ValidationResult.failure("Price below minimum: " + MIN_PRICE);
+            if (price.compareTo(instrument.minPrice()) < 0) {
+                return ValidationResult.failure("Price below minimum: " + instrument.minPrice());
             }
             
-            if (request.getPrice().compareTo(MAX_PRICE) > 0) {
-                return ValidationResult.failure("Price above maximum: " + MAX_PRICE);
+            if (price.compareTo(instrument.maxPrice()) > 0) {
+                return ValidationResult.failure("Price above maximum: " + instrument.maxPrice());
             }
             
-            // Vérifier que le prix est un multiple de 0.01
-            BigDecimal remainder = request.getPrice().remainder(new BigDecimal("0.01"));
+            // Vérifier que le prix est un multiple du pas de cotation
+            BigDecimal remainder = price.remainder(instrument.tickSize());
             if (remainder.compareTo(BigDecimal.ZERO) != 0) {
-                return ValidationResult.failure("Price must be multiple of 0.01");
+                return ValidationResult.failure("Price must be multiple of " + instrument.tickSize().stripTrailingZeros().toPlainString());
             }
             
             // Vérifier la valeur totale de l'ordre
-            BigDecimal orderValue = new BigDecimal(request.getQuantity()).multiply(request.getPrice());
-            if (orderValue.compareTo(MAX_ORDER_VALUE) > 0) {
-                return ValidationResult.failure("Order value exceeds maximum: " + MAX_ORDER_VALUE);
+            BigDecimal orderValue = new BigDecimal(quantity).multiply(price);
+            if (orderValue.compareTo(instrument.maxOrderValue()) > 0) {
+                return ValidationResult.failure("Order value exceeds maximum: " + instrument.maxOrderValue());
             }
         }
-        
-        // Validation du Time In Force
-        if (request.getTimeInForce() == null || 
-            !Arrays.asList("DAY", "IOC", "FOK").contains(request.getTimeInForce())) {
-            return ValidationResult.failure("Time in force must be DAY, IOC, or FOK");
-        }
-
-        logger.debug("Basic validation passed for order: {}", request.getClientOrderId());
-        return ValidationResult.success("Basic validation passed");
+        return ValidationResult.success("Quantity and price are valid");
     }
 
     /**
@@ -0,0 +1,143 @@
+package com.brokerx.service;
+
+import com.brokerx.config.HttpCallDeadline;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Appels distants indépendants lancés en parallèle, dans le style « structured concurrency » :
+ * les sous-tâches d'un {@link Scope} partagent une échéance, le premier échec annule les autres
+ * et aucune sous-tâche ne survit à la fermeture du scope.
+ */
+@Component
+public class RemoteFanOut {
+
+    private final ExecutorService executor;
+
+    @Value("${order.remote.deadline-ms:3000}")
+    private long defaultDeadlineMs;
+
+    public RemoteFanOut(@Value("${order.remote.fan-out-threads:32}") int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "remote-lookup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ouvre un scope qui hérite de l'échéance HTTP du thread appelant, ou du budget par défaut.
+     */
+    public Scope open() {
+        Long inherited = HttpCallDeadline.current();
+        long deadline = inherited != null
+            ? inherited
+            : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(defaultDeadlineMs);
+        return new Scope(deadline);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final long deadlineNanos;
+        private final ExecutorCompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        private final List<Future<Object>> futures = new ArrayList<>();
+
+        private Scope(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public <T> Subtask<T> fork(Supplier<T> task) {
+            Future<Object> future = completion.submit(() -> HttpCallDeadline.until(deadlineNanos, task));
+            futures.add(future);
+            return new Subtask<>(future);
+        }
+
+        /**
+         * Attend toutes les sous-tâches. Au premier échec ou à l'échéance, les autres sont annulées
+         * et l'erreur est propagée telle quelle (RuntimeException) à l'appelant.
+         */
+        public void join() {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<Object> done;
+                try {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : completion.poll();
+                } catch (InterruptedException e) {
+                    cancelAll();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for remote lookups", e);
+                }
+                if (done == null) {
+                    cancelAll();
+                    throw new IllegalStateException("Remote lookups did not complete before the deadline");
+                }
+                try {
+                    done.get();
+                } catch (ExecutionException e) {
+                    cancelAll();
+                    if (e.getCause() instanceof RuntimeException runtimeException) {
+                        throw runtimeException;
+                    }
+                    throw new IllegalStateException("Remote lookup failed", e.getCause());
+                } catch (InterruptedException e) {
+                    cancelAll();
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for remote lookups", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private void cancelAll() {
+            for (Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public static final class Subtask<T> {
+
+        private final Future<Object> future;
+
+        private Subtask(Future<Object> future) {
+            this.future = future;
+        }
+
+        /**
+         * Résultat de la sous-tâche ; à appeler seulement après {@link Scope#join()}.
+         */
+        @SuppressWarnings("unchecked")
+        public T get() {
+            if (!future.isDone() || future.isCancelled()) {
+                throw new IllegalStateException("Subtask result requested before join()");
+            }
+            try {
+                return (T) future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Subtask failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.brokerx.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal append-only des réservations de fonds, persisté en écriture différée (write-behind).
+ * Les événements sont enfilés en mémoire puis insérés par lots par un unique thread,
+ * qui compacte aussi périodiquement le journal dans une table de snapshot.
+ *
+ * Au démarrage, l'état est reconstruit à partir du dernier snapshot et de la queue du journal,
+ * sans relire la table des ordres.
+ */
+@Component
+public class ReservationJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationJournal.class);
+
+    public enum EventType { RESERVE, CONSUME, RELEASE }
+
+    private static final String INSERT_EVENT =
+        "INSERT INTO fund_reservation_journal (seq, event_type, order_id, wallet_id, amount, recorded_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<JournalEvent> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong flushedEvents = new AtomicLong();
+    private final AtomicLong snapshotCount = new AtomicLong();
+
+    @Value("${order.reservations.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${order.reservations.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${order.reservations.snapshot-interval:PT1M}")
+    private Duration snapshotInterval;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public ReservationJournal(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Enfile un événement ; ne fait aucune I/O. Doit être appelé sous le verrou de l'ordre
+     * pour que l'ordre des séquences suive l'ordre des mutations d'un même ordre.
+     * Identifiants et montant restent primitifs : la conversion est faite par le thread d'écriture.
+     *
+     * @param amountUnits montant en unités de {@link ReservationStore#AMOUNT_SCALE} décimales
+     */
+    public void append(EventType type, long orderHi, long orderLo, long walletHi, long walletLo, long amountUnits) {
+        pending.offer(new JournalEvent(sequence.incrementAndGet(), type, orderHi, orderLo, walletHi, walletLo,
+                                       amountUnits, System.currentTimeMillis()));
+    }
+
+    /**
+     * Recharge le dernier snapshot puis rejoue le journal dans l'ordre des séquences,
+     * et démarre le thread d'écriture.
+     */
+    public Map<UUID, Reservation> recover() {
+        long start = System.nanoTime();
+        Map<UUID, Reservation> state = loadSnapshot();
+        int snapshotSize = state.size();
+        long replayed = replayJournal(state);
+
+        // Les séquences restent croissantes d'un redémarrage à l'autre, même après compaction
+        Long lastSeq = jdbcTemplate.queryForObject(
+            "SELECT GREATEST((SELECT COALESCE(MAX(seq), 0) FROM fund_reservation_journal), " +
+            "(SELECT COALESCE(MAX(snapshot_seq), 0) FROM fund_reservation_snapshots))", Long.class);
+        sequence.set(lastSeq != null ? lastSeq : 0L);
+
+        logger.info("Fund reservations recovered in {} ms: snapshot={}, replayed={}, active={}",
+                   TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), snapshotSize, replayed, state.size());
+
+        startFlusher();
+        return state;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (!pending.isEmpty()) {
+            logger.error("Reservation journal stopped with {} unflushed events", pending.size());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "pendingEvents", pending.size(),
+            "flushedEvents", flushedEvents.get(),
+            "lastSequence", sequence.get(),
+            "snapshots", snapshotCount.get()
+        );
+    }
+
+    private void startFlusher() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "reservation-journal-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void flushLoop() {
+        List<JournalEvent> batch = new ArrayList<>(flushBatchSize);
+        long nextSnapshotAt = System.nanoTime() + snapshotInterval.toNanos();
+
+        while (running || !pending.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    JournalEvent first = pending.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        pending.drainTo(batch, flushBatchSize - 1);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    insert(batch);
+                    flushedEvents.addAndGet(batch.size());
+                    batch.clear();
+                }
+                // Compaction sur le thread écrivain : aucune insertion concurrente dans le journal
+                if (running && System.nanoTime() - nextSnapshotAt >= 0) {
+                    snapshot();
+                    nextSnapshotAt = System.nanoTime() + snapshotInterval.toNanos();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Le lot est conservé et retenté : le journal ne doit perdre aucun événement
+                logger.error("Failed to flush {} reservation events: {}", batch.size(), e.getMessage());
+                sleepQuietly(flushIntervalMs * 10);
+            }
+        }
+    }
+
+    private void insert(List<JournalEvent> batch) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT, batch, batch.size(), (ps, event) -> {
+            ps.setLong(1, event.seq());
+            ps.setString(2, event.type().name());
+            ps.setObject(3, new UUID(event.orderHi(), event.orderLo()));
+            ps.setObject(4, new UUID(event.walletHi(), event.walletLo()));
+            ps.setBigDecimal(5, ReservationStore.fromUnits(event.amountUnits()));
+            ps.setTimestamp(6, new Timestamp(event.recordedAtMillis()));
+        });
+    }
+
+    /**
+     * Replie snapshot + journal persistés dans un nouveau snapshot, puis tronque le journal.
+     * L'état est recalculé depuis la base et non depuis la mémoire, ce qui le garde cohérent
+     * avec les événements encore en file.
+     */
+    void snapshot() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<UUID, Reservation> state = loadSnapshot();
+            Long maxSeq = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(seq), 0) FROM fund_reservation_journal", Long.class);
+            if (maxSeq == null || maxSeq == 0L) {
+                return;
+            }
+            long replayed = replayJournal(state);
+
+            jdbcTemplate.update("DELETE FROM fund_reservation_snapshots");
+            List<Map.Entry<UUID, Reservation>> entries = new ArrayList<>(state.entrySet());
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO fund_reservation_snapshots (order_id, wallet_id, amount, snapshot_seq) VALUES (?, ?, ?, ?)",
+                entries, flushBatchSize, (ps, entry) -> {
+                    ps.setObject(1, entry.getKey());
+                    ps.setObject(2, entry.getValue().walletId());
+                    ps.setBigDecimal(3, entry.getValue().amount());
+                    ps.setLong(4, maxSeq);
+                });
+            jdbcTemplate.update("DELETE FROM fund_reservation_journal WHERE seq <= ?", maxSeq);
+
+            snapshotCount.incrementAndGet();
+            logger.info("Fund reservation snapshot written: seq={}, compacted={}, active={}",
+                       maxSeq, replayed, state.size());
+        });
+    }
+
+    private Map<UUID, Reservation> loadSnapshot() {
+        Map<UUID, Reservation> state = new HashMap<>();
+        jdbcTemplate.query("SELECT order_id, wallet_id, amount FROM fund_reservation_snapshots", rs -> {
+            state.put(rs.getObject("order_id", UUID.class),
+                      new Reservation(rs.getObject("wallet_id", UUID.class), rs.getBigDecimal("amount")));
+        });
+        return state;
+    }
+
+    private long replayJournal(Map<UUID, Reservation> state) {
+        long[] count = {0L};
+        jdbcTemplate.query(
+            "SELECT event_type, order_id, wallet_id, amount FROM fund_reservation_journal ORDER BY seq", rs -> {
+                UUID orderId = rs.getObject("order_id", UUID.class);
+                BigDecimal amount = rs.getBigDecimal("amount");
+                switch (EventType.valueOf(rs.getString("event_type"))) {
+                    case RESERVE -> state.put(orderId, new Reservation(rs.getObject("wallet_id", UUID.class), amount));
+                    case CONSUME -> state.computeIfPresent(orderId, (id, reservation) -> {
+                        BigDecimal left = reservation.amount().subtract(amount);
+                        return left.compareTo(BigDecimal.ZERO) > 0 ? new Reservation(reservation.walletId(), left) : null;
+                    });
+                    case RELEASE -> state.remove(orderId);
+                }
+                count[0]++;
+            });
+        return count[0];
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public record Reservation(UUID walletId, BigDecimal amount) {}
+
+    private record JournalEvent(long seq, EventType type, long orderHi, long orderLo,
+                                long walletHi, long walletLo, long amountUnits, long recordedAtMillis) {}
+}
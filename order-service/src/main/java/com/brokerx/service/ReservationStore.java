@@ -0,0 +1,372 @@
+package com.brokerx.service;
+
+import com.brokerx.service.ReservationJournal.EventType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Réservations de fonds en types primitifs : identifiants UUID éclatés en deux long, montants
+ * en unités entières (1/10 000, l'échelle du journal). Deux tables à adressage ouvert, segmentées :
+ * ordre → (wallet, montant) et wallet → total réservé.
+ *
+ * Chaque segment a son StampedLock : les lectures sont optimistes (aucune écriture en mémoire
+ * partagée), les mutations prennent le verrou d'écriture du seul segment concerné. Réserver,
+ * consommer ou libérer n'alloue rien dans la table, hors agrandissement d'un segment.
+ */
+final class ReservationStore {
+
+    /** Échelle des montants stockés : celle de fund_reservation_journal.amount. */
+    static final int AMOUNT_SCALE = 4;
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] orders = new Segment[SEGMENTS];
+    private final Segment[] wallets = new Segment[SEGMENTS];
+    private final ReservationJournal journal;
+
+    private final LongAdder activeReservations = new LongAdder();
+    private final LongAdder walletsWithReservations = new LongAdder();
+    private final LongAdder reservedUnits = new LongAdder();
+
+    ReservationStore(ReservationJournal journal) {
+        this.journal = journal;
+        for (int i = 0; i < SEGMENTS; i++) {
+            orders[i] = new Segment(true);
+            wallets[i] = new Segment(false);
+        }
+    }
+
+    static long toUnits(BigDecimal amount) {
+        // Arrondi supérieur : une réservation ne couvre jamais moins que le montant demandé
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, AMOUNT_SCALE);
+    }
+
+    /**
+     * Crée la réservation d'un ordre ; false si l'ordre en a déjà une.
+     */
+    boolean reserve(UUID orderId, UUID walletId, long units) {
+        long orderHi = orderId.getMostSignificantBits();
+        long orderLo = orderId.getLeastSignificantBits();
+        long walletHi = walletId.getMostSignificantBits();
+        long walletLo = walletId.getLeastSignificantBits();
+
+        Segment segment = orders[segmentFor(orderHi, orderLo)];
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.indexOf(orderHi, orderLo) >= 0) {
+                return false;
+            }
+            segment.insert(orderHi, orderLo, walletHi, walletLo, units);
+            // Sous le verrou de l'ordre : les séquences du journal suivent l'ordre des mutations
+            journal.append(EventType.RESERVE, orderHi, orderLo, walletHi, walletLo, units);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        activeReservations.increment();
+        addToWallet(walletHi, walletLo, units);
+        return true;
+    }
+
+    /**
+     * Supprime la réservation d'un ordre ; retourne le montant libéré (0 si aucune).
+     */
+    long release(UUID orderId) {
+        long orderHi = orderId.getMostSignificantBits();
+        long orderLo = orderId.getLeastSignificantBits();
+
+        Segment segment = orders[segmentFor(orderHi, orderLo)];
+        long walletHi;
+        long walletLo;
+        long units;
+        long stamp = segment.lock.writeLock();
+        try {
+            int index = segment.indexOf(orderHi, orderLo);
+            if (index < 0) {
+                return 0L;
+            }
+            Slots slots = segment.slots;
+            walletHi = slots.ownerHi[index];
+            walletLo = slots.ownerLo[index];
+            units = slots.amounts[index];
+            segment.removeAt(index);
+            journal.append(EventType.RELEASE, orderHi, orderLo, walletHi, walletLo, units);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        activeReservations.decrement();
+        addToWallet(walletHi, walletLo, -units);
+        return units;
+    }
+
+    /**
+     * Retire au plus {@code units} de la réservation d'un ordre ; retourne le montant effectivement retiré.
+     */
+    long consume(UUID orderId, long units) {
+        long orderHi = orderId.getMostSignificantBits();
+        long orderLo = orderId.getLeastSignificantBits();
+
+        Segment segment = orders[segmentFor(orderHi, orderLo)];
+        long walletHi;
+        long walletLo;
+        long taken;
+        boolean emptied;
+        long stamp = segment.lock.writeLock();
+        try {
+            int index = segment.indexOf(orderHi, orderLo);
+            if (index < 0) {
+                return 0L;
+            }
+            Slots slots = segment.slots;
+            walletHi = slots.ownerHi[index];
+            walletLo = slots.ownerLo[index];
+            taken = Math.min(units, slots.amounts[index]);
+            emptied = taken == slots.amounts[index];
+            if (emptied) {
+                segment.removeAt(index);
+            } else {
+                slots.amounts[index] -= taken;
+            }
+            journal.append(EventType.CONSUME, orderHi, orderLo, walletHi, walletLo, taken);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        if (emptied) {
+            activeReservations.decrement();
+        }
+        addToWallet(walletHi, walletLo, -taken);
+        return taken;
+    }
+
+    /**
+     * Rechargement au démarrage : état déjà journalisé, rien n'est réécrit.
+     */
+    void restore(UUID orderId, UUID walletId, long units) {
+        long orderHi = orderId.getMostSignificantBits();
+        long orderLo = orderId.getLeastSignificantBits();
+        Segment segment = orders[segmentFor(orderHi, orderLo)];
+        long stamp = segment.lock.writeLock();
+        try {
+            if (segment.indexOf(orderHi, orderLo) >= 0) {
+                return;
+            }
+            segment.insert(orderHi, orderLo, walletId.getMostSignificantBits(),
+                           walletId.getLeastSignificantBits(), units);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        activeReservations.increment();
+        addToWallet(walletId.getMostSignificantBits(), walletId.getLeastSignificantBits(), units);
+    }
+
+    long reservedUnits(UUID orderId) {
+        long hi = orderId.getMostSignificantBits();
+        long lo = orderId.getLeastSignificantBits();
+        return orders[segmentFor(hi, lo)].read(hi, lo);
+    }
+
+    long walletUnits(UUID walletId) {
+        long hi = walletId.getMostSignificantBits();
+        long lo = walletId.getLeastSignificantBits();
+        return wallets[segmentFor(hi, lo)].read(hi, lo);
+    }
+
+    long activeReservations() {
+        return activeReservations.sum();
+    }
+
+    long walletsWithReservations() {
+        return walletsWithReservations.sum();
+    }
+
+    long totalReservedUnits() {
+        return reservedUnits.sum();
+    }
+
+    private void addToWallet(long walletHi, long walletLo, long delta) {
+        Segment segment = wallets[segmentFor(walletHi, walletLo)];
+        long stamp = segment.lock.writeLock();
+        try {
+            int index = segment.indexOf(walletHi, walletLo);
+            if (index < 0) {
+                if (delta > 0) {
+                    segment.insert(walletHi, walletLo, 0L, 0L, delta);
+                    walletsWithReservations.increment();
+                }
+            } else {
+                long total = segment.slots.amounts[index] + delta;
+                if (total > 0) {
+                    segment.slots.amounts[index] = total;
+                } else {
+                    segment.removeAt(index);
+                    walletsWithReservations.decrement();
+                }
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        reservedUnits.add(delta);
+    }
+
+    private static int segmentFor(long hi, long lo) {
+        return (int) (mix(hi, lo) >>> 58) & (SEGMENTS - 1);
+    }
+
+    private static long mix(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Table à sondage linéaire ; un montant nul marque une case libre (les montants stockés sont > 0).
+     * La suppression décale les entrées suivantes (backward shift) : pas de pierres tombales.
+     */
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final boolean withOwner;
+        private Slots slots;
+        private int size;
+
+        private Segment(boolean withOwner) {
+            this.withOwner = withOwner;
+            this.slots = new Slots(INITIAL_SEGMENT_CAPACITY, withOwner);
+        }
+
+        /**
+         * Lecture optimiste : les tableaux d'une même génération sont lus via une seule référence,
+         * et la valeur n'est retenue que si aucune écriture n'a eu lieu entre-temps.
+         */
+        private long read(long hi, long lo) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                long value = find(slots, hi, lo);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(slots, hi, lo);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static long find(Slots slots, long hi, long lo) {
+            int mask = slots.amounts.length - 1;
+            int index = (int) mix(hi, lo) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long amount = slots.amounts[index];
+                if (amount == 0L) {
+                    return 0L;
+                }
+                if (slots.keyHi[index] == hi && slots.keyLo[index] == lo) {
+                    return amount;
+                }
+                index = (index + 1) & mask;
+            }
+            return 0L;
+        }
+
+        private int indexOf(long hi, long lo) {
+            int mask = slots.amounts.length - 1;
+            int index = (int) mix(hi, lo) & mask;
+            while (slots.amounts[index] != 0L) {
+                if (slots.keyHi[index] == hi && slots.keyLo[index] == lo) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void insert(long hi, long lo, long ownerHi, long ownerLo, long amount) {
+            // Facteur de charge 3/4 : au-delà, les sondes s'allongent vite
+            if ((size + 1) * 4 > slots.amounts.length * 3) {
+                grow();
+            }
+            put(slots, hi, lo, ownerHi, ownerLo, amount);
+            size++;
+        }
+
+        private void put(Slots target, long hi, long lo, long ownerHi, long ownerLo, long amount) {
+            int mask = target.amounts.length - 1;
+            int index = (int) mix(hi, lo) & mask;
+            while (target.amounts[index] != 0L) {
+                index = (index + 1) & mask;
+            }
+            target.keyHi[index] = hi;
+            target.keyLo[index] = lo;
+            target.amounts[index] = amount;
+            if (withOwner) {
+                target.ownerHi[index] = ownerHi;
+                target.ownerLo[index] = ownerLo;
+            }
+        }
+
+        private void removeAt(int index) {
+            Slots s = slots;
+            int mask = s.amounts.length - 1;
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (s.amounts[next] != 0L) {
+                int home = (int) mix(s.keyHi[next], s.keyLo[next]) & mask;
+                // L'entrée peut combler le trou si sa case d'origine n'est pas entre le trou et elle
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    s.keyHi[hole] = s.keyHi[next];
+                    s.keyLo[hole] = s.keyLo[next];
+                    s.amounts[hole] = s.amounts[next];
+                    if (withOwner) {
+                        s.ownerHi[hole] = s.ownerHi[next];
+                        s.ownerLo[hole] = s.ownerLo[next];
+                    }
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            s.amounts[hole] = 0L;
+            size--;
+        }
+
+        private void grow() {
+            Slots old = slots;
+            Slots grown = new Slots(old.amounts.length * 2, withOwner);
+            for (int i = 0; i < old.amounts.length; i++) {
+                if (old.amounts[i] != 0L) {
+                    put(grown, old.keyHi[i], old.keyLo[i],
+                        withOwner ? old.ownerHi[i] : 0L, withOwner ? old.ownerLo[i] : 0L, old.amounts[i]);
+                }
+            }
+            slots = grown;
+        }
+    }
+
+    /**
+     * Colonnes d'une génération de segment ; remplacées d'un bloc à l'agrandissement.
+     */
+    private static final class Slots {
+        private final long[] keyHi;
+        private final long[] keyLo;
+        private final long[] amounts;
+        private final long[] ownerHi;
+        private final long[] ownerLo;
+
+        private Slots(int capacity, boolean withOwner) {
+            keyHi = new long[capacity];
+            keyLo = new long[capacity];
+            amounts = new long[capacity];
+            ownerHi = withOwner ? new long[capacity] : null;
+            ownerLo = withOwner ? new long[capacity] : null;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.order.OrderResponse;
+import com.brokerx.entity.Order;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.repository.OrderQueryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expiration des ordres DAY à la clôture de la séance.
+ * Les échéances vivent dans une roue temporelle (aucun timer par ordre) ; un seul thread la fait
+ * avancer et traite les ordres échus par lots : retrait du carnet, une requête UPDATE par lot,
+ * libération des réservations d'achat, événements SSE et un seul enregistrement d'audit.
+ * IOC et FOK ne passent pas ici : le carnet les traite entièrement à l'entrée.
+ */
+@Service
+public class TimeInForceScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeInForceScheduler.class);
+
+    private static final String EXPIRED_MESSAGE = "Order expired at session close";
+
+    private static final String SELECT_ACTIVE_DAY_ORDERS =
+        "SELECT order_id, symbol, created_at FROM orders " +
+        "WHERE time_in_force = 'DAY' AND status IN ('NEW', 'WORKING')";
+
+    private final MatchingEngine matchingEngine;
+    private final OrderQueryRepository orderQueryRepository;
+    private final FundReservationService fundReservationService;
+    private final AuditService auditService;
+    private final UserEventBus userEventBus;
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderExecutionService orderExecutionService;
+
+    private final LocalTime sessionClose;
+    private final ZoneId zone;
+
+    @Value("${order.tif.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${order.tif.expiry-batch-size:1000}")
+    private int expiryBatchSize;
+
+    @Value("${order.tif.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${order.matching.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    // Roue et file des échus protégées par le même verrou, jamais tenu pendant une I/O
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Expired> due = new ArrayList<>();
+    private ExpiryWheel wheel;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    private volatile boolean running;
+    private Thread expiryThread;
+
+    public TimeInForceScheduler(MatchingEngine matchingEngine,
+                                OrderQueryRepository orderQueryRepository,
+                                FundReservationService fundReservationService,
+                                AuditService auditService,
+                                UserEventBus userEventBus,
+                                JdbcTemplate jdbcTemplate,
+                                OrderExecutionService orderExecutionService,
+                                @Value("${order.tif.session-close:16:00}") LocalTime sessionClose,
+                                @Value("${order.tif.zone:America/Toronto}") ZoneId zone) {
+        this.matchingEngine = matchingEngine;
+        this.orderQueryRepository = orderQueryRepository;
+        this.fundReservationService = fundReservationService;
+        this.auditService = auditService;
+        this.userEventBus = userEventBus;
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderExecutionService = orderExecutionService;
+        this.sessionClose = sessionClose;
+        this.zone = zone;
+    }
+
+    /**
+     * Recharge les échéances des ordres DAY encore actifs, après la reconstruction des carnets ;
+     * ceux dont la séance est déjà close expirent au premier tour.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        lock.lock();
+        try {
+            wheel = new ExpiryWheel(tickMs, System.currentTimeMillis());
+        } finally {
+            lock.unlock();
+        }
+        int[] loaded = {0};
+        jdbcTemplate.query(SELECT_ACTIVE_DAY_ORDERS, rs -> {
+            schedule(rs.getObject("order_id", UUID.class), rs.getString("symbol"),
+                     rs.getTimestamp("created_at").toLocalDateTime());
+            loaded[0]++;
+        });
+
+        running = true;
+        expiryThread = new Thread(this::expiryLoop, "tif-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+        logger.info("Time-in-force scheduler started: {} DAY orders loaded, session close {} {}",
+                    loaded[0], sessionClose, zone);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (expiryThread != null) {
+            expiryThread.interrupt();
+        }
+    }
+
+    /**
+     * Programme l'expiration d'un ordre DAY ; sans effet pour les autres durées de validité.
+     */
+    public void schedule(Order order) {
+        if ("DAY".equals(order.getTimeInForce())) {
+            schedule(order.getOrderId(), order.getSymbol(), order.getCreatedAt());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int pending;
+        int queued;
+        lock.lock();
+        try {
+            pending = wheel != null ? wheel.size() : 0;
+            queued = due.size();
+        } finally {
+            lock.unlock();
+        }
+        return Map.of(
+            "pendingExpiries", pending,
+            "dueOrders", queued,
+            "scheduled", scheduled.sum(),
+            "expired", expired.sum(),
+            "failedBatches", failedBatches.sum(),
+            "sessionClose", sessionClose + " " + zone
+        );
+    }
+
+    /**
+     * Clôture de la première séance qui suit la création de l'ordre (week-ends sautés).
+     * created_at est l'heure locale du service.
+     */
+    long expiresAt(LocalDateTime createdAt) {
+        ZonedDateTime created = createdAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone);
+        ZonedDateTime close = created.with(sessionClose);
+        if (!close.isAfter(created)) {
+            close = close.plusDays(1);
+        }
+        while (close.getDayOfWeek() == DayOfWeek.SATURDAY || close.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            close = close.plusDays(1);
+        }
+        return close.toInstant().toEpochMilli();
+    }
+
+    private void schedule(UUID orderId, String symbol, LocalDateTime createdAt) {
+        long expiresAt = expiresAt(createdAt);
+        lock.lock();
+        try {
+            if (wheel == null || !wheel.add(orderId, symbol, expiresAt)) {
+                // Roue pas encore démarrée (rechargée depuis la base) ou échéance déjà passée
+                if (wheel != null) {
+                    due.add(new Expired(orderId, symbol));
+                }
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        scheduled.increment();
+    }
+
+    private void expiryLoop() {
+        while (running) {
+            try {
+                List<Expired> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    TimeUnit.MILLISECONDS.sleep(tickMs);
+                    continue;
+                }
+                if (!expire(batch)) {
+                    TimeUnit.MILLISECONDS.sleep(retryDelayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Time-in-force expiry loop error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<Expired> nextBatch() {
+        lock.lock();
+        try {
+            wheel.advance(System.currentTimeMillis(), (orderId, symbol) -> due.add(new Expired(orderId, symbol)));
+            int size = Math.min(expiryBatchSize, due.size());
+            List<Expired> batch = new ArrayList<>(due.subList(0, size));
+            due.subList(0, size).clear();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requeue(List<Expired> batch) {
+        lock.lock();
+        try {
+            due.addAll(0, batch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Un lot d'ordres échus : carnets d'abord (plus aucune exécution possible), puis la base.
+     *
+     * Seuls les ordres effectivement retirés du carnet expirent : les autres viennent d'être exécutés.
+     * Les exécutions appariées avant le retrait sont appliquées avant l'UPDATE, qui ne libère que le reste.
+     *
+     * @return false si la base n'a pas pu être mise à jour ; le lot est remis en tête pour être retenté
+     */
+    private boolean expire(List<Expired> batch) {
+        Map<String, List<UUID>> bySymbol = new HashMap<>();
+        List<UUID> orderIds = new ArrayList<>(batch.size());
+        for (Expired entry : batch) {
+            if (entry.removed()) {
+                orderIds.add(entry.orderId());
+            } else {
+                bySymbol.computeIfAbsent(entry.symbol(), symbol -> new ArrayList<>()).add(entry.orderId());
+            }
+        }
+
+        List<OrderResponse> cancelled;
+        try {
+            for (Map.Entry<String, List<UUID>> symbolOrders : bySymbol.entrySet()) {
+                orderIds.addAll(matchingEngine.removeAll(symbolOrders.getKey(), symbolOrders.getValue()));
+            }
+            if (!orderIds.isEmpty() && !orderExecutionService.awaitPending(commandTimeoutMs)) {
+                throw new IllegalStateException("Execution writer did not catch up");
+            }
+            cancelled = orderIds.isEmpty() ? List.of()
+                : orderQueryRepository.cancelActive(orderIds, EXPIRED_MESSAGE, "EXPIRE");
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            failedBatches.increment();
+            logger.error("Failed to expire {} DAY orders: {}", batch.size(), e.getMessage());
+            // Les ordres déjà sortis du carnet ne le retrouveront pas : au prochain essai, seule la base reste à faire
+            Set<UUID> removed = new HashSet<>(orderIds);
+            requeue(batch.stream()
+                .map(entry -> removed.contains(entry.orderId()) ? new Expired(entry.orderId(), entry.symbol(), true) : entry)
+                .toList());
+            return false;
+        }
+
+        List<String> expiredIds = new ArrayList<>(cancelled.size());
+        for (OrderResponse order : cancelled) {
+            userEventBus.publish(order.getAccountId(), "order", "order:" + order.getOrderId(), order);
+            expiredIds.add(order.getOrderId().toString());
+        }
+        fundReservationService.releaseAll(cancelled.stream().map(OrderResponse::getOrderId).toList());
+        expired.add(cancelled.size());
+
+        if (!cancelled.isEmpty()) {
+            // Un seul enregistrement d'audit pour tout le lot
+            auditService.logAction(
+                "ORDER_BATCH",
+                UUID.randomUUID(),
+                "EXPIRE",
+                null,
+                "internal-order-service",
+                Map.of(
+                    "due", batch.size(),
+                    "expired", cancelled.size(),
+                    "orderIds", expiredIds
+                )
+            );
+        }
+        logger.info("DAY orders expired: {} of {} due", cancelled.size(), batch.size());
+        return true;
+    }
+
+    /**
+     * @param removed déjà retiré du carnet lors d'un essai précédent
+     */
+    private record Expired(UUID orderId, String symbol, boolean removed) {
+
+        Expired(UUID orderId, String symbol) {
+            this(orderId, symbol, false);
+        }
+    }
+}
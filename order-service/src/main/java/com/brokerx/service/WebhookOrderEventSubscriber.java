@@ -0,0 +1,39 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.order.OrderEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pousse chaque lot d'événements d'ordres en POST {"events": [...]} vers les URL configurées.
+ * Sans URL configurée, l'abonné ne fait rien.
+ */
+@Component
+public class WebhookOrderEventSubscriber implements OrderEventSubscriber {
+
+    private final RestTemplate restTemplate;
+    private final List<String> urls;
+
+    public WebhookOrderEventSubscriber(RestTemplate restTemplate,
+                                       @Value("${order.events.webhooks:}") List<String> urls) {
+        this.restTemplate = restTemplate;
+        this.urls = urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+    }
+
+    @Override
+    public String name() {
+        return "webhook" + urls;
+    }
+
+    @Override
+    public void deliver(List<OrderEvent> events) {
+        Map<String, Object> body = Map.of("events", events);
+        for (String url : urls) {
+            restTemplate.postForEntity(url, body, Void.class);
+        }
+    }
+}
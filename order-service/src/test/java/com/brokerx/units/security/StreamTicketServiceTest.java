@@ -0,0 +1,54 @@
+package com.brokerx.units.security;
+
+import com.brokerx.security.StreamTicketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamTicketServiceTest {
+
+    private StreamTicketService streamTicketService;
+
+    @BeforeEach
+    void setUp() {
+        streamTicketService = new StreamTicketService();
+        ReflectionTestUtils.setField(streamTicketService, "ttl", Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testTicketCanBeRedeemedOnlyOnce() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        String ticket = streamTicketService.issue("trader@brokerx.com", userId,
+                                                  List.of(new SimpleGrantedAuthority("ROLE_CLIENT")));
+
+        // When
+        StreamTicketService.Ticket first = streamTicketService.redeem(ticket);
+        StreamTicketService.Ticket second = streamTicketService.redeem(ticket);
+
+        // Then : la reconnexion automatique d'EventSource ne rejoue pas le ticket
+        assertNotNull(first);
+        assertEquals("trader@brokerx.com", first.email());
+        assertEquals(userId, first.userId());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_CLIENT")), first.authorities());
+        assertNull(second);
+    }
+
+    @Test
+    void testExpiredOrUnknownTicketIsRefused() {
+        // Given
+        ReflectionTestUtils.setField(streamTicketService, "ttl", Duration.ZERO);
+        String ticket = streamTicketService.issue("trader@brokerx.com", UUID.randomUUID(), List.of());
+
+        // Then
+        assertNull(streamTicketService.redeem(ticket));
+        assertNull(streamTicketService.redeem("unknown"));
+    }
+}
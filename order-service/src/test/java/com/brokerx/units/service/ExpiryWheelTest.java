@@ -0,0 +1,81 @@
+package com.brokerx.units.service;
+
+import com.brokerx.service.ExpiryWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryWheelTest {
+
+    private static final long TICK_MS = 1;
+    // Horizon de la roue : 4 niveaux de 64 cases
+    private static final long HORIZON_MS = TICK_MS * 64 * 64 * 64 * 64;
+
+    @Test
+    void testDeadlineBeyondHorizonExpiresOnTimeWithItsSymbol() {
+        // Given : deux échéances au-delà de l'horizon, rangées dans la même case du dernier niveau
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 0);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        long deadline = 2 * HORIZON_MS + 5;
+        assertTrue(wheel.add(first, "AAPL", deadline));
+        assertTrue(wheel.add(second, "MSFT", deadline + 1));
+        Map<UUID, String> expired = new HashMap<>();
+
+        // When : la case est cascadée sur elle-même avant l'échéance
+        wheel.advance(deadline - 1, (orderId, symbol) -> expired.put(orderId, symbol));
+
+        // Then : rien n'expire trop tôt, rien n'est perdu
+        assertTrue(expired.isEmpty());
+        assertEquals(2, wheel.size());
+
+        // When
+        wheel.advance(deadline + 2, (orderId, symbol) -> assertNull(expired.put(orderId, symbol)));
+
+        // Then : chaque ordre expire une seule fois, avec son symbole
+        assertEquals(Map.of(first, "AAPL", second, "MSFT"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testEntriesAcrossLevelsExpireWithinOneTick() {
+        // Given
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 1_000);
+        long[] delays = {1, 63, 64, 4_095, 4_096, 262_143, 262_144, HORIZON_MS - 1, HORIZON_MS};
+        Map<UUID, Long> deadlines = new HashMap<>();
+        for (long delay : delays) {
+            UUID orderId = UUID.randomUUID();
+            deadlines.put(orderId, 1_000 + delay);
+            assertTrue(wheel.add(orderId, "AAPL", 1_000 + delay));
+        }
+        Map<UUID, Long> expiredAt = new HashMap<>();
+
+        // When : avance par pas irréguliers jusqu'au-delà de la dernière échéance
+        long now = 1_000;
+        while (now < 1_000 + HORIZON_MS + 10) {
+            now += 997;
+            long advancedTo = now;
+            wheel.advance(now, (orderId, symbol) -> assertNull(expiredAt.put(orderId, advancedTo)));
+        }
+
+        // Then : chaque ordre expire au premier pas qui atteint son échéance, jamais avant
+        assertEquals(deadlines.keySet(), expiredAt.keySet());
+        deadlines.forEach((orderId, deadline) -> {
+            assertTrue(expiredAt.get(orderId) >= deadline);
+            assertTrue(expiredAt.get(orderId) < deadline + 997 + TICK_MS);
+        });
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineIsRefused() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 1_000);
+
+        assertFalse(wheel.add(UUID.randomUUID(), "AAPL", 1_000));
+        assertEquals(0, wheel.size());
+    }
+}
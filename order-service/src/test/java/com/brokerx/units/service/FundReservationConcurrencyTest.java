@@ -0,0 +1,136 @@
+package com.brokerx.units.service;
+
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.MarketDataService;
+import com.brokerx.service.ReservationJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FundReservationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Mock
+    private ReservationJournal journal;
+    @Mock
+    private MarketDataService marketDataService;
+
+    private FundReservationService reservationService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new FundReservationService(journal, marketDataService);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentReservesNeverExceedBalance() throws Exception {
+        // Given : 1000 disponibles, 64 achats de 30 lancés en même temps sur le même wallet
+        when(journal.getStats()).thenReturn(Map.of());
+        UUID walletId = UUID.randomUUID();
+        BigDecimal balance = new BigDecimal("1000.00");
+        BigDecimal amount = new BigDecimal("30.00");
+        int attempts = 64;
+
+        // When
+        List<Boolean> results = runConcurrently(attempts, i ->
+            reservationService.reserveIfAvailable(UUID.randomUUID(), walletId, balance, amount));
+
+        // Then : exactement 33 réservations passent, quel que soit l'entrelacement
+        long succeeded = results.stream().filter(Boolean::booleanValue).count();
+        assertEquals(33, succeeded);
+        assertEquals(0, amount.multiply(BigDecimal.valueOf(succeeded)).compareTo(reservationService.getTotalReserved(walletId)));
+        assertTrue(reservationService.getTotalReserved(walletId).compareTo(balance) <= 0);
+        assertEquals(attempts - succeeded, reservationService.getReservationStats().get("insufficientFunds"));
+    }
+
+    @Test
+    void testConcurrentReplacementsAndReservesNeverExceedBalance() throws Exception {
+        // Given : 10 ordres réservés à 10, puis 10 modifications à 50 et 20 nouveaux achats de 50 en parallèle
+        when(journal.getStats()).thenReturn(Map.of());
+        UUID walletId = UUID.randomUUID();
+        BigDecimal balance = new BigDecimal("500.00");
+        BigDecimal initial = new BigDecimal("10.00");
+        BigDecimal target = new BigDecimal("50.00");
+        List<UUID> existing = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            UUID orderId = UUID.randomUUID();
+            assertTrue(reservationService.reserveIfAvailable(orderId, walletId, balance, initial));
+            existing.add(orderId);
+        }
+        List<UUID> placed = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            placed.add(UUID.randomUUID());
+        }
+
+        // When
+        List<Boolean> results = runConcurrently(30, i -> i < 10
+            ? reservationService.replaceIfAvailable(existing.get(i), walletId, balance, target)
+            : reservationService.reserveIfAvailable(placed.get(i - 10), walletId, balance, target));
+
+        // Then : chaque ordre garde soit son ancienne réservation, soit la nouvelle, et le total reste couvert
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < 10; i++) {
+            BigDecimal reserved = reservationService.getReservedAmount(existing.get(i));
+            assertEquals(0, (results.get(i) ? target : initial).compareTo(reserved));
+            sum = sum.add(reserved);
+        }
+        for (int i = 0; i < 20; i++) {
+            BigDecimal reserved = reservationService.getReservedAmount(placed.get(i));
+            assertEquals(0, (results.get(i + 10) ? target : BigDecimal.ZERO).compareTo(reserved));
+            sum = sum.add(reserved);
+        }
+        assertEquals(0, sum.compareTo(reservationService.getTotalReserved(walletId)));
+        assertTrue(sum.compareTo(balance) <= 0);
+        long failed = results.stream().filter(ok -> !ok).count();
+        assertEquals(failed, reservationService.getReservationStats().get("insufficientFunds"));
+    }
+
+    private List<Boolean> runConcurrently(int tasks, Attempt attempt) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return attempt.run(index);
+            }));
+        }
+        start.countDown();
+        List<Boolean> results = new ArrayList<>(tasks);
+        for (Future<Boolean> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        boolean run(int index);
+    }
+}
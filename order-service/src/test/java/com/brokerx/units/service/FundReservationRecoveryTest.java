@@ -0,0 +1,153 @@
+package com.brokerx.units.service;
+
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.MarketDataService;
+import com.brokerx.service.ReservationJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FundReservationRecoveryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private MarketDataService marketDataService;
+
+    private final List<ResultSet> snapshotRows = new ArrayList<>();
+    private final List<ResultSet> journalRows = new ArrayList<>();
+
+    private ReservationJournal journal;
+    private FundReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> feed(invocation.getArgument(1), snapshotRows))
+            .when(jdbcTemplate).query(contains("FROM fund_reservation_snapshots"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> feed(invocation.getArgument(1), journalRows))
+            .when(jdbcTemplate).query(contains("FROM fund_reservation_journal ORDER BY seq"), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForObject(contains("GREATEST"), eq(Long.class))).thenReturn(42L);
+
+        journal = new ReservationJournal(jdbcTemplate, transactionTemplate);
+        ReflectionTestUtils.setField(journal, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(journal, "flushBatchSize", 500);
+        ReflectionTestUtils.setField(journal, "snapshotInterval", Duration.ofHours(1));
+        reservationService = new FundReservationService(journal, marketDataService);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        journal.stop();
+    }
+
+    @Test
+    void testJournalIsReplayedOnTopOfSnapshot() {
+        // Given : deux réservations au snapshot, puis la queue du journal
+        UUID wallet = UUID.randomUUID();
+        UUID otherWallet = UUID.randomUUID();
+        UUID partiallyFilled = UUID.randomUUID();
+        UUID cancelled = UUID.randomUUID();
+        UUID filled = UUID.randomUUID();
+        UUID placedAfterSnapshot = UUID.randomUUID();
+        snapshotRow(partiallyFilled, wallet, "100.0000");
+        snapshotRow(cancelled, wallet, "50.0000");
+        journalRow("CONSUME", partiallyFilled, wallet, "40.0000");
+        journalRow("RELEASE", cancelled, wallet, "50.0000");
+        journalRow("RESERVE", filled, otherWallet, "25.0000");
+        journalRow("CONSUME", filled, otherWallet, "25.0000");
+        journalRow("RESERVE", placedAfterSnapshot, wallet, "10.0000");
+
+        // When
+        reservationService.recover();
+
+        // Then
+        assertEquals(0, new BigDecimal("60").compareTo(reservationService.getReservedAmount(partiallyFilled)));
+        assertEquals(0, reservationService.getReservedAmount(cancelled).signum());
+        assertEquals(0, reservationService.getReservedAmount(filled).signum());
+        assertEquals(0, new BigDecimal("10").compareTo(reservationService.getReservedAmount(placedAfterSnapshot)));
+        assertEquals(0, new BigDecimal("70").compareTo(reservationService.getTotalReserved(wallet)));
+        assertEquals(0, reservationService.getTotalReserved(otherWallet).signum());
+    }
+
+    @Test
+    void testReplacedReservationKeepsLatestAmount() {
+        // Given : une modification d'ordre journalise RELEASE puis RESERVE pour le même ordre
+        UUID wallet = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+        journalRow("RESERVE", orderId, wallet, "100.0000");
+        journalRow("RELEASE", orderId, wallet, "100.0000");
+        journalRow("RESERVE", orderId, wallet, "30.0000");
+        journalRow("CONSUME", orderId, wallet, "5.0000");
+
+        // When
+        reservationService.recover();
+
+        // Then
+        assertEquals(0, new BigDecimal("25").compareTo(reservationService.getReservedAmount(orderId)));
+        assertEquals(0, new BigDecimal("25").compareTo(reservationService.getTotalReserved(wallet)));
+    }
+
+    @Test
+    void testSequenceResumesAfterRecoveredEvents() {
+        // Given
+        reservationService.recover();
+
+        // When
+        reservationService.reserveFunds(UUID.randomUUID(), UUID.randomUUID(), new BigDecimal("15.00"));
+
+        // Then : aucune séquence déjà persistée n'est réutilisée
+        assertEquals(43L, journal.getStats().get("lastSequence"));
+    }
+
+    private void snapshotRow(UUID orderId, UUID walletId, String amount) {
+        snapshotRows.add(row(null, orderId, walletId, amount));
+    }
+
+    private void journalRow(String eventType, UUID orderId, UUID walletId, String amount) {
+        journalRows.add(row(eventType, orderId, walletId, amount));
+    }
+
+    private static ResultSet row(String eventType, UUID orderId, UUID walletId, String amount) {
+        try {
+            ResultSet rs = mock(ResultSet.class);
+            if (eventType != null) {
+                when(rs.getString("event_type")).thenReturn(eventType);
+            }
+            when(rs.getObject("order_id", UUID.class)).thenReturn(orderId);
+            // Le wallet n'est lu que pour une réservation (snapshot ou RESERVE), pas pour CONSUME/RELEASE
+            lenient().when(rs.getObject("wallet_id", UUID.class)).thenReturn(walletId);
+            when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal(amount));
+            return rs;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Void feed(RowCallbackHandler handler, List<ResultSet> rows) throws Exception {
+        for (ResultSet rs : rows) {
+            handler.processRow(rs);
+        }
+        return null;
+    }
+}
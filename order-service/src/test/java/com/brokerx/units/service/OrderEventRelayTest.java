@@ -0,0 +1,131 @@
+package com.brokerx.units.service;
+
+import com.brokerx.dto.order.OrderEvent;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.service.OrderEventRelay;
+import com.brokerx.service.OrderEventSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventRelayTest {
+
+    @Mock
+    private OrderEventRepository orderEventRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ObjectProvider<OrderEventSubscriber> subscriberProvider;
+
+    private final List<List<Long>> deliveries = new CopyOnWriteArrayList<>();
+    private volatile boolean rejectNextDelivery;
+
+    private OrderEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        OrderEventSubscriber subscriber = new OrderEventSubscriber() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public void deliver(List<OrderEvent> events) {
+                if (rejectNextDelivery) {
+                    rejectNextDelivery = false;
+                    throw new IllegalStateException("subscriber unavailable");
+                }
+                deliveries.add(events.stream().map(OrderEvent::getEventId).toList());
+            }
+        };
+        when(subscriberProvider.orderedStream()).thenReturn(Stream.of(subscriber));
+
+        relay = new OrderEventRelay(orderEventRepository, transactionTemplate, subscriberProvider);
+        ReflectionTestUtils.setField(relay, "relayThreads", 1);
+        ReflectionTestUtils.setField(relay, "batchSize", 200);
+        ReflectionTestUtils.setField(relay, "pollIntervalMs", 10L);
+        ReflectionTestUtils.setField(relay, "retryDelayMs", 10L);
+        ReflectionTestUtils.setField(relay, "retention", Duration.ofHours(24));
+        ReflectionTestUtils.setField(relay, "purgeInterval", Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.stop();
+    }
+
+    @Test
+    void testEventsBehindForeignPendingEventAreDeferred() throws Exception {
+        // Given : l'événement 4 de l'ordre A est verrouillé par un autre relais
+        UUID orderA = UUID.randomUUID();
+        UUID orderB = UUID.randomUUID();
+        List<OrderEvent> batch = List.of(event(1, orderA), event(2, orderB), event(3, orderA), event(5, orderA));
+        when(orderEventRepository.lockPending(anyInt())).thenReturn(batch, List.of());
+        when(orderEventRepository.findForeignPending(batch)).thenReturn(Map.of(orderA, 4L));
+
+        // When
+        relay.start();
+        awaitDelivered(3);
+
+        // Then : livrés dans l'ordre des identifiants, l'événement 5 attend que le 4 soit publié
+        assertEquals(List.of(List.of(1L, 2L, 3L)), deliveries);
+        verify(orderEventRepository).markPublished(List.of(1L, 2L, 3L));
+        assertEquals(1L, relay.getStats().get("deferred"));
+    }
+
+    @Test
+    void testRejectedBatchIsRedeliveredBeforeLaterEvents() throws Exception {
+        // Given : le premier essai de livraison échoue
+        UUID orderId = UUID.randomUUID();
+        List<OrderEvent> batch = List.of(event(1, orderId), event(2, orderId));
+        when(orderEventRepository.lockPending(anyInt())).thenReturn(batch, batch, List.of(event(3, orderId)), List.of());
+        when(orderEventRepository.findForeignPending(any())).thenReturn(Map.of());
+        rejectNextDelivery = true;
+
+        // When
+        relay.start();
+        awaitDelivered(3);
+
+        // Then : rien n'est marqué publié pour le lot refusé, puis les événements repartent dans l'ordre
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), deliveries);
+        verify(orderEventRepository, times(1)).markPublished(List.of(1L, 2L));
+        assertEquals(1L, relay.getStats().get("failedBatches"));
+    }
+
+    private static OrderEvent event(long eventId, UUID orderId) {
+        return new OrderEvent(eventId, "FILL", orderId, UUID.randomUUID(), "AAPL", "BUY",
+                              10, null, "WORKING", 0, 10, LocalDateTime.now());
+    }
+
+    private void awaitDelivered(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) relay.getStats().get("delivered") < expected) {
+            assertTrue(System.nanoTime() < deadline, "Events not delivered in time");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
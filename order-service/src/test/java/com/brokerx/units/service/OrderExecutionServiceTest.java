@@ -0,0 +1,207 @@
+package com.brokerx.units.service;
+
+import com.brokerx.entity.Order;
+import com.brokerx.matching.BookOrder;
+import com.brokerx.repository.ExecutionDeadLetterRepository;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.repository.OrderRepository;
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.OrderExecutionService;
+import com.brokerx.service.UserEventBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExecutionServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private FundReservationService fundReservationService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private UserEventBus userEventBus;
+    @Mock
+    private OrderEventRepository orderEventRepository;
+    @Mock
+    private ExecutionDeadLetterRepository deadLetterRepository;
+
+    private OrderExecutionService executionService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        executionService = new OrderExecutionService(orderRepository, fundReservationService, transactionTemplate,
+                                                     userEventBus, orderEventRepository, deadLetterRepository,
+                                                     new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executionService, "batchSize", 256);
+        executionService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executionService.stop();
+    }
+
+    @Test
+    void testFillOfWorkingOrderConsumesReservation() throws Exception {
+        // Given
+        Order buy = order("BUY", "WORKING");
+        Order sell = order("SELL", "WORKING");
+        when(fundReservationService.getReservedAmount(buy.getOrderId())).thenReturn(new BigDecimal("1000.00"));
+
+        // When
+        executionService.onTrade("AAPL", bookOrder(buy), bookOrder(sell), 10000, 4);
+        awaitApplied(2);
+
+        // Then
+        assertEquals(4, buy.getFilledQuantity());
+        assertEquals(4, sell.getFilledQuantity());
+        verify(fundReservationService).consumeFunds(buy.getOrderId(), new BigDecimal("400.0000"));
+        verify(fundReservationService, never()).releaseFunds(any(), any());
+    }
+
+    @Test
+    void testFillArrivingAfterCancellationIsIgnored() throws Exception {
+        // Given : l'ordre a été annulé (fonds déjà libérés) avant que son exécution ne soit appliquée
+        Order cancelled = order("BUY", "CANCELLED");
+        Order sell = order("SELL", "WORKING");
+
+        // When
+        executionService.onTrade("AAPL", bookOrder(cancelled), bookOrder(sell), 10000, 10);
+        awaitApplied(2);
+
+        // Then : ni quantité ni statut ni réservation ne bougent pour l'ordre terminé
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertEquals(0, cancelled.getFilledQuantity());
+        verify(fundReservationService, never()).consumeFunds(eq(cancelled.getOrderId()), any());
+        verify(fundReservationService, never()).releaseFunds(eq(cancelled.getOrderId()), any());
+        assertEquals(1L, executionService.getStats().get("skippedExecutions"));
+        // La contrepartie encore active est bien exécutée
+        assertEquals("FILLED", sell.getStatus());
+    }
+
+    @Test
+    void testBookCancellationOfFilledOrderReleasesNothing() throws Exception {
+        // Given
+        Order filled = order("BUY", "WORKING");
+        filled.setFilledQuantity(10);
+        filled.setStatus("FILLED");
+
+        // When
+        executionService.onCancelled("AAPL", bookOrder(filled), 0);
+        awaitApplied(1);
+
+        // Then
+        assertEquals("FILLED", filled.getStatus());
+        verify(fundReservationService, never()).releaseFunds(any(), any());
+    }
+
+    @Test
+    void testExecutionThatKeepsFailingIsParkedNotDropped() throws Exception {
+        // Given : l'ordre acheteur ne peut pas être relu (base en échec), le vendeur si
+        Order sell = order("SELL", "WORKING");
+        UUID brokenOrderId = UUID.randomUUID();
+        when(orderRepository.findById(brokenOrderId)).thenThrow(new IllegalStateException("connection reset"));
+        BookOrder broken = new BookOrder().init(brokenOrderId, UUID.randomUUID(), null, true, false, 10000, 10);
+
+        // When
+        executionService.onTrade("AAPL", broken, bookOrder(sell), 10000, 10);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((Long) executionService.getStats().get("deadLetteredExecutions") < 1) {
+            assertTrue(System.nanoTime() < deadline, "Execution not parked in time");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        awaitApplied(1);
+
+        // Then : le lot est rejoué exécution par exécution, seule celle en échec est mise de côté
+        verify(deadLetterRepository).park(eq(brokenOrderId), eq(10), eq(10000L), eq(false), any());
+        assertEquals("FILLED", sell.getStatus());
+        assertEquals(1L, executionService.getStats().get("appliedExecutions"));
+    }
+
+    @Test
+    void testCancelIsAppliedAfterFillStillQueued() throws Exception {
+        // Given : le carnet a apparié 4 avant le retrait de l'ordre, l'exécution n'est pas encore appliquée
+        Order buy = order("BUY", "WORKING");
+        Order sell = order("SELL", "WORKING");
+        when(fundReservationService.getReservedAmount(buy.getOrderId())).thenReturn(new BigDecimal("1000.00"));
+        executionService.onTrade("AAPL", bookOrder(buy), bookOrder(sell), 10000, 4);
+
+        // When
+        Order cancelled = executionService.cancel(buy.getOrderId()).get(5, TimeUnit.SECONDS);
+
+        // Then : l'exécution est comptée et payée avant que le reste ne soit annulé et libéré
+        assertEquals("CANCELLED", cancelled.getStatus());
+        assertEquals(4, cancelled.getFilledQuantity());
+        InOrder funds = inOrder(fundReservationService);
+        funds.verify(fundReservationService).consumeFunds(buy.getOrderId(), new BigDecimal("400.0000"));
+        funds.verify(fundReservationService).releaseFunds(buy.getOrderId(), null);
+        assertEquals(0L, executionService.getStats().get("skippedExecutions"));
+    }
+
+    @Test
+    void testAwaitPendingReturnsOnceQueuedExecutionsAreApplied() throws Exception {
+        // Given
+        Order buy = order("BUY", "WORKING");
+        Order sell = order("SELL", "WORKING");
+        executionService.onTrade("AAPL", bookOrder(buy), bookOrder(sell), 10000, 10);
+
+        // When
+        boolean caughtUp = executionService.awaitPending(5000);
+
+        // Then
+        assertTrue(caughtUp);
+        assertEquals("FILLED", buy.getStatus());
+        assertEquals("FILLED", sell.getStatus());
+    }
+
+    private Order order(String side, String status) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID());
+        order.setAccountId(UUID.randomUUID());
+        order.setClientOrderId("C-" + order.getOrderId());
+        order.setSymbol("AAPL");
+        order.setSide(side);
+        order.setOrderType("LIMIT");
+        order.setTimeInForce("DAY");
+        order.setQuantity(10);
+        order.setPrice(new BigDecimal("100.00"));
+        order.setStatus(status);
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        return order;
+    }
+
+    private static BookOrder bookOrder(Order order) {
+        return new BookOrder().init(order.getOrderId(), order.getAccountId(), null,
+                                    "BUY".equals(order.getSide()), false, 10000, order.getQuantity());
+    }
+
+    private void awaitApplied(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((Long) executionService.getStats().get("appliedExecutions") < expected) {
+            assertTrue(System.nanoTime() < deadline, "Executions not applied in time");
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.brokerx.units.service;
+
+import com.brokerx.dto.order.CancelAllOrdersRequest;
+import com.brokerx.dto.order.CancelAllOrdersResponse;
+import com.brokerx.dto.order.OrderModificationResponse;
+import com.brokerx.entity.Order;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.repository.OrderQueryRepository;
+import com.brokerx.repository.OrderRepository;
+import com.brokerx.service.AccountContextCache;
+import com.brokerx.service.AuditService;
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.OrderExecutionService;
+import com.brokerx.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceCancelTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private MatchingEngine matchingEngine;
+    @Mock
+    private FundReservationService fundReservationService;
+    @Mock
+    private AccountContextCache accountContextCache;
+    @Mock
+    private OrderQueryRepository orderQueryRepository;
+    @Mock
+    private AuditService auditService;
+    @Mock
+    private OrderExecutionService orderExecutionService;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCancelRefusedWhenOrderIsNoLongerInBook() {
+        // Given : le moteur vient d'exécuter l'ordre, son exécution n'est pas encore appliquée
+        Order order = workingBuyOrder();
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(matchingEngine.cancel("AAPL", order.getOrderId())).thenReturn(0);
+
+        // When
+        OrderModificationResponse response = orderService.cancelOrder(order.getOrderId());
+
+        // Then : ni fonds libérés ni statut CANCELLED
+        assertFalse(response.isSuccess());
+        assertEquals("WORKING", order.getStatus());
+        verify(fundReservationService, never()).releaseFunds(any(), any());
+        verify(orderRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCancelRefusedWhenMatchingEngineDoesNotAnswer() {
+        // Given
+        Order order = workingBuyOrder();
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(matchingEngine.cancel("AAPL", order.getOrderId())).thenThrow(new IllegalStateException("timeout"));
+
+        // When
+        OrderModificationResponse response = orderService.cancelOrder(order.getOrderId());
+
+        // Then
+        assertFalse(response.isSuccess());
+        verify(fundReservationService, never()).releaseFunds(any(), any());
+    }
+
+    @Test
+    void testCancelIsFinalisedByExecutionWriter() {
+        // Given : une exécution partielle était encore en file au moment du retrait
+        Order order = workingBuyOrder();
+        Order applied = workingBuyOrder();
+        applied.setOrderId(order.getOrderId());
+        applied.setFilledQuantity(4);
+        applied.setStatus("CANCELLED");
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(matchingEngine.cancel("AAPL", order.getOrderId())).thenReturn(10);
+        when(orderExecutionService.cancel(order.getOrderId())).thenReturn(CompletableFuture.completedFuture(applied));
+
+        // When
+        OrderModificationResponse response = orderService.cancelOrder(order.getOrderId());
+
+        // Then : l'état final vient de l'écrivain, qui a compté l'exécution avant de libérer le reste
+        assertTrue(response.isSuccess());
+        assertEquals(4, response.getOrder().getFilledQuantity());
+        verify(orderRepository, never()).saveAndFlush(any());
+        verify(fundReservationService, never()).releaseFunds(any(), any());
+    }
+
+    @Test
+    void testCancelAllSkipsOrdersNoLongerInBook() throws Exception {
+        // Given : deux ordres actifs en base, le moteur vient d'exécuter le second
+        UUID accountId = UUID.randomUUID();
+        UUID resting = UUID.randomUUID();
+        UUID justFilled = UUID.randomUUID();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("trader@brokerx.com", null, List.of()));
+        when(accountContextCache.get("trader@brokerx.com")).thenReturn(
+            new AccountContextCache.AccountContext(UUID.randomUUID(), accountId, "ACTIVE", UUID.randomUUID()));
+        when(orderQueryRepository.findActive(accountId, null, null)).thenReturn(List.of(
+            new OrderQueryRepository.ActiveOrder(resting, "AAPL"),
+            new OrderQueryRepository.ActiveOrder(justFilled, "AAPL")));
+        when(matchingEngine.removeAll("AAPL", List.of(resting, justFilled))).thenReturn(List.of(resting));
+        when(fundReservationService.releaseAll(any())).thenReturn(BigDecimal.ZERO);
+        when(orderExecutionService.awaitPending(anyLong())).thenReturn(true);
+
+        // When
+        CancelAllOrdersResponse response = orderService.cancelAllOrders(new CancelAllOrdersRequest());
+
+        // Then : seul l'ordre retiré du carnet est annulé en base
+        assertTrue(response.isSuccess());
+        verify(orderQueryRepository).cancelActive(List.of(resting), "Order cancelled", "CANCEL");
+    }
+
+    @Test
+    void testCancelAllHandsOverToWriterWhenExecutionsLag() throws Exception {
+        // Given : l'écrivain n'a pas rattrapé les exécutions en file dans le délai
+        UUID accountId = UUID.randomUUID();
+        UUID resting = UUID.randomUUID();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("trader@brokerx.com", null, List.of()));
+        when(accountContextCache.get("trader@brokerx.com")).thenReturn(
+            new AccountContextCache.AccountContext(UUID.randomUUID(), accountId, "ACTIVE", UUID.randomUUID()));
+        when(orderQueryRepository.findActive(accountId, null, null)).thenReturn(List.of(
+            new OrderQueryRepository.ActiveOrder(resting, "AAPL")));
+        when(matchingEngine.removeAll("AAPL", List.of(resting))).thenReturn(List.of(resting));
+        when(orderExecutionService.awaitPending(anyLong())).thenReturn(false);
+
+        // When
+        CancelAllOrdersResponse response = orderService.cancelAllOrders(new CancelAllOrdersRequest());
+
+        // Then : pas d'UPDATE sur un état en retard, l'annulation est terminée derrière les exécutions
+        assertTrue(response.isSuccess());
+        verify(orderExecutionService).cancel(resting);
+        verify(orderQueryRepository, never()).cancelActive(any(), any(), any());
+        verify(fundReservationService, never()).releaseAll(any());
+    }
+
+    private static Order workingBuyOrder() {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID());
+        order.setAccountId(UUID.randomUUID());
+        order.setClientOrderId("C-1");
+        order.setSymbol("AAPL");
+        order.setSide("BUY");
+        order.setOrderType("LIMIT");
+        order.setTimeInForce("DAY");
+        order.setQuantity(10);
+        order.setPrice(new BigDecimal("100.00"));
+        order.setStatus("WORKING");
+        return order;
+    }
+}
@@ -0,0 +1,131 @@
+package com.brokerx.units.service;
+
+import com.brokerx.dto.order.OrderModificationResponse;
+import com.brokerx.entity.Order;
+import com.brokerx.matching.MatchingEngine;
+import com.brokerx.repository.OrderEventRepository;
+import com.brokerx.repository.OrderRepository;
+import com.brokerx.service.AuditService;
+import com.brokerx.service.FundReservationService;
+import com.brokerx.service.OrderService;
+import com.brokerx.service.OrderValidationService;
+import com.brokerx.service.OrderValidationService.ValidationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceModifyTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private MatchingEngine matchingEngine;
+    @Mock
+    private FundReservationService fundReservationService;
+    @Mock
+    private OrderEventRepository orderEventRepository;
+    @Mock
+    private AuditService auditService;
+    @Mock
+    private OrderValidationService validationService;
+
+    @InjectMocks
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        // modifyOrder s'exécute normalement dans une transaction : resoumission au carnet après complétion
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testModifyRefusedWhenFillIsStillQueued() {
+        // Given : 10 au repos d'après la base, mais le carnet n'en avait plus que 6 (exécution de 4 en file)
+        Order order = workingOrder("SELL");
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(validationService.validateModification("AAPL", "LIMIT", 20, order.getPrice()))
+            .thenReturn(ValidationResult.success("ok"));
+        when(matchingEngine.cancel("AAPL", order.getOrderId())).thenReturn(6);
+
+        // When
+        OrderModificationResponse response = orderService.modifyOrder(order.getOrderId(), 20, null);
+
+        // Then : refus, et seul le reste réel retourne au carnet
+        assertFalse(response.isSuccess());
+        assertTrue(response.getMessage().contains("Filled: 4"));
+        verify(matchingEngine).restore(order, 6);
+        verify(orderRepository, never()).saveAndFlush(any());
+        assertEquals(10, order.getQuantity());
+    }
+
+    @Test
+    void testModifyAppliedWhenBookMatchesDatabase() {
+        // Given
+        Order order = workingOrder("SELL");
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(validationService.validateModification("AAPL", "LIMIT", 20, new BigDecimal("101.00")))
+            .thenReturn(ValidationResult.success("ok"));
+        when(matchingEngine.cancel("AAPL", order.getOrderId())).thenReturn(10);
+        when(orderRepository.saveAndFlush(order)).thenReturn(order);
+
+        // When
+        OrderModificationResponse response = orderService.modifyOrder(order.getOrderId(), 20, new BigDecimal("101.00"));
+
+        // Then
+        assertTrue(response.isSuccess());
+        assertEquals(20, order.getQuantity());
+        verify(matchingEngine, never()).restore(any(), anyInt());
+        verify(orderEventRepository).record(order, "MODIFY");
+    }
+
+    @Test
+    void testModifyRejectedByInstrumentRulesLeavesBookUntouched() {
+        // Given : prix plus fin que le pas de cotation
+        Order order = workingOrder("BUY");
+        when(orderRepository.findById(order.getOrderId())).thenReturn(Optional.of(order));
+        when(validationService.validateModification("AAPL", "LIMIT", 10, new BigDecimal("150.005")))
+            .thenReturn(ValidationResult.failure("Price must be multiple of 0.01"));
+
+        // When
+        OrderModificationResponse response = orderService.modifyOrder(order.getOrderId(), null, new BigDecimal("150.005"));
+
+        // Then
+        assertFalse(response.isSuccess());
+        assertEquals("Price must be multiple of 0.01", response.getMessage());
+        verifyNoInteractions(matchingEngine, fundReservationService);
+    }
+
+    private static Order workingOrder(String side) {
+        Order order = new Order();
+        order.setOrderId(UUID.randomUUID());
+        order.setAccountId(UUID.randomUUID());
+        order.setClientOrderId("C-1");
+        order.setSymbol("AAPL");
+        order.setSide(side);
+        order.setOrderType("LIMIT");
+        order.setTimeInForce("DAY");
+        order.setQuantity(10);
+        order.setPrice(new BigDecimal("100.00"));
+        order.setStatus("WORKING");
+        return order;
+    }
+}
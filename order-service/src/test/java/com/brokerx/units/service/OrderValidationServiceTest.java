@@ -0,0 +1,86 @@
+package com.brokerx.units.service;
+
+import com.brokerx.service.InstrumentIndex;
+import com.brokerx.service.OrderValidationService;
+import com.brokerx.service.OrderValidationService.ValidationResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderValidationServiceTest {
+
+    @Mock
+    private InstrumentIndex instrumentIndex;
+
+    private OrderValidationService validationService;
+
+    @BeforeEach
+    void setUp() {
+        validationService = new OrderValidationService(instrumentIndex);
+    }
+
+    @Test
+    void testModificationPriceMustRespectTickSize() {
+        // Given
+        when(instrumentIndex.find("AAPL")).thenReturn(instrument("ACTIVE"));
+
+        // When
+        ValidationResult result = validationService.validateModification("AAPL", "LIMIT", 10, new BigDecimal("150.005"));
+
+        // Then : refusé plutôt qu'arrondi différemment par le carnet et la base
+        assertFalse(result.isValid());
+        assertEquals("Price must be multiple of 0.01", result.getMessage());
+    }
+
+    @Test
+    void testModificationQuantityMustRespectLotAndOrderValue() {
+        // Given
+        when(instrumentIndex.find("AAPL")).thenReturn(instrument("ACTIVE"));
+
+        // When
+        ValidationResult oddLot = validationService.validateModification("AAPL", "LIMIT", 15, new BigDecimal("150.00"));
+        ValidationResult tooLarge = validationService.validateModification("AAPL", "LIMIT", 1000, new BigDecimal("150.00"));
+
+        // Then
+        assertEquals("Quantity must be a multiple of lot size 10", oddLot.getMessage());
+        assertEquals("Order value exceeds maximum: 100000.00", tooLarge.getMessage());
+    }
+
+    @Test
+    void testModificationRefusedWhileTradingIsHalted() {
+        // Given
+        when(instrumentIndex.find("AAPL")).thenReturn(instrument("HALTED"));
+
+        // When
+        ValidationResult result = validationService.validateModification("AAPL", "LIMIT", 10, new BigDecimal("150.00"));
+
+        // Then
+        assertFalse(result.isValid());
+        assertEquals("Trading is halted for symbol: AAPL", result.getMessage());
+    }
+
+    @Test
+    void testModificationWithinInstrumentRulesIsAccepted() {
+        // Given
+        when(instrumentIndex.find("AAPL")).thenReturn(instrument("ACTIVE"));
+
+        // When
+        ValidationResult result = validationService.validateModification("AAPL", "LIMIT", 20, new BigDecimal("150.01"));
+
+        // Then
+        assertTrue(result.isValid());
+    }
+
+    private static InstrumentIndex.Instrument instrument(String tradingStatus) {
+        return new InstrumentIndex.Instrument("AAPL", new BigDecimal("0.01"), 10, 10, 10_000,
+            new BigDecimal("1.00"), new BigDecimal("10000.00"), new BigDecimal("100000.00"), tradingStatus);
+    }
+}
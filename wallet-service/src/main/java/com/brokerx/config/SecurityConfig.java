@@ -1,6 +1,7 @@
 package com.brokerx.config;
 
 import com.brokerx.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -35,14 +36,20 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             .and()
             .authorizeHttpRequests(authz -> authz
+                // Flux SSE : la requête initiale est déjà authentifiée
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/wallets/account/**").permitAll()
                 .requestMatchers("/wallets").permitAll()
+                // Flux interne : protégé par le jeton de service (X-Internal-Token), pas par un JWT utilisateur
+                .requestMatchers("/wallets/changes").permitAll()
                 .requestMatchers("/swagger-ui/**").permitAll()
                 .requestMatchers("/v3/api-docs/**").permitAll()
                 .requestMatchers("/api-docs/**").permitAll()
                 
                 .requestMatchers("/wallets/my-wallet").authenticated()
+                .requestMatchers("/wallets/events").authenticated()
+                .requestMatchers("/wallets/events/ticket").authenticated()
                 .requestMatchers("/wallets/deposit").authenticated()
                 .requestMatchers("/wallets/withdraw").authenticated()
                 .requestMatchers("/transactions/**").authenticated()
@@ -1,31 +1,65 @@
 package com.brokerx.controller;
 
 import com.brokerx.dto.transaction.TransactionDto;
-import com.brokerx.entity.Transaction;
+import com.brokerx.dto.transaction.TransactionPageResponse;
+import com.brokerx.repository.TransactionQueryRepository;
 import com.brokerx.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
 
+    private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
+
+    private static final String CSV_HEADER =
+        "transaction_id,wallet_id,created_at,transaction_type,amount,status,settled_at,failure_reason";
+
     private final TransactionRepository transactionRepository;
+    private final TransactionQueryRepository transactionQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transaction.query.max-page-size:500}")
+    private int maxPageSize;
 
-    public TransactionController(TransactionRepository transactionRepository) {
+    public TransactionController(TransactionRepository transactionRepository,
+                                 TransactionQueryRepository transactionQueryRepository,
+                                 ObjectMapper objectMapper) {
         this.transactionRepository = transactionRepository;
+        this.transactionQueryRepository = transactionQueryRepository;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
     public List<TransactionDto> getAllTransactions() {
-        return transactionRepository.findAll()
-                .stream()
-                .map(TransactionDto::new)
-                .collect(Collectors.toList());
+        return transactionQueryRepository.findAll(null);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<TransactionPageResponse> getTransactionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return page(null, cursor, limit);
     }
 
     @GetMapping("/{id}")
@@ -37,9 +71,120 @@ public class TransactionController {
 
     @GetMapping("/wallet/{walletId}")
     public List<TransactionDto> getTransactionsByWalletId(@PathVariable UUID walletId) {
-        return transactionRepository.findByWallet_WalletId(walletId)
-                .stream()
-                .map(TransactionDto::new)
-                .collect(Collectors.toList());
+        return transactionQueryRepository.findAll(walletId);
+    }
+
+    @GetMapping("/wallet/{walletId}/page")
+    public ResponseEntity<TransactionPageResponse> getTransactionsPageByWalletId(
+            @PathVariable UUID walletId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return page(walletId, cursor, limit);
+    }
+
+    /**
+     * Relevé du wallet sur [from, to[ (ISO-8601, heure locale du service ; {@code to} par défaut maintenant),
+     * en CSV ou NDJSON, écrit au fil du curseur JDBC : la mémoire utilisée ne dépend pas de la période.
+     */
+    @GetMapping(value = "/wallet/{walletId}/statement", produces = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> getStatement(
+            @PathVariable UUID walletId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (!from.isBefore(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = "statement-" + walletId + "." + (csv ? "csv" : "ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(csv ? csvStatement(walletId, from, end) : ndjsonStatement(walletId, from, end));
+    }
+
+    private ResponseEntity<TransactionPageResponse> page(UUID walletId, String cursor, int limit) {
+        try {
+            TransactionQueryRepository.Cursor after = cursor != null && !cursor.isBlank()
+                ? TransactionQueryRepository.Cursor.decode(cursor)
+                : null;
+            int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+            TransactionQueryRepository.Page page = transactionQueryRepository.findPage(walletId, after, pageSize);
+            return ResponseEntity.ok(new TransactionPageResponse(
+                page.transactions(), page.next() != null ? page.next().encode() : null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private StreamingResponseBody ndjsonStatement(UUID walletId, LocalDateTime from, LocalDateTime to) {
+        return outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                long count = transactionQueryRepository.streamStatement(walletId, from, to, transaction -> {
+                    try {
+                        writer.write(transaction);
+                    } catch (IOException e) {
+                        // Client déconnecté : l'exception interrompt le parcours du curseur
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (count > 0) {
+                    outputStream.write('\n');
+                }
+                logger.info("Streamed statement of {} transactions (walletId={})", count, walletId);
+            } catch (UncheckedIOException e) {
+                logger.warn("Statement stream aborted (walletId={}): {}", walletId, e.getCause().getMessage());
+            }
+        };
+    }
+
+    private StreamingResponseBody csvStatement(UUID walletId, LocalDateTime from, LocalDateTime to) {
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                long count = transactionQueryRepository.streamStatement(walletId, from, to, transaction -> {
+                    try {
+                        writer.write(csvLine(transaction));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+                logger.info("Streamed statement of {} transactions (walletId={})", count, walletId);
+            } catch (UncheckedIOException e) {
+                logger.warn("Statement stream aborted (walletId={}): {}", walletId, e.getCause().getMessage());
+            }
+        };
+    }
+
+    private static String csvLine(TransactionDto transaction) {
+        return String.join(",",
+            transaction.getTransactionId().toString(),
+            transaction.getWalletId().toString(),
+            transaction.getCreatedAt().toString(),
+            transaction.getTransactionType(),
+            transaction.getAmount().toPlainString(),
+            transaction.getStatus(),
+            transaction.getSettledAt() != null ? transaction.getSettledAt().toString() : "",
+            csvField(transaction.getFailureReason())) + "\n";
+    }
+
+    // Seul le motif d'échec est du texte libre : guillemets RFC 4180 si nécessaire
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
     }
-}
\ No newline at end of file
+}
@@ -3,17 +3,30 @@ package com.brokerx.controller;
 import com.brokerx.dto.wallet.WalletDto;
 import com.brokerx.dto.payment.PaymentResult;
 import com.brokerx.entity.Wallet;
+import com.brokerx.security.StreamTicketService;
+import com.brokerx.service.LedgerService;
+import com.brokerx.service.UserEventBus;
+import com.brokerx.service.WalletOutbox;
 import com.brokerx.service.WalletService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import jakarta.servlet.http.HttpServletRequest;
 
 import com.brokerx.dto.CreateWalletRequest;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,19 +39,29 @@ public class WalletController {
     private static final Logger logger = LoggerFactory.getLogger(WalletController.class);
     private final WalletService walletService;
     private final RestTemplate restTemplate;
+    private final UserEventBus userEventBus;
+    private final WalletOutbox walletOutbox;
+    private final StreamTicketService streamTicketService;
+
+    @Value("${internal.service-token}")
+    private String internalServiceToken;
     
     private static final String ACCOUNT_SERVICE_URL = "http://account-service:8081";
 
-    public WalletController(WalletService walletService, RestTemplate restTemplate) {
+    public WalletController(WalletService walletService, RestTemplate restTemplate, UserEventBus userEventBus,
+                            WalletOutbox walletOutbox, StreamTicketService streamTicketService) {
         this.walletService = walletService;
         this.restTemplate = restTemplate;
+        this.userEventBus = userEventBus;
+        this.walletOutbox = walletOutbox;
+        this.streamTicketService = streamTicketService;
     }
     
     @GetMapping
     public List<WalletDto> getAllWallets() {
         return walletService.getAllWallets()
                             .stream()
-                            .map(WalletDto::new)
+                            .map(this::toDto)
                             .toList();
     }
     @PostMapping
@@ -83,12 +106,12 @@ public class WalletController {
                 if ("ACTIVE".equals(status)) {
                     wallet = walletService.createWallet(accountId);
                     logger.info("Created new wallet on-the-fly for account: {}", accountId);
-                    return ResponseEntity.ok(new WalletDto(wallet));
+                    return ResponseEntity.ok(toDto(wallet));
                 }
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok(new WalletDto(wallet));
+            return ResponseEntity.ok(toDto(wallet));
             
         } catch (Exception e) {
             logger.error("Error fetching wallet for user: {}", email, e);
@@ -97,17 +120,66 @@ public class WalletController {
     }
     
     
+    /**
+     * Ticket à usage unique pour ouvrir le flux SSE : la requête porte le JWT en en-tête,
+     * seul le ticket apparaît ensuite dans l'URL d'EventSource.
+     */
+    @PostMapping("/events/ticket")
+    public ResponseEntity<Map<String, Object>> issueEventsTicket(Authentication authentication,
+                                                                 HttpServletRequest request) {
+        if (authentication == null || !(request.getAttribute("userId") instanceof UUID userId)) {
+            return ResponseEntity.status(401).build();
+        }
+        String ticket = streamTicketService.issue(authentication.getName(), userId, authentication.getAuthorities());
+        return ResponseEntity.ok(Map.of(
+            "ticket", ticket,
+            "expiresInSeconds", streamTicketService.getTtl().toSeconds()
+        ));
+    }
+
+    /**
+     * Flux SSE des changements de solde du portefeuille de l'utilisateur, ouvert avec un ticket (paramètre ticket).
+     * Le userId du JWT évite la recherche par email : un seul appel vers account-service.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(Authentication authentication, HttpServletRequest request) {
+        if (authentication == null || !(request.getAttribute("userId") instanceof UUID userId)) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            Map<String, Object> account = restTemplate.getForObject(
+                ACCOUNT_SERVICE_URL + "/accounts/user/" + userId, Map.class);
+            if (account == null) {
+                return ResponseEntity.notFound().build();
+            }
+            Wallet wallet = walletService.getWalletByAccountId(UUID.fromString((String) account.get("accountId")));
+            if (wallet == null) {
+                return ResponseEntity.notFound().build();
+            }
+            logger.info("SSE subscription opened: walletId={}", wallet.getWalletId());
+            return ResponseEntity.ok(userEventBus.subscribe(wallet.getWalletId()));
+        } catch (Exception e) {
+            logger.error("Error opening wallet event stream for user: {}", authentication.getName(), e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+    
     @PostMapping("/deposit")
     public ResponseEntity<Map<String, Object>> deposit(@RequestParam String walletId, 
                                                        @RequestParam Double amount,
-                                                       @RequestParam(defaultValue = "CARD") String paymentMethod) {
+                                                       @RequestParam(defaultValue = "CARD") String paymentMethod,
+                                                       @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        ResponseEntity<Map<String, Object>> invalidAmount = validateAmount(amount);
+        if (invalidAmount != null) {
+            return invalidAmount;
+        }
         try {
             UUID uuid = UUID.fromString(walletId);
             
             logger.info("Deposit request received: walletId={}, amount={}, paymentMethod={}", 
                        walletId, amount, paymentMethod);
             
-            PaymentResult result = walletService.deposit(uuid, amount, paymentMethod);
+            PaymentResult result = walletService.deposit(uuid, amount, paymentMethod, idempotencyKey);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", result.isSuccess());
@@ -146,14 +218,19 @@ public class WalletController {
     @PostMapping("/withdraw")
     public ResponseEntity<Map<String, Object>> withdraw(@RequestParam String walletId, 
                                                         @RequestParam Double amount,
-                                                        @RequestParam(defaultValue = "BANK_TRANSFER") String paymentMethod) {
+                                                        @RequestParam(defaultValue = "BANK_TRANSFER") String paymentMethod,
+                                                        @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        ResponseEntity<Map<String, Object>> invalidAmount = validateAmount(amount);
+        if (invalidAmount != null) {
+            return invalidAmount;
+        }
         try {
             UUID uuid = UUID.fromString(walletId);
             
             logger.info("Withdrawal request received: walletId={}, amount={}, paymentMethod={}", 
                        walletId, amount, paymentMethod);
             
-            PaymentResult result = walletService.withdraw(uuid, amount, paymentMethod);
+            PaymentResult result = walletService.withdraw(uuid, amount, paymentMethod, idempotencyKey);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", result.isSuccess());
@@ -188,6 +265,23 @@ public class WalletController {
             return ResponseEntity.internalServerError().body(errorResponse);
         }
     }
+
+    /**
+     * Montant strictement positif, au centime près : la base le stocke en NUMERIC(15, 2) et le grand livre
+     * refuse d'arrondir.
+     */
+    private static ResponseEntity<Map<String, Object>> validateAmount(Double amount) {
+        if (amount != null && Double.isFinite(amount) && amount > 0
+                && BigDecimal.valueOf(amount).stripTrailingZeros().scale() <= LedgerService.AMOUNT_SCALE) {
+            return null;
+        }
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("message", "Montant invalide : positif, au plus " + LedgerService.AMOUNT_SCALE + " décimales");
+        errorResponse.put("status", "INVALID_AMOUNT");
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+
     @GetMapping("/account/{accountId}")
     public ResponseEntity<WalletDto> getWalletByAccountId(@PathVariable UUID accountId) {
         logger.info("Internal request to find wallet for accountId: {}", accountId);
@@ -195,6 +289,41 @@ public class WalletController {
         if (wallet == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(new WalletDto(wallet));
+        return ResponseEntity.ok(toDto(wallet));
+    }
+
+    /**
+     * Solde disponible courant, ou tel qu'il était à {@code at} (ISO-8601, heure locale du service).
+     */
+    @GetMapping("/{walletId}/balance")
+    public ResponseEntity<Map<String, Object>> getBalance(@PathVariable UUID walletId,
+                                                          @RequestParam(required = false)
+                                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        BigDecimal balance = at == null ? walletService.getCurrentBalance(walletId) : walletService.getBalanceAt(walletId, at);
+        Map<String, Object> response = new HashMap<>();
+        response.put("walletId", walletId);
+        response.put("balance", balance);
+        response.put("at", at != null ? at : LocalDateTime.now());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Flux interne des changements de solde (outbox), lu par curseur par la projection d'order-service.
+     * Réservé aux services : jeton partagé dans l'en-tête X-Internal-Token (le port du service est joignable
+     * hors de la gateway). Sans {@code after}, seule la tête du flux est renvoyée.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Map<String, Object>> getChanges(@RequestParam(defaultValue = "-1") long after,
+                                                          @RequestParam(defaultValue = "500") int limit,
+                                                          @RequestHeader(value = "X-Internal-Token", required = false) String internalToken) {
+        if (internalToken == null || !MessageDigest.isEqual(internalToken.getBytes(StandardCharsets.UTF_8),
+                                                            internalServiceToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(walletOutbox.readAfter(after, limit));
+    }
+
+    private WalletDto toDto(Wallet wallet) {
+        return new WalletDto(wallet, walletService.getCurrentBalance(wallet.getWalletId()));
     }
-}
\ No newline at end of file
+}
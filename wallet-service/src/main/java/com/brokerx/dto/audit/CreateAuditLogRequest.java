@@ -1,5 +1,6 @@
 package com.brokerx.wallet.dto.audit;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
 
@@ -10,4 +11,5 @@ public class CreateAuditLogRequest {
     public UUID performedBy;
     public String ipAddress;
     public Map<String, Object> details;
+    public LocalDateTime performedAt;
 }
\ No newline at end of file
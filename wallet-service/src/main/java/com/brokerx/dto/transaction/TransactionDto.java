@@ -12,9 +12,24 @@ public class TransactionDto {
     private String transactionType;
     private String status;
     private LocalDateTime createdAt;
+    private LocalDateTime settledAt;
+    private String failureReason;
     
     public TransactionDto() {}
     
+    // Projection lue directement en JDBC, sans entité
+    public TransactionDto(UUID transactionId, UUID walletId, BigDecimal amount, String transactionType, String status,
+                          LocalDateTime createdAt, LocalDateTime settledAt, String failureReason) {
+        this.transactionId = transactionId;
+        this.walletId = walletId;
+        this.amount = amount;
+        this.transactionType = transactionType;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.settledAt = settledAt;
+        this.failureReason = failureReason;
+    }
+    
     public TransactionDto(Transaction transaction) {
         this.transactionId = transaction.getTransactionId();
         this.walletId = transaction.getWallet().getWalletId();
@@ -22,6 +37,8 @@ public class TransactionDto {
         this.transactionType = transaction.getTransactionType();
         this.status = transaction.getStatus();
         this.createdAt = transaction.getCreatedAt();
+        this.settledAt = transaction.getSettledAt();
+        this.failureReason = transaction.getFailureReason();
     }
     
     // Getters/Setters
@@ -37,4 +54,8 @@ public class TransactionDto {
     public void setStatus(String status) { this.status = status; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getSettledAt() { return settledAt; }
+    public void setSettledAt(LocalDateTime settledAt) { this.settledAt = settledAt; }
+    public String getFailureReason() { return failureReason; }
+    public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
 }
\ No newline at end of file
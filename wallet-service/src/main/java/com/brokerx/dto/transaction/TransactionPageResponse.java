@@ -0,0 +1,23 @@
+package com.brokerx.dto.transaction;
+
+import java.util.List;
+
+public class TransactionPageResponse {
+    private List<TransactionDto> transactions;
+    private int count;
+    private boolean hasMore;
+    private String nextCursor;
+
+    public TransactionPageResponse(List<TransactionDto> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.count = transactions.size();
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters
+    public List<TransactionDto> getTransactions() { return transactions; }
+    public int getCount() { return count; }
+    public boolean isHasMore() { return hasMore; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -12,10 +12,10 @@ public class WalletDto {
     
     public WalletDto() {}
     
-    public WalletDto(Wallet wallet) {
+    public WalletDto(Wallet wallet, BigDecimal balance) {
         this.walletId = wallet.getWalletId();
         this.accountId = wallet.getAccountId();
-        this.balance = wallet.getBalance();
+        this.balance = balance;
         this.currency = wallet.getCurrency();
     }
     
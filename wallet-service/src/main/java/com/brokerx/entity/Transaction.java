@@ -11,7 +11,7 @@ import java.util.UUID;
        uniqueConstraints = {
            @UniqueConstraint(columnNames = "idempotency_key")
        })
-@Check(constraints = "amount > 0 AND transaction_type IN ('DEPOSIT', 'WITHDRAWAL') AND status IN ('PENDING', 'SETTLED', 'FAILED')")
+@Check(constraints = "amount > 0 AND transaction_type IN ('DEPOSIT', 'WITHDRAWAL') AND status IN ('PENDING', 'SETTLED', 'FAILED', 'REVIEW')")
 public class Transaction {
 
     @Id
@@ -44,6 +44,13 @@ public class Transaction {
     @Column(name = "failure_reason", columnDefinition = "TEXT")
     private String failureReason;
 
+    @Column(name = "payment_method", length = 30)
+    private String paymentMethod;
+
+    // Référence du prestataire, connue au règlement
+    @Column(name = "payment_reference", length = 255)
+    private String paymentReference;
+
     public Transaction() {}
 
     // Getters/Setters
@@ -74,7 +81,8 @@ public class Transaction {
 
     public String getStatus() { return status; }
     public void setStatus(String status) {
-        if (!status.equals("PENDING") && !status.equals("SETTLED") && !status.equals("FAILED")) {
+        if (!status.equals("PENDING") && !status.equals("SETTLED") && !status.equals("FAILED")
+                && !status.equals("REVIEW")) {
             throw new IllegalArgumentException("Invalid status");
         }
         this.status = status;
@@ -85,4 +93,8 @@ public class Transaction {
     public void setSettledAt(LocalDateTime settledAt) { this.settledAt = settledAt; }
     public String getFailureReason() { return failureReason; }
     public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+    public String getPaymentReference() { return paymentReference; }
+    public void setPaymentReference(String paymentReference) { this.paymentReference = paymentReference; }
 }
\ No newline at end of file
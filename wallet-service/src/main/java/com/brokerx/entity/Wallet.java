@@ -2,13 +2,13 @@ package com.brokerx.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.Check;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Pas de colonne de solde : il se déduit du grand livre (LedgerService)
 @Entity
 @Table(name = "wallets")
-@Check(constraints = "balance >= 0 AND currency = 'USD'")
+@Check(constraints = "currency = 'USD'")
 public class Wallet {
 
     @Id
@@ -19,9 +19,6 @@ public class Wallet {
     @Column(name = "account_id", nullable = false)
     private UUID accountId;
 
-    @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal balance = BigDecimal.ZERO;
-
     @Column(nullable = false, length = 3)
     private String currency = "USD";
 
@@ -40,15 +37,6 @@ public class Wallet {
     public UUID getAccountId() { return accountId; }
     public void setAccountId(UUID accountId) { this.accountId = accountId; }
 
-    public BigDecimal getBalance() { return balance; }
-    public void setBalance(BigDecimal balance) {
-        if (balance.compareTo(BigDecimal.ZERO) < 0) {
-            throw new IllegalArgumentException("Balance cannot be negative");
-        }
-        this.balance = balance;
-        this.updatedAt = LocalDateTime.now();
-    }
-
     public String getCurrency() { return currency; }
     public void setCurrency(String currency) {
         if (!currency.equals("USD")) {
@@ -0,0 +1,154 @@
+package com.brokerx.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grand livre en JDBC : écritures en ajout seul (insertion par lot) et instantanés de solde.
+ * Un solde se lit toujours comme dernier instantané + somme de la queue, par l'index
+ * (wallet_id, ledger_account, entry_id) : le coût dépend de la queue, pas de l'historique.
+ */
+@Repository
+public class LedgerRepository {
+
+    private static final String INSERT_ENTRY =
+        "INSERT INTO ledger_entries (journal_id, wallet_id, ledger_account, entry_type, amount, reference_id) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_BALANCE =
+        "SELECT COALESCE(s.balance, 0) + COALESCE((" +
+        "    SELECT SUM(e.amount) FROM ledger_entries e " +
+        "    WHERE e.wallet_id = ? AND e.ledger_account = ? AND e.entry_id > COALESCE(s.last_entry_id, 0)" +
+        "), 0) " +
+        "FROM (SELECT 1) AS one LEFT JOIN LATERAL (" +
+        "    SELECT last_entry_id, balance FROM balance_snapshots " +
+        "    WHERE wallet_id = ? AND ledger_account = ? ORDER BY last_entry_id DESC LIMIT 1" +
+        ") s ON true";
+
+    private static final String SELECT_BALANCE_AT =
+        "SELECT COALESCE(s.balance, 0) + COALESCE((" +
+        "    SELECT SUM(e.amount) FROM ledger_entries e " +
+        "    WHERE e.wallet_id = ? AND e.ledger_account = ? AND e.entry_id > COALESCE(s.last_entry_id, 0) " +
+        "    AND e.created_at <= ?" +
+        "), 0) " +
+        "FROM (SELECT 1) AS one LEFT JOIN LATERAL (" +
+        "    SELECT last_entry_id, balance FROM balance_snapshots " +
+        "    WHERE wallet_id = ? AND ledger_account = ? AND taken_at <= ? ORDER BY last_entry_id DESC LIMIT 1" +
+        ") s ON true";
+
+    // Un instantané par compte actif entre les deux bornes, cumulé sur le précédent
+    private static final String INSERT_SNAPSHOTS =
+        "WITH active AS (" +
+        "    SELECT DISTINCT wallet_id, ledger_account FROM ledger_entries WHERE entry_id > ? AND entry_id <= ?" +
+        "), latest AS (" +
+        "    SELECT a.wallet_id, a.ledger_account, s.last_entry_id, s.balance FROM active a " +
+        "    LEFT JOIN LATERAL (" +
+        "        SELECT last_entry_id, balance FROM balance_snapshots s " +
+        "        WHERE s.wallet_id = a.wallet_id AND s.ledger_account = a.ledger_account " +
+        "        ORDER BY last_entry_id DESC LIMIT 1" +
+        "    ) s ON true" +
+        ") " +
+        "INSERT INTO balance_snapshots (wallet_id, ledger_account, last_entry_id, balance) " +
+        "SELECT l.wallet_id, l.ledger_account, t.last_entry_id, COALESCE(l.balance, 0) + t.amount FROM latest l " +
+        "JOIN LATERAL (" +
+        "    SELECT MAX(e.entry_id) AS last_entry_id, SUM(e.amount) AS amount FROM ledger_entries e " +
+        "    WHERE e.wallet_id = l.wallet_id AND e.ledger_account = l.ledger_account " +
+        "    AND e.entry_id > COALESCE(l.last_entry_id, 0) AND e.entry_id <= ?" +
+        ") t ON t.last_entry_id IS NOT NULL";
+
+    // Dernière écriture des comptes tenus (AVAILABLE, HELD) d'un wallet : deux descentes d'index
+    private static final String SELECT_LAST_HELD_ENTRY =
+        "SELECT GREATEST(" +
+        "    (SELECT MAX(entry_id) FROM ledger_entries WHERE wallet_id = ? AND ledger_account = 'AVAILABLE'), " +
+        "    (SELECT MAX(entry_id) FROM ledger_entries WHERE wallet_id = ? AND ledger_account = 'HELD'))";
+
+    // Au-delà de la rétention, on ne garde que le dernier instantané de chaque jour
+    private static final String THIN_SNAPSHOTS =
+        "DELETE FROM balance_snapshots s WHERE s.taken_at < ? AND EXISTS (" +
+        "    SELECT 1 FROM balance_snapshots n " +
+        "    WHERE n.wallet_id = s.wallet_id AND n.ledger_account = s.ledger_account " +
+        "    AND n.taken_at::date = s.taken_at::date AND n.last_entry_id > s.last_entry_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LedgerRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insère les écritures d'un journal en un seul lot. À appeler dans la transaction du mouvement.
+     */
+    public void insertJournal(UUID journalId, UUID walletId, String entryType, String referenceId,
+                              List<String> accounts, List<BigDecimal> amounts) {
+        List<Object[]> rows = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            rows.add(new Object[] {journalId, walletId, accounts.get(i), entryType, amounts.get(i), referenceId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+    }
+
+    /**
+     * Verrou consultatif Postgres sur le wallet, libéré au commit ou au rollback. À appeler dans la
+     * transaction du mouvement : sérialise les journaux d'un wallet entre instances de wallet-service.
+     */
+    public void lockWallet(UUID walletId) {
+        long key = walletId.getMostSignificantBits() ^ walletId.getLeastSignificantBits();
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> { }, key);
+    }
+
+    /**
+     * Identifiant de la dernière écriture AVAILABLE ou HELD du wallet (0 si aucune).
+     */
+    public long lastHeldEntryId(UUID walletId) {
+        Long last = jdbcTemplate.queryForObject(SELECT_LAST_HELD_ENTRY, Long.class, walletId, walletId);
+        return last != null ? last : 0L;
+    }
+
+    public BigDecimal balance(UUID walletId, String account) {
+        return jdbcTemplate.queryForObject(SELECT_BALANCE, BigDecimal.class, walletId, account, walletId, account)
+            .setScale(2);
+    }
+
+    public BigDecimal balanceAt(UUID walletId, String account, LocalDateTime at) {
+        Timestamp timestamp = Timestamp.valueOf(at);
+        return jdbcTemplate.queryForObject(SELECT_BALANCE_AT, BigDecimal.class,
+                                           walletId, account, timestamp, walletId, account, timestamp).setScale(2);
+    }
+
+    public UUID findAccountId(UUID walletId) {
+        List<UUID> accountIds = jdbcTemplate.queryForList(
+            "SELECT account_id FROM wallets WHERE wallet_id = ?", UUID.class, walletId);
+        return accountIds.isEmpty() ? null : accountIds.get(0);
+    }
+
+    public long maxEntryId() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(entry_id), 0) FROM ledger_entries", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    public long maxSnapshotEntryId() {
+        Long max = jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(last_entry_id), 0) FROM balance_snapshots", Long.class);
+        return max != null ? max : 0L;
+    }
+
+    /**
+     * Instantané des comptes ayant des écritures dans ]from, to].
+     *
+     * @return nombre d'instantanés ajoutés
+     */
+    public int snapshot(long fromEntryId, long toEntryId) {
+        return jdbcTemplate.update(INSERT_SNAPSHOTS, fromEntryId, toEntryId, toEntryId);
+    }
+
+    public int thinSnapshotsBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update(THIN_SNAPSHOTS, Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,109 @@
+package com.brokerx.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * File des transactions PENDING en JDBC. Chaque instruction est courte et autocommitée :
+ * aucune connexion n'est tenue pendant l'appel au prestataire de paiement.
+ */
+@Repository
+public class SettlementRepository {
+
+    // Réclame un lot sous bail ; SKIP LOCKED laisse les workers concurrents prendre les lignes suivantes
+    private static final String CLAIM =
+        "UPDATE transactions t SET claimed_until = now() + ? * interval '1 millisecond', attempts = t.attempts + 1 " +
+        "FROM (" +
+        "    SELECT transaction_id FROM transactions " +
+        "    WHERE status = 'PENDING' AND (claimed_until IS NULL OR claimed_until < now()) " +
+        "    ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED" +
+        ") claimed " +
+        "WHERE t.transaction_id = claimed.transaction_id " +
+        "RETURNING t.transaction_id, t.idempotency_key, t.wallet_id, t.amount, t.transaction_type, t.payment_method, t.attempts, " +
+        "t.gateway_status, t.payment_reference, t.gateway_message";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SettlementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<PendingTransaction> claim(int limit, long leaseMs) {
+        return jdbcTemplate.query(CLAIM, (rs, rowNum) -> new PendingTransaction(
+            rs.getObject("transaction_id", UUID.class),
+            rs.getString("idempotency_key"),
+            rs.getObject("wallet_id", UUID.class),
+            rs.getBigDecimal("amount"),
+            rs.getString("transaction_type"),
+            rs.getString("payment_method"),
+            rs.getInt("attempts"),
+            rs.getString("gateway_status"),
+            rs.getString("payment_reference"),
+            rs.getString("gateway_message")
+        ), leaseMs, limit);
+    }
+
+    /**
+     * Enregistre la réponse du prestataire avant toute écriture au grand livre.
+     *
+     * @return false si la transaction n'est plus PENDING ou qu'un résultat est déjà enregistré
+     */
+    public boolean recordGatewayResult(UUID transactionId, String gatewayStatus, String paymentReference,
+                                       String gatewayMessage) {
+        return jdbcTemplate.update(
+            "UPDATE transactions SET gateway_status = ?, payment_reference = ?, gateway_message = ? " +
+            "WHERE transaction_id = ? AND status = 'PENDING' AND gateway_status IS NULL",
+            gatewayStatus, paymentReference, gatewayMessage, transactionId) == 1;
+    }
+
+    /**
+     * @return false si la transaction n'est plus PENDING (réglée par un autre worker après expiration du bail)
+     */
+    public boolean markSettled(UUID transactionId, String paymentReference) {
+        return jdbcTemplate.update(
+            "UPDATE transactions SET status = 'SETTLED', settled_at = now(), payment_reference = ?, claimed_until = NULL " +
+            "WHERE transaction_id = ? AND status = 'PENDING'", paymentReference, transactionId) == 1;
+    }
+
+    public boolean markFailed(UUID transactionId, String reason) {
+        return jdbcTemplate.update(
+            "UPDATE transactions SET status = 'FAILED', settled_at = now(), failure_reason = ?, claimed_until = NULL " +
+            "WHERE transaction_id = ? AND status = 'PENDING'", reason, transactionId) == 1;
+    }
+
+    /**
+     * Sort la transaction de la file pour analyse manuelle ; les fonds restent où ils sont.
+     */
+    public boolean markForReview(UUID transactionId, String reason) {
+        return jdbcTemplate.update(
+            "UPDATE transactions SET status = 'REVIEW', failure_reason = ?, claimed_until = NULL " +
+            "WHERE transaction_id = ? AND status = 'PENDING'", reason, transactionId) == 1;
+    }
+
+    /**
+     * Remet la transaction en file après {@code delayMs} (prestataire injoignable, application en échec).
+     */
+    public void retryLater(UUID transactionId, long delayMs) {
+        jdbcTemplate.update(
+            "UPDATE transactions SET claimed_until = now() + ? * interval '1 millisecond' " +
+            "WHERE transaction_id = ? AND status = 'PENDING'", delayMs, transactionId);
+    }
+
+    /**
+     * @param key clé d'idempotence, transmise au prestataire et reprise comme référence des journaux du grand livre
+     * @param gatewayStatus réponse du prestataire déjà enregistrée lors d'un tour précédent, null sinon
+     */
+    public record PendingTransaction(UUID transactionId, String key, UUID walletId, BigDecimal amount, String type,
+                                     String paymentMethod, int attempts, String gatewayStatus,
+                                     String gatewayReference, String gatewayMessage) {
+
+        public PendingTransaction withGatewayResult(String status, String reference, String message) {
+            return new PendingTransaction(transactionId, key, walletId, amount, type, paymentMethod, attempts,
+                                          status, reference, message);
+        }
+    }
+}
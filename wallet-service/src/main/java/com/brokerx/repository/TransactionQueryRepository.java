@@ -0,0 +1,145 @@
+package com.brokerx.repository;
+
+import com.brokerx.dto.transaction.TransactionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Lectures de l'historique des transactions en JDBC, projetées directement en TransactionDto
+ * (ni entité ni proxy de wallet). Pagination par curseur (keyset) sur (created_at, transaction_id),
+ * du plus récent au plus ancien, servie par idx_transactions_wallet_created / idx_transactions_created.
+ */
+@Repository
+public class TransactionQueryRepository {
+
+    private static final String SELECT_COLUMNS =
+        "SELECT transaction_id, wallet_id, amount, transaction_type, status, created_at, settled_at, failure_reason " +
+        "FROM transactions";
+
+    private static final String ORDER_BY = " ORDER BY created_at DESC, transaction_id DESC";
+
+    private static final RowMapper<TransactionDto> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp settledAt = rs.getTimestamp("settled_at");
+        return new TransactionDto(
+            rs.getObject("transaction_id", UUID.class),
+            rs.getObject("wallet_id", UUID.class),
+            rs.getBigDecimal("amount"),
+            rs.getString("transaction_type"),
+            rs.getString("status"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            settledAt != null ? settledAt.toLocalDateTime() : null,
+            rs.getString("failure_reason")
+        );
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TransactionQueryRepository(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${transaction.query.stream-fetch-size:500}") int streamFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Template dédié : le fetch size ne doit pas s'appliquer aux autres requêtes du service
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(streamFetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Toutes les transactions d'un wallet (null = tous les wallets), la plus récente d'abord.
+     */
+    public List<TransactionDto> findAll(UUID walletId) {
+        if (walletId == null) {
+            return jdbcTemplate.query(SELECT_COLUMNS + ORDER_BY, ROW_MAPPER);
+        }
+        return jdbcTemplate.query(SELECT_COLUMNS + " WHERE wallet_id = ?" + ORDER_BY, ROW_MAPPER, walletId);
+    }
+
+    /**
+     * Une page d'au plus {@code limit} transactions strictement après {@code after} (null = première page).
+     * Une ligne de plus est lue pour savoir s'il reste des résultats.
+     */
+    public Page findPage(UUID walletId, Cursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS);
+        if (walletId != null) {
+            sql.append(" WHERE wallet_id = ?");
+            args.add(walletId);
+        }
+        if (after != null) {
+            sql.append(args.isEmpty() ? " WHERE" : " AND").append(" (created_at, transaction_id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.transactionId());
+        }
+        sql.append(ORDER_BY).append(" LIMIT ?");
+        args.add(limit + 1);
+
+        List<TransactionDto> rows = jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+        if (rows.size() <= limit) {
+            return new Page(rows, null);
+        }
+        List<TransactionDto> page = rows.subList(0, limit);
+        TransactionDto last = page.get(limit - 1);
+        return new Page(page, new Cursor(last.getCreatedAt(), last.getTransactionId()));
+    }
+
+    /**
+     * Relevé d'un wallet sur [from, to[, dans l'ordre chronologique, via un curseur serveur :
+     * PostgreSQL ne respecte le fetch size qu'hors autocommit, d'où la transaction en lecture seule.
+     * Chaque ligne est remise au consommateur puis oubliée.
+     */
+    public long streamStatement(UUID walletId, LocalDateTime from, LocalDateTime to, Consumer<TransactionDto> consumer) {
+        String sql = SELECT_COLUMNS + " WHERE wallet_id = ? AND created_at >= ? AND created_at < ?" +
+                     " ORDER BY created_at, transaction_id";
+
+        Long count = readOnlyTransaction.execute(tx -> {
+            long[] rows = {0L};
+            streamingJdbcTemplate.query(sql, rs -> {
+                consumer.accept(ROW_MAPPER.mapRow(rs, (int) rows[0]));
+                rows[0]++;
+            }, walletId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+            return rows[0];
+        });
+        return count != null ? count : 0L;
+    }
+
+    public record Page(List<TransactionDto> transactions, Cursor next) {}
+
+    /**
+     * Position opaque pour le client : (created_at, transaction_id) de la dernière transaction renvoyée, en Base64 URL.
+     */
+    public record Cursor(LocalDateTime createdAt, UUID transactionId) {
+
+        public String encode() {
+            String raw = createdAt + "|" + transactionId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                  UUID.fromString(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
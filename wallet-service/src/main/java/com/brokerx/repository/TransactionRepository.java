@@ -3,8 +3,10 @@ package com.brokerx.repository;
 import com.brokerx.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
     List<Transaction> findByWallet_WalletId(UUID walletId);
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
 }
@@ -0,0 +1,58 @@
+package com.brokerx.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tickets d'ouverture des flux SSE. EventSource ne peut pas envoyer d'en-tête Authorization : le client
+ * échange son JWT (en-tête) contre un ticket aléatoire, à usage unique et de courte durée, passé dans l'URL.
+ * Le JWT n'apparaît ainsi ni dans les URL, ni dans les journaux d'accès, ni dans l'historique du navigateur.
+ */
+@Component
+public class StreamTicketService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    @Value("${events.ticket-ttl:PT30S}")
+    private Duration ttl;
+
+    public String issue(String email, UUID userId, Collection<? extends GrantedAuthority> authorities) {
+        long now = System.currentTimeMillis();
+        // Les tickets jamais utilisés ne s'accumulent pas
+        tickets.values().removeIf(ticket -> ticket.expiresAt() <= now);
+
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(value, new Ticket(email, userId, List.copyOf(authorities), now + ttl.toMillis()));
+        return value;
+    }
+
+    /**
+     * Consomme le ticket : un second usage (reconnexion automatique d'EventSource comprise) est refusé.
+     *
+     * @return le titulaire du ticket, ou null s'il est inconnu, expiré ou déjà utilisé
+     */
+    public Ticket redeem(String value) {
+        Ticket ticket = tickets.remove(value);
+        return ticket != null && ticket.expiresAt() > System.currentTimeMillis() ? ticket : null;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public record Ticket(String email, UUID userId, List<GrantedAuthority> authorities, long expiresAt) {}
+}
@@ -0,0 +1,253 @@
+package com.brokerx.service;
+
+import com.brokerx.wallet.dto.audit.CreateAuditLogRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expédition asynchrone des logs d'audit vers account-service.
+ * Les appelants déposent dans un tampon borné (sans I/O) ; un thread unique draine par lots
+ * vers POST /audit/batch. Si account-service est indisponible ou le tampon plein,
+ * les événements sont déversés sur disque (JSON lines) puis rejoués au retour du service.
+ */
+@Component
+public class AuditShipper {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditShipper.class);
+
+    private static final String ACCOUNT_SERVICE_URL = "http://account-service:8081";
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${audit.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${audit.retry-interval-ms:5000}")
+    private long retryIntervalMs;
+
+    @Value("${audit.spill-file:${java.io.tmpdir}/brokerx-audit/wallet-service.jsonl}")
+    private String spillFile;
+
+    private BlockingQueue<CreateAuditLogRequest> buffer;
+    private Path spillPath;
+    // ReentrantLock plutôt que synchronized : pas d'épinglage des threads virtuels pendant l'I/O disque
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private Counter enqueued;
+    private Counter shipped;
+    private Counter spilled;
+    private Counter dropped;
+    private Counter shipFailures;
+
+    private volatile boolean running;
+    private volatile boolean accountServiceDown;
+    private Thread shipper;
+
+    public AuditShipper(RestTemplate restTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        spillPath = Paths.get(spillFile);
+
+        Gauge.builder("audit.buffer.size", buffer, BlockingQueue::size)
+             .description("Audit events waiting to be shipped")
+             .register(meterRegistry);
+        Gauge.builder("audit.buffer.remaining", buffer, BlockingQueue::remainingCapacity)
+             .description("Free slots in the audit buffer")
+             .register(meterRegistry);
+        enqueued = meterRegistry.counter("audit.events", "outcome", "enqueued");
+        shipped = meterRegistry.counter("audit.events", "outcome", "shipped");
+        spilled = meterRegistry.counter("audit.events", "outcome", "spilled");
+        dropped = meterRegistry.counter("audit.events", "outcome", "dropped");
+        shipFailures = meterRegistry.counter("audit.ship.failures");
+
+        running = true;
+        shipper = new Thread(this::shipLoop, "audit-shipper");
+        shipper.setDaemon(true);
+        shipper.start();
+    }
+
+    /**
+     * Ne bloque jamais : si le tampon est plein, l'événement part directement sur disque.
+     */
+    public void enqueue(CreateAuditLogRequest request) {
+        if (buffer.offer(request)) {
+            enqueued.increment();
+            return;
+        }
+        spill(List.of(request));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (shipper != null) {
+            shipper.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        // Ce que le thread n'a pas pu expédier est conservé sur disque pour le prochain démarrage
+        List<CreateAuditLogRequest> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    private void shipLoop() {
+        List<CreateAuditLogRequest> batch = new ArrayList<>(batchSize);
+        long nextReplayAt = System.nanoTime();
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                CreateAuditLogRequest first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                    if (accountServiceDown) {
+                        spill(batch);
+                    } else if (!send(batch)) {
+                        spill(batch);
+                    }
+                    batch.clear();
+                }
+
+                if (running && System.nanoTime() - nextReplayAt >= 0) {
+                    replaySpill();
+                    nextReplayAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                spill(batch);
+                return;
+            }
+        }
+    }
+
+    private boolean send(List<CreateAuditLogRequest> batch) {
+        try {
+            restTemplate.postForObject(ACCOUNT_SERVICE_URL + "/audit/batch", batch, Void.class);
+            shipped.increment(batch.size());
+            accountServiceDown = false;
+            return true;
+        } catch (Exception e) {
+            shipFailures.increment();
+            if (!accountServiceDown) {
+                logger.warn("Account-service unreachable, audit events spilled to {}: {}", spillPath, e.getMessage());
+            }
+            accountServiceDown = true;
+            return false;
+        }
+    }
+
+    /**
+     * Rejoue le fichier de débordement. Le fichier est d'abord renommé pour que les
+     * déversements concurrents repartent dans un fichier neuf.
+     */
+    private void replaySpill() {
+        Path replaying = spillPath.resolveSibling(spillPath.getFileName() + ".replay");
+        try {
+            spillLock.lock();
+            try {
+                if (!Files.exists(replaying)) {
+                    if (!Files.exists(spillPath)) {
+                        accountServiceDown = false;
+                        return;
+                    }
+                    Files.move(spillPath, replaying, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+
+            List<CreateAuditLogRequest> batch = new ArrayList<>(batchSize);
+            long replayed = 0;
+            try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    batch.add(objectMapper.readValue(line, CreateAuditLogRequest.class));
+                    if (batch.size() == batchSize) {
+                        if (!send(batch)) {
+                            // Le fichier est rejoué en entier au prochain essai : livraison au moins une fois
+                            return;
+                        }
+                        replayed += batch.size();
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty() && !send(batch)) {
+                return;
+            }
+            replayed += batch.size();
+            Files.delete(replaying);
+            logger.info("Replayed {} spilled audit events", replayed);
+        } catch (IOException e) {
+            logger.error("Failed to replay spilled audit events: {}", e.getMessage());
+        }
+    }
+
+    private void spill(List<CreateAuditLogRequest> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        spillLock.lock();
+        try {
+            try {
+                Files.createDirectories(spillPath.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (CreateAuditLogRequest event : events) {
+                        writer.write(objectMapper.writeValueAsString(event));
+                        writer.newLine();
+                    }
+                }
+                spilled.increment(events.size());
+            } catch (IOException e) {
+                dropped.increment(events.size());
+                logger.error("Failed to spill {} audit events, dropping them: {}", events.size(), e.getMessage());
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.payment.PaymentResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Clés d'idempotence récentes des dépôts et retraits → résultat renvoyé au premier appel.
+ * Une rejouée servie d'ici ne touche ni la base ni le chemin de paiement ; hors cache (expirée,
+ * évincée, autre instance), l'index unique de transactions.idempotency_key reste l'autorité.
+ *
+ * LRU borné (ordre d'accès) avec durée de vie ; un verrou court protège la map.
+ */
+@Component
+public class IdempotencyCache {
+
+    @Value("${idempotency.max-size:100000}")
+    private int maxSize;
+
+    @Value("${idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public Entry get(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Entry put(String key, String type, BigDecimal amount, PaymentResult result) {
+        Entry entry = new Entry(type, amount, result, System.nanoTime() + ttl.toNanos());
+        lock.lock();
+        try {
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+        return entry;
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        return Map.of(
+            "size", size,
+            "maxSize", maxSize,
+            "ttlSeconds", ttl.toSeconds(),
+            "hits", hits.sum(),
+            "misses", misses.sum(),
+            "evictions", evictions.sum()
+        );
+    }
+
+    /**
+     * @param type   DEPOSIT ou WITHDRAWAL : une clé réutilisée pour une autre opération est refusée
+     * @param amount montant de la requête d'origine, même contrôle
+     */
+    public record Entry(String type, BigDecimal amount, PaymentResult result, long expiresAtNanos) {
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+
+        public boolean matches(String otherType, BigDecimal otherAmount) {
+            return type.equals(otherType) && amount.compareTo(otherAmount) == 0;
+        }
+    }
+}
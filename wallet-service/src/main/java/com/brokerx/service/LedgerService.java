@@ -0,0 +1,274 @@
+package com.brokerx.service;
+
+import com.brokerx.repository.LedgerRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Soldes des wallets tenus en partie double dans ledger_entries (ajout seul, aucune ligne chaude).
+ *
+ * Chaque wallet a un accumulateur en mémoire (AVAILABLE, HELD), chargé depuis le dernier instantané
+ * + la queue, puis tenu à jour à chaque journal commité. Les journaux d'un même wallet sont sérialisés
+ * dans l'instance par le verrou de son accumulateur, et entre instances par un verrou consultatif
+ * Postgres pris dans la transaction du journal (aucun verrou de ligne). Sous ce verrou, l'accumulateur
+ * n'est réutilisé que si la dernière écriture du wallet est celle qu'il a vue ; sinon une autre instance
+ * a écrit et il est relu depuis la base avant le contrôle de découvert.
+ *
+ * Un thread ajoute périodiquement des instantanés (compactage de la queue) et éclaircit les anciens.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    // Comptes côté wallet (soldes tenus, jamais négatifs) et contreparties
+    public static final String AVAILABLE = "AVAILABLE";
+    public static final String HELD = "HELD";
+    public static final String EXTERNAL = "EXTERNAL";
+    public static final String TRADING = "TRADING";
+    public static final String FEES = "FEES";
+
+    // Échelle de ledger_entries.amount et transactions.amount (NUMERIC(15, 2))
+    public static final int AMOUNT_SCALE = 2;
+
+    private final LedgerRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletOutbox walletOutbox;
+    private final Map<UUID, WalletLedger> ledgers = new ConcurrentHashMap<>();
+
+    @Value("${ledger.snapshot-interval:PT10M}")
+    private Duration snapshotInterval;
+
+    @Value("${ledger.snapshot-retention:P30D}")
+    private Duration snapshotRetention;
+
+    private final LongAdder journals = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    private ScheduledExecutorService compactor;
+    // Borne haute du dernier compactage ; la suivante est le max relevé au tour précédent,
+    // pour que les écritures couvertes par un instantané soient toutes commitées
+    private long compactedUpTo;
+    private long nextHorizon = -1;
+
+    public LedgerService(LedgerRepository ledgerRepository,
+                         TransactionTemplate transactionTemplate,
+                         WalletOutbox walletOutbox) {
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.walletOutbox = walletOutbox;
+    }
+
+    @PostConstruct
+    public void start() {
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = snapshotInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compact, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+        }
+    }
+
+    /**
+     * Journal à deux jambes : {@code amount} passe du compte {@code from} au compte {@code to}.
+     */
+    public static List<Leg> transfer(String from, String to, BigDecimal amount) {
+        return List.of(new Leg(from, amount.negate()), new Leg(to, amount));
+    }
+
+    /**
+     * Enregistre un journal sur un wallet dans une transaction courte : écritures par lot, outbox,
+     * puis {@code inTransaction} (qui reçoit le nouveau solde disponible) pour les écritures liées.
+     *
+     * @return le nouveau solde disponible, ou null si un compte du wallet deviendrait négatif
+     * @throws RuntimeException si le wallet n'existe pas
+     */
+    public BigDecimal post(UUID walletId, String entryType, String referenceId, List<Leg> legs,
+                           Consumer<BigDecimal> inTransaction) {
+        BigDecimal total = BigDecimal.ZERO;
+        BigDecimal availableDelta = BigDecimal.ZERO;
+        BigDecimal heldDelta = BigDecimal.ZERO;
+        for (Leg leg : legs) {
+            total = total.add(leg.amount());
+            if (AVAILABLE.equals(leg.account())) {
+                availableDelta = availableDelta.add(leg.amount());
+            } else if (HELD.equals(leg.account())) {
+                heldDelta = heldDelta.add(leg.amount());
+            }
+        }
+        if (total.signum() != 0) {
+            throw new IllegalArgumentException("Unbalanced journal: " + legs);
+        }
+
+        BigDecimal availableChange = availableDelta;
+        BigDecimal heldChange = heldDelta;
+        WalletLedger ledger = ledgers.computeIfAbsent(walletId, id -> new WalletLedger());
+        ledger.lock.lock();
+        try {
+            Posted posted;
+            try {
+                posted = transactionTemplate.execute(status -> {
+                    ledgerRepository.lockWallet(walletId);
+                    load(walletId, ledger, ledgerRepository.lastHeldEntryId(walletId));
+                    BigDecimal available = ledger.available.add(availableChange);
+                    BigDecimal held = ledger.held.add(heldChange);
+                    if (available.signum() < 0 || held.signum() < 0) {
+                        return null;
+                    }
+                    ledgerRepository.insertJournal(UUID.randomUUID(), walletId, entryType, referenceId,
+                                                   legs.stream().map(Leg::account).toList(),
+                                                   legs.stream().map(Leg::amount).toList());
+                    walletOutbox.record(walletId, ledger.accountId, available);
+                    if (inTransaction != null) {
+                        inTransaction.accept(available);
+                    }
+                    return new Posted(available, held, ledgerRepository.lastHeldEntryId(walletId));
+                });
+            } catch (RuntimeException e) {
+                // Issue du commit incertaine : l'accumulateur sera relu depuis la base
+                ledger.loaded = false;
+                throw e;
+            }
+            if (posted == null) {
+                rejected.increment();
+                return null;
+            }
+            ledger.available = posted.available();
+            ledger.held = posted.held();
+            ledger.lastEntryId = posted.lastEntryId();
+            journals.increment();
+            return posted.available();
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    public BigDecimal available(UUID walletId) {
+        WalletLedger ledger = ledgers.computeIfAbsent(walletId, id -> new WalletLedger());
+        ledger.lock.lock();
+        try {
+            load(walletId, ledger, ledgerRepository.lastHeldEntryId(walletId));
+            return ledger.available;
+        } finally {
+            ledger.lock.unlock();
+        }
+    }
+
+    /**
+     * Solde disponible tel qu'il était à {@code at} : instantané antérieur + écritures jusqu'à cet instant.
+     */
+    public BigDecimal availableAt(UUID walletId, LocalDateTime at) {
+        return ledgerRepository.balanceAt(walletId, AVAILABLE, at);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "wallets", ledgers.size(),
+            "journals", journals.sum(),
+            "rejected", rejected.sum(),
+            "loads", loads.sum(),
+            "snapshots", snapshots.sum()
+        );
+    }
+
+    /**
+     * Sous le verrou de l'accumulateur : aucun journal de ce wallet n'est en vol dans l'instance.
+     * {@code lastEntryId} est la dernière écriture AVAILABLE/HELD en base ; si elle diffère de celle
+     * vue par l'accumulateur, une autre instance a écrit le wallet et les soldes sont relus.
+     */
+    private void load(UUID walletId, WalletLedger ledger, long lastEntryId) {
+        if (ledger.loaded && ledger.lastEntryId == lastEntryId) {
+            return;
+        }
+        UUID accountId = ledgerRepository.findAccountId(walletId);
+        if (accountId == null) {
+            ledgers.remove(walletId, ledger);
+            throw new RuntimeException("Wallet non trouvé");
+        }
+        ledger.accountId = accountId;
+        ledger.available = ledgerRepository.balance(walletId, AVAILABLE);
+        ledger.held = ledgerRepository.balance(walletId, HELD);
+        ledger.lastEntryId = lastEntryId;
+        ledger.loaded = true;
+        loads.increment();
+    }
+
+    private void compact() {
+        try {
+            if (nextHorizon < 0) {
+                compactedUpTo = ledgerRepository.maxSnapshotEntryId();
+                nextHorizon = ledgerRepository.maxEntryId();
+                return;
+            }
+            long horizon = nextHorizon;
+            nextHorizon = ledgerRepository.maxEntryId();
+            if (horizon > compactedUpTo) {
+                int added = ledgerRepository.snapshot(compactedUpTo, horizon);
+                compactedUpTo = horizon;
+                snapshots.add(added);
+                if (added > 0) {
+                    logger.info("Ledger compacted: {} balance snapshots up to entry {}", added, horizon);
+                }
+            }
+            ledgerRepository.thinSnapshotsBefore(LocalDateTime.now().minus(snapshotRetention));
+        } catch (Exception e) {
+            logger.warn("Ledger compaction failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Montant ramené à l'échelle de la base : l'accumulateur en mémoire tient exactement ce qui est écrit.
+     * Un montant plus précis est refusé plutôt qu'arrondi.
+     */
+    public record Leg(String account, BigDecimal amount) {
+
+        public Leg {
+            try {
+                amount = amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Amount has more than " + AMOUNT_SCALE + " decimals: " + amount);
+            }
+        }
+    }
+
+    private record Posted(BigDecimal available, BigDecimal held, long lastEntryId) {}
+
+    private static final class WalletLedger {
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean loaded;
+        private long lastEntryId;
+        private UUID accountId;
+        private BigDecimal available;
+        private BigDecimal held;
+    }
+}
@@ -3,6 +3,7 @@ package com.brokerx.service;
 import com.brokerx.dto.payment.PaymentResult;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -10,22 +11,27 @@ import java.util.UUID;
 public class MockPaymentService implements PaymentService {
     
     @Override
-    public PaymentResult processDeposit(UUID walletId, BigDecimal amount, String paymentMethod) {
+    public PaymentResult processDeposit(UUID walletId, BigDecimal amount, String paymentMethod, String idempotencyKey) {
         PaymentResult result = new PaymentResult(true, "Deposit processed successfully");
         result.setStatus("SUCCESS");
-        result.setTransactionId(UUID.randomUUID());
+        result.setTransactionId(reference(idempotencyKey));
         result.setAmount(amount);
         result.setProcessedAt(LocalDateTime.now());
         return result;
     }
     
     @Override
-    public PaymentResult processWithdrawal(UUID walletId, BigDecimal amount, String paymentMethod) {
+    public PaymentResult processWithdrawal(UUID walletId, BigDecimal amount, String paymentMethod, String idempotencyKey) {
         PaymentResult result = new PaymentResult(true, "Withdrawal processed successfully");
         result.setStatus("SUCCESS");
-        result.setTransactionId(UUID.randomUUID());
+        result.setTransactionId(reference(idempotencyKey));
         result.setAmount(amount);
         result.setProcessedAt(LocalDateTime.now());
         return result;
     }
+
+    // Même clé, même référence : un appel rejoué est reconnu comme tel
+    private static UUID reference(String idempotencyKey) {
+        return UUID.nameUUIDFromBytes(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+    }
 }
\ No newline at end of file
@@ -4,7 +4,11 @@ import com.brokerx.dto.payment.PaymentResult;
 import java.math.BigDecimal;
 import java.util.UUID;
 
+/**
+ * Prestataire de paiement. La clé d'idempotence est celle de la transaction : un appel rejoué
+ * avec la même clé renvoie le résultat du premier sans débiter ni créditer une seconde fois.
+ */
 public interface PaymentService {
-    PaymentResult processDeposit(UUID walletId, BigDecimal amount, String paymentMethod);
-    PaymentResult processWithdrawal(UUID walletId, BigDecimal amount, String paymentMethod);
-}
\ No newline at end of file
+    PaymentResult processDeposit(UUID walletId, BigDecimal amount, String paymentMethod, String idempotencyKey);
+    PaymentResult processWithdrawal(UUID walletId, BigDecimal amount, String paymentMethod, String idempotencyKey);
+}
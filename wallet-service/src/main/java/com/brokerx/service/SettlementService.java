@@ -0,0 +1,309 @@
+package com.brokerx.service;
+
+import com.brokerx.dto.payment.PaymentResult;
+import com.brokerx.repository.SettlementRepository;
+import com.brokerx.repository.SettlementRepository.PendingTransaction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Règlement asynchrone des dépôts et retraits PENDING.
+ *
+ * Chaque worker réclame un lot sous bail (SKIP LOCKED, plusieurs workers et instances se partagent la file),
+ * appelle le prestataire sans transaction ni connexion ouverte avec la clé d'idempotence de la transaction,
+ * enregistre sa réponse, puis l'applique : journal au grand livre et passage à SETTLED / FAILED dans la même
+ * transaction courte. Dépôt réglé : EXTERNAL → AVAILABLE. Retrait (fonds retenus à la demande) :
+ * HELD → EXTERNAL, ou HELD → AVAILABLE s'il échoue.
+ * Un prestataire injoignable remet la transaction en file, jusqu'à max-attempts. Une réponse enregistrée n'est
+ * jamais redemandée : si son application échoue encore après max-attempts, la transaction passe en REVIEW.
+ * Un bail expiré (worker arrêté) rend la transaction à la file.
+ */
+@Service
+public class SettlementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SettlementService.class);
+
+    private static final String GATEWAY_SUCCESS = "SUCCESS";
+
+    private final SettlementRepository settlementRepository;
+    private final LedgerService ledgerService;
+    private final PaymentService paymentService;
+    private final AuditService auditService;
+    private final UserEventBus userEventBus;
+
+    @Value("${settlement.workers:4}")
+    private int workers;
+
+    @Value("${settlement.batch-size:50}")
+    private int batchSize;
+
+    @Value("${settlement.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${settlement.lease:PT1M}")
+    private Duration lease;
+
+    @Value("${settlement.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${settlement.retry-delay:PT5S}")
+    private Duration retryDelay;
+
+    // Réveil des workers dès qu'une transaction est enregistrée, sans attendre le prochain tour
+    private final Semaphore wakeups = new Semaphore(0);
+
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder review = new LongAdder();
+
+    private volatile boolean running;
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    public SettlementService(SettlementRepository settlementRepository,
+                             LedgerService ledgerService,
+                             PaymentService paymentService,
+                             AuditService auditService,
+                             UserEventBus userEventBus) {
+        this.settlementRepository = settlementRepository;
+        this.ledgerService = ledgerService;
+        this.paymentService = paymentService;
+        this.auditService = auditService;
+        this.userEventBus = userEventBus;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::workerLoop, "settlement-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workerThreads.add(worker);
+        }
+        logger.info("Settlement workers started: {} workers, batch {}, lease {}", workers, batchSize, lease);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workerThreads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * À appeler après le commit d'une transaction PENDING.
+     */
+    public void wakeUp() {
+        wakeups.release();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "workers", workers,
+            "claimed", claimed.sum(),
+            "settled", settled.sum(),
+            "failed", failed.sum(),
+            "retried", retried.sum(),
+            "errors", errors.sum(),
+            "review", review.sum()
+        );
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                if (settleBatch() == 0) {
+                    wakeups.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                errors.increment();
+                logger.error("Settlement worker loop error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private int settleBatch() {
+        List<PendingTransaction> batch;
+        try {
+            batch = settlementRepository.claim(batchSize, lease.toMillis());
+        } catch (Exception e) {
+            errors.increment();
+            logger.warn("Settlement claim failed: {}", e.getMessage());
+            return 0;
+        }
+        claimed.add(batch.size());
+        for (PendingTransaction pending : batch) {
+            settle(pending);
+        }
+        return batch.size();
+    }
+
+    /**
+     * Aucune exception ne remonte au worker : un échec est compté, puis la transaction est retentée ou mise en revue.
+     */
+    private void settle(PendingTransaction pending) {
+        boolean deposit = "DEPOSIT".equals(pending.type());
+        try {
+            if (pending.gatewayStatus() == null) {
+                PaymentResult result = callGateway(pending, deposit);
+                if (result == null) {
+                    return;
+                }
+                pending = record(pending, result);
+            }
+            if (GATEWAY_SUCCESS.equals(pending.gatewayStatus())) {
+                complete(pending, deposit);
+            } else {
+                fail(pending, pending.gatewayMessage(), deposit);
+            }
+        } catch (Exception e) {
+            errors.increment();
+            logger.error("Failed to settle transaction {} (attempt {}): {}",
+                         pending.transactionId(), pending.attempts(), e.getMessage());
+            retryOrReview(pending, e.getMessage());
+        }
+    }
+
+    /**
+     * @return null si le prestataire est injoignable et la transaction remise en file
+     */
+    private PaymentResult callGateway(PendingTransaction pending, boolean deposit) {
+        try {
+            return deposit
+                ? paymentService.processDeposit(pending.walletId(), pending.amount(), pending.paymentMethod(), pending.key())
+                : paymentService.processWithdrawal(pending.walletId(), pending.amount(), pending.paymentMethod(), pending.key());
+        } catch (Exception e) {
+            if (pending.attempts() < maxAttempts) {
+                retried.increment();
+                logger.warn("Payment gateway error for transaction {} (attempt {}), retrying: {}",
+                            pending.transactionId(), pending.attempts(), e.getMessage());
+                settlementRepository.retryLater(pending.transactionId(), retryDelay.toMillis());
+                return null;
+            }
+            return PaymentResult.failure("GATEWAY_UNAVAILABLE", "Prestataire injoignable: " + e.getMessage());
+        }
+    }
+
+    // Réponse enregistrée avant d'écrire au grand livre : une reprise l'applique sans rappeler le prestataire
+    private PendingTransaction record(PendingTransaction pending, PaymentResult result) {
+        String status = result.isSuccess() ? GATEWAY_SUCCESS
+            : result.getStatus() != null ? result.getStatus() : "DECLINED";
+        String reference = result.getTransactionId() != null ? result.getTransactionId().toString() : null;
+        if (!settlementRepository.recordGatewayResult(pending.transactionId(), status, reference, result.getMessage())) {
+            throw new IllegalStateException("Gateway result already recorded or transaction no longer pending");
+        }
+        return pending.withGatewayResult(status, reference, result.getMessage());
+    }
+
+    private void retryOrReview(PendingTransaction pending, String reason) {
+        try {
+            if (pending.attempts() < maxAttempts) {
+                settlementRepository.retryLater(pending.transactionId(), retryDelay.toMillis());
+                return;
+            }
+            if (settlementRepository.markForReview(pending.transactionId(), reason)) {
+                review.increment();
+                logger.error("ALERT transaction {} moved to REVIEW after {} attempts (gateway status {}): {}",
+                             pending.transactionId(), pending.attempts(), pending.gatewayStatus(), reason);
+            }
+        } catch (Exception e) {
+            // Le bail expirera : la transaction sera reprise par un worker
+            logger.error("Failed to requeue transaction {}: {}", pending.transactionId(), e.getMessage());
+        }
+    }
+
+    private void complete(PendingTransaction pending, boolean deposit) {
+        List<LedgerService.Leg> legs = deposit
+            ? LedgerService.transfer(LedgerService.EXTERNAL, LedgerService.AVAILABLE, pending.amount())
+            : LedgerService.transfer(LedgerService.HELD, LedgerService.EXTERNAL, pending.amount());
+
+        BigDecimal balance = ledgerService.post(pending.walletId(), pending.type(), pending.key(), legs, available -> {
+            if (!settlementRepository.markSettled(pending.transactionId(), pending.gatewayReference())) {
+                throw new IllegalStateException("Transaction no longer pending: " + pending.transactionId());
+            }
+            audit(pending, "SETTLED", available);
+            if (deposit) {
+                publishBalance(pending.walletId(), available, pending.amount(), "DEPOSIT");
+            }
+        });
+        if (balance == null) {
+            // Retrait sans fonds retenus : incohérence, retentée puis mise en revue
+            throw new IllegalStateException("No held funds for withdrawal on wallet " + pending.walletId());
+        }
+        settled.increment();
+        logger.info("{} settled: transactionId={}, walletId={}, amount={}, balance={}",
+                    pending.type(), pending.transactionId(), pending.walletId(), pending.amount(), balance);
+    }
+
+    private void fail(PendingTransaction pending, String reason, boolean deposit) {
+        if (deposit) {
+            // Rien n'a été crédité : seul le statut change
+            if (!settlementRepository.markFailed(pending.transactionId(), reason)) {
+                return;
+            }
+            audit(pending, "FAILED", null);
+        } else {
+            BigDecimal balance = ledgerService.post(pending.walletId(), "RELEASE", pending.key(),
+                LedgerService.transfer(LedgerService.HELD, LedgerService.AVAILABLE, pending.amount()), available -> {
+                    if (!settlementRepository.markFailed(pending.transactionId(), reason)) {
+                        throw new IllegalStateException("Transaction no longer pending: " + pending.transactionId());
+                    }
+                    audit(pending, "FAILED", available);
+                    publishBalance(pending.walletId(), available, pending.amount(), "RELEASE");
+                });
+            if (balance == null) {
+                throw new IllegalStateException("No held funds to release on wallet " + pending.walletId());
+            }
+        }
+        failed.increment();
+        logger.warn("{} failed: transactionId={}, walletId={}, reason={}",
+                    pending.type(), pending.transactionId(), pending.walletId(), reason);
+    }
+
+    private void audit(PendingTransaction pending, String status, BigDecimal available) {
+        auditService.logAction(
+            "TRANSACTION",
+            pending.transactionId(),
+            pending.type(),
+            null,
+            null,
+            Map.of(
+                "walletId", pending.walletId().toString(),
+                "amount", pending.amount().toString(),
+                "status", status,
+                "newBalance", available != null ? available.toString() : "unchanged",
+                "paymentMethod", pending.paymentMethod() != null ? pending.paymentMethod() : "UNKNOWN"
+            )
+        );
+    }
+
+    private void publishBalance(UUID walletId, BigDecimal balance, BigDecimal change, String type) {
+        userEventBus.publishAfterCommit(walletId, "balance", "balance", Map.of(
+            "walletId", walletId,
+            "balance", balance,
+            "change", change,
+            "transactionType", type
+        ));
+    }
+}
@@ -0,0 +1,262 @@
+package com.brokerx.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bus d'événements en mémoire poussés aux navigateurs en SSE, par portefeuille.
+ * Les producteurs ne font que déposer dans la file de chaque abonné (jamais d'I/O) ;
+ * l'envoi se fait sur un pool dédié. Tant qu'un abonné lent n'a pas reçu un événement,
+ * une version plus récente de la même clé le remplace (conflation). Si la file déborde,
+ * les plus anciens sont abandonnés et le client reçoit « resync » pour tout relire.
+ */
+@Component
+public class UserEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventBus.class);
+
+    private static final String HEARTBEAT_KEY = "heartbeat";
+
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    @Value("${events.max-pending:256}")
+    private int maxPending;
+
+    @Value("${events.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${events.emitter-timeout:PT30M}")
+    private Duration emitterTimeout;
+
+    @Value("${events.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeats;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "event-push-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    public SseEmitter subscribe(UUID key) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(key, emitter);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        // Premier événement : le client (re)charge son état, y compris après une reconnexion
+        subscriber.offer(new Event("ready", "ready", Map.of("subscribedAt", System.currentTimeMillis())));
+        return emitter;
+    }
+
+    /**
+     * Dépose un événement pour les abonnés de la clé ; sans abonné, ne coûte qu'une lecture de map.
+     *
+     * @param conflationKey événements de même clé remplacés par le plus récent tant qu'ils ne sont pas envoyés
+     */
+    public void publish(UUID key, String name, String conflationKey, Object payload) {
+        Set<Subscriber> targets = subscribers.get(key);
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        published.increment();
+        Event event = new Event(name, conflationKey, payload);
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * Comme {@link #publish}, une fois la transaction courante commitée ; rien en cas de rollback.
+     */
+    public void publishAfterCommit(UUID key, String name, String conflationKey, Object payload) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(key, name, conflationKey, payload);
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        int connections = subscribers.values().stream().mapToInt(Set::size).sum();
+        return Map.of(
+            "subscribedKeys", subscribers.size(),
+            "connections", connections,
+            "published", published.sum(),
+            "delivered", delivered.sum(),
+            "conflated", conflated.sum(),
+            "dropped", dropped.sum()
+        );
+    }
+
+    private void heartbeat() {
+        Event event = new Event(null, HEARTBEAT_KEY, null);
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(event)));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscriber {
+        private final UUID key;
+        private final SseEmitter emitter;
+        // Verrou court, sans I/O ; l'ordre d'insertion donne l'ordre d'envoi
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Event> pending = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private boolean resyncNeeded;
+
+        private Subscriber(UUID key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            lock.lock();
+            try {
+                if (pending.remove(event.conflationKey()) != null) {
+                    conflated.increment();
+                }
+                pending.put(event.conflationKey(), event);
+                if (pending.size() > maxPending) {
+                    Iterator<String> eldest = pending.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    dropped.increment();
+                    resyncNeeded = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * Un seul drain actif par abonné : les envois d'un même flux restent ordonnés.
+         */
+        private void drain() {
+            while (true) {
+                List<Event> batch;
+                boolean resync;
+                lock.lock();
+                try {
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                    resync = resyncNeeded;
+                    resyncNeeded = false;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (batch.isEmpty() && !resync) {
+                    draining.set(false);
+                    // Un offer a pu arriver entre le vidage et la remise à false
+                    if (isIdle() || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+
+                try {
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name("resync").data(Map.of("reason", "events dropped")));
+                    }
+                    for (Event event : batch) {
+                        send(event);
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client parti : l'abonnement est retiré, les événements restants sont ignorés
+                    logger.debug("SSE subscriber {} disconnected: {}", key, e.getMessage());
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        private void send(Event event) throws IOException {
+            if (event.name() == null) {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+                return;
+            }
+            emitter.send(SseEmitter.event().name(event.name()).data(event.payload(), MediaType.APPLICATION_JSON));
+            delivered.increment();
+        }
+
+        private boolean isIdle() {
+            lock.lock();
+            try {
+                return pending.isEmpty() && !resyncNeeded;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Event(String name, String conflationKey, Object payload) {}
+}
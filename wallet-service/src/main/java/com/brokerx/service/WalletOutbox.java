@@ -0,0 +1,104 @@
+package com.brokerx.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox transactionnel des soldes : chaque modification d'un wallet ajoute une ligne portant
+ * l'état complet, dans la même transaction. Les consommateurs (projection d'order-service)
+ * lisent le flux par curseur sur seq via GET /wallets/changes ; les lignes anciennes sont purgées.
+ *
+ * L'insertion doit suivre l'UPDATE du wallet (ou l'écriture au grand livre) : le verrou de ligne ordonne alors les seq
+ * d'un même wallet dans l'ordre des commits.
+ */
+@Component
+public class WalletOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalletOutbox.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.max-batch:1000}")
+    private int maxBatch;
+
+    @Value("${outbox.retention:PT24H}")
+    private Duration retention;
+
+    @Value("${outbox.purge-interval:PT10M}")
+    private Duration purgeInterval;
+
+    private ScheduledExecutorService purger;
+
+    public WalletOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-outbox-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = purgeInterval.toMillis();
+        purger.scheduleWithFixedDelay(this::purge, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    /**
+     * À appeler dans la transaction qui modifie le wallet, après son flush.
+     */
+    public void record(UUID walletId, UUID accountId, BigDecimal balance) {
+        jdbcTemplate.update("INSERT INTO wallet_outbox (wallet_id, account_id, balance) VALUES (?, ?, ?)",
+                            walletId, accountId, balance);
+    }
+
+    /**
+     * Changements de seq strictement supérieure à {@code after}, dans l'ordre, et seq la plus haute connue.
+     * Sans curseur (after négatif), seule la tête est renvoyée : le consommateur démarre à partir d'elle.
+     */
+    public Map<String, Object> readAfter(long after, int limit) {
+        Long head = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM wallet_outbox", Long.class);
+        List<Map<String, Object>> changes = after < 0
+            ? List.of()
+            : jdbcTemplate.queryForList(
+                "SELECT seq, wallet_id AS \"walletId\", account_id AS \"accountId\", balance " +
+                "FROM wallet_outbox WHERE seq > ? ORDER BY seq LIMIT ?",
+                after, Math.max(1, Math.min(limit, maxBatch)));
+        return Map.of("head", head != null ? head : 0L, "changes", changes);
+    }
+
+    private void purge() {
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM wallet_outbox WHERE created_at < ?",
+                                             Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+            if (purged > 0) {
+                logger.info("Wallet outbox purged: {} rows older than {}", purged, retention);
+            }
+        } catch (Exception e) {
+            logger.warn("Wallet outbox purge failed: {}", e.getMessage());
+        }
+    }
+}
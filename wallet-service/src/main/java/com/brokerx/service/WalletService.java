@@ -8,11 +8,14 @@ import com.brokerx.repository.TransactionRepository;
 import com.brokerx.dto.payment.PaymentResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.Map;
@@ -22,27 +25,45 @@ public class WalletService {
 
     private static final Logger logger = LoggerFactory.getLogger(WalletService.class);
     private final WalletRepository walletRepository;
-    private final PaymentService paymentService;
+    private final SettlementService settlementService;
     private final TransactionRepository transactionRepository;
     private final RestTemplate restTemplate;
     private final AuditService auditService; // ✅ AJOUT
+    private final UserEventBus userEventBus;
+    private final WalletOutbox walletOutbox;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyCache idempotencyCache;
 
     private static final String ACCOUNT_SERVICE_URL = "http://account-service:8081";
+    // Place laissée au préfixe walletId dans idempotency_key (VARCHAR 255)
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 200;
 
-    public WalletService(WalletRepository walletRepository, PaymentService paymentService, 
+    public WalletService(WalletRepository walletRepository, SettlementService settlementService,
                         TransactionRepository transactionRepository, RestTemplate restTemplate,
-                        AuditService auditService) { // ✅ AJOUT
+                        AuditService auditService, // ✅ AJOUT
+                        UserEventBus userEventBus,
+                        WalletOutbox walletOutbox,
+                        LedgerService ledgerService,
+                        TransactionTemplate transactionTemplate,
+                        IdempotencyCache idempotencyCache) {
         this.walletRepository = walletRepository;
-        this.paymentService = paymentService;
+        this.settlementService = settlementService;
         this.transactionRepository = transactionRepository;
         this.restTemplate = restTemplate;
         this.auditService = auditService; // ✅ AJOUT
+        this.userEventBus = userEventBus;
+        this.walletOutbox = walletOutbox;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyCache = idempotencyCache;
     }
 
     public List<Wallet> getAllWallets() {
         return walletRepository.findAll();
     }
 
+    @Transactional
     public Wallet createWallet(UUID accountId) {
         boolean accountExists = checkAccountExists(accountId);
         if (!accountExists) {
@@ -52,9 +73,9 @@ public class WalletService {
         Wallet wallet = new Wallet();
         wallet.setAccountId(accountId);
         wallet.setCurrency("USD");
-        wallet.setBalance(BigDecimal.ZERO);
         
-        Wallet savedWallet = walletRepository.save(wallet);
+        Wallet savedWallet = walletRepository.saveAndFlush(wallet);
+        walletOutbox.record(savedWallet.getWalletId(), accountId, BigDecimal.ZERO);
         logger.info("Wallet created: walletId={}, accountId={}", savedWallet.getWalletId(), accountId);
         
         // ✅ AUDIT : Log création wallet
@@ -93,102 +114,189 @@ public class WalletService {
         }
     }
 
-    @Transactional
-    public PaymentResult deposit(UUID walletId, Double amount, String paymentMethod) {
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new RuntimeException("Wallet non trouvé"));
-        
-        BigDecimal oldBalance = wallet.getBalance();
-        
-        PaymentResult paymentResult = paymentService.processDeposit(
-            walletId, BigDecimal.valueOf(amount), paymentMethod);
-        
-        if (paymentResult.isSuccess()) {
-            wallet.setBalance(wallet.getBalance().add(paymentResult.getAmount()));
-            walletRepository.save(wallet);
-            
-            Transaction transaction = new Transaction();
-            transaction.setWallet(wallet);
-            transaction.setAmount(paymentResult.getAmount());
-            transaction.setTransactionType("DEPOSIT");
-            transaction.setStatus("SETTLED");
-            transaction.setIdempotencyKey(paymentResult.getTransactionId().toString());
-            Transaction savedTx = transactionRepository.save(transaction);
-            
-            // ✅ AUDIT : Log dépôt
-            auditService.logAction(
-                "TRANSACTION", 
-                savedTx.getTransactionId(), 
-                "DEPOSIT", 
-                null, // Pourrait être l'userId si disponible
-                null,
-                Map.of(
-                    "walletId", walletId.toString(),
-                    "amount", paymentResult.getAmount().toString(),
-                    "oldBalance", oldBalance.toString(),
-                    "newBalance", wallet.getBalance().toString(),
-                    "paymentMethod", paymentMethod
-                )
-            );
-            
-            logger.info("Deposit successful: walletId={}, amount={}, newBalance={}", 
-                       walletId, paymentResult.getAmount(), wallet.getBalance());
+    /**
+     * Dépôt : enregistre une transaction PENDING et rend la main ; le paiement est traité par
+     * les workers de règlement, qui créditent le wallet une fois le prestataire d'accord.
+     * Une requête rejouée avec la même {@code idempotencyKey} reçoit le résultat d'origine.
+     */
+    public PaymentResult deposit(UUID walletId, Double amount, String paymentMethod, String idempotencyKey) {
+        BigDecimal depositAmount = BigDecimal.valueOf(amount);
+        if (!isValidIdempotencyKey(idempotencyKey)) {
+            return PaymentResult.failure("INVALID_IDEMPOTENCY_KEY", "Idempotency-Key invalide");
         }
-        
-        return paymentResult;
+        String key = scopedKey(walletId, idempotencyKey);
+        if (idempotencyKey != null) {
+            PaymentResult replayed = replay(key, "DEPOSIT", depositAmount);
+            if (replayed != null) {
+                return replayed;
+            }
+        }
+        if (!walletRepository.existsById(walletId)) {
+            throw new RuntimeException("Wallet non trouvé");
+        }
+
+        Transaction pending;
+        try {
+            pending = transactionTemplate.execute(status -> transactionRepository.saveAndFlush(
+                newPendingTransaction(walletId, depositAmount, "DEPOSIT", paymentMethod, key)));
+        } catch (DataIntegrityViolationException e) {
+            // Requête concurrente avec la même clé : l'index unique a tranché, on renvoie son résultat
+            PaymentResult replayed = idempotencyKey != null ? replay(key, "DEPOSIT", depositAmount) : null;
+            if (replayed == null) {
+                throw e;
+            }
+            return replayed;
+        }
+        settlementService.wakeUp();
+
+        logger.info("Deposit pending settlement: transactionId={}, walletId={}, amount={}",
+                   pending.getTransactionId(), walletId, depositAmount);
+        return remember(key, idempotencyKey, pending);
     }
 
-    @Transactional
-    public PaymentResult withdraw(UUID walletId, Double amount, String paymentMethod) {
+    /**
+     * Retrait : les fonds sont retenus tout de suite (AVAILABLE → HELD, refusé s'il créerait un découvert,
+     * même sous concurrence) avec une transaction PENDING ; le versement est fait par les workers de règlement.
+     * Une requête rejouée avec la même {@code idempotencyKey} reçoit le résultat d'origine sans nouvelle retenue.
+     */
+    public PaymentResult withdraw(UUID walletId, Double amount, String paymentMethod, String idempotencyKey) {
         logger.info("Initiating withdrawal: walletId={}, amount={}", walletId, amount);
-        
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new RuntimeException("Wallet non trouvé"));
-        
+
         BigDecimal withdrawAmount = BigDecimal.valueOf(amount);
-        BigDecimal oldBalance = wallet.getBalance();
-        
-        if (wallet.getBalance().compareTo(withdrawAmount) < 0) {
-            return PaymentResult.failure("INSUFFICIENT_FUNDS", "Fonds insuffisants");
+        if (!isValidIdempotencyKey(idempotencyKey)) {
+            return PaymentResult.failure("INVALID_IDEMPOTENCY_KEY", "Idempotency-Key invalide");
         }
-        
-        PaymentResult paymentResult = paymentService.processWithdrawal(
-            walletId, withdrawAmount, paymentMethod);
-        
-        if (paymentResult.isSuccess()) {
-            BigDecimal newBalance = wallet.getBalance().subtract(paymentResult.getAmount());
-            wallet.setBalance(newBalance);
-            walletRepository.save(wallet);
-            
-            Transaction transaction = new Transaction();
-            transaction.setWallet(wallet);
-            transaction.setAmount(paymentResult.getAmount());
-            transaction.setTransactionType("WITHDRAWAL");
-            transaction.setStatus("SETTLED");
-            transaction.setIdempotencyKey(paymentResult.getTransactionId().toString());
-            Transaction savedTx = transactionRepository.save(transaction);
-            
-            // ✅ AUDIT : Log retrait
-            auditService.logAction(
-                "TRANSACTION", 
-                savedTx.getTransactionId(), 
-                "WITHDRAWAL", 
-                null,
-                null,
-                Map.of(
-                    "walletId", walletId.toString(),
-                    "amount", paymentResult.getAmount().toString(),
-                    "oldBalance", oldBalance.toString(),
-                    "newBalance", newBalance.toString(),
-                    "paymentMethod", paymentMethod
-                )
-            );
-            
-            logger.info("Withdrawal completed: walletId={}, amount={}, newBalance={}", 
-                       walletId, paymentResult.getAmount(), newBalance);
+        String key = scopedKey(walletId, idempotencyKey);
+        if (idempotencyKey != null) {
+            PaymentResult replayed = replay(key, "WITHDRAWAL", withdrawAmount);
+            if (replayed != null) {
+                return replayed;
+            }
         }
-        
-        return paymentResult;
+
+        Transaction[] pending = new Transaction[1];
+        BigDecimal newBalance;
+        try {
+            newBalance = ledgerService.post(
+                walletId, "HOLD", key,
+                LedgerService.transfer(LedgerService.AVAILABLE, LedgerService.HELD, withdrawAmount),
+                balance -> {
+                    pending[0] = transactionRepository.saveAndFlush(
+                        newPendingTransaction(walletId, withdrawAmount, "WITHDRAWAL", paymentMethod, key));
+                    publishBalanceAfterCommit(walletId, balance, withdrawAmount.negate(), "WITHDRAWAL");
+                });
+        } catch (DataIntegrityViolationException e) {
+            // Doublon concurrent : la retenue a été annulée avec la transaction, on renvoie le premier résultat
+            PaymentResult replayed = idempotencyKey != null ? replay(key, "WITHDRAWAL", withdrawAmount) : null;
+            if (replayed == null) {
+                throw e;
+            }
+            return replayed;
+        }
+        if (newBalance == null) {
+            // Le doublon concurrent a pu être refusé parce que l'original a déjà retenu les fonds
+            PaymentResult replayed = idempotencyKey != null ? replay(key, "WITHDRAWAL", withdrawAmount) : null;
+            return replayed != null ? replayed : PaymentResult.failure("INSUFFICIENT_FUNDS", "Fonds insuffisants");
+        }
+        settlementService.wakeUp();
+
+        logger.info("Withdrawal pending settlement: transactionId={}, walletId={}, amount={}, available={}",
+                   pending[0].getTransactionId(), walletId, withdrawAmount, newBalance);
+        return remember(key, idempotencyKey, pending[0]);
+    }
+
+    public BigDecimal getCurrentBalance(UUID walletId) {
+        return ledgerService.available(walletId);
+    }
+
+    public BigDecimal getBalanceAt(UUID walletId, LocalDateTime at) {
+        return ledgerService.availableAt(walletId, at);
+    }
+
+    private Transaction newPendingTransaction(UUID walletId, BigDecimal amount, String type, String paymentMethod,
+                                              String key) {
+        Transaction transaction = new Transaction();
+        // Référence sans chargement : le wallet n'est pas relu
+        transaction.setWallet(walletRepository.getReferenceById(walletId));
+        transaction.setAmount(amount);
+        transaction.setTransactionType(type);
+        transaction.setStatus("PENDING");
+        transaction.setPaymentMethod(paymentMethod);
+        transaction.setIdempotencyKey(key);
+        return transaction;
+    }
+
+    /**
+     * Clé stockée dans transactions.idempotency_key : celle du client préfixée par le wallet
+     * (deux clients ne peuvent pas se gêner), ou une clé aléatoire sans en-tête.
+     */
+    private String scopedKey(UUID walletId, String idempotencyKey) {
+        return idempotencyKey == null ? UUID.randomUUID().toString() : walletId + ":" + idempotencyKey;
+    }
+
+    private static boolean isValidIdempotencyKey(String idempotencyKey) {
+        return idempotencyKey == null
+            || (!idempotencyKey.isBlank() && idempotencyKey.length() <= MAX_IDEMPOTENCY_KEY_LENGTH);
+    }
+
+    /**
+     * Résultat déjà rendu pour cette clé : d'abord le cache, puis l'index unique (clé évincée,
+     * expirée ou reçue par une autre instance). Null si la clé est nouvelle ; échec
+     * IDEMPOTENCY_KEY_REUSED si elle a servi à une autre opération ou un autre montant.
+     */
+    private PaymentResult replay(String key, String type, BigDecimal amount) {
+        IdempotencyCache.Entry cached = idempotencyCache.get(key);
+        if (cached == null) {
+            Transaction existing = transactionRepository.findByIdempotencyKey(key).orElse(null);
+            if (existing == null) {
+                return null;
+            }
+            cached = idempotencyCache.put(key, existing.getTransactionType(), existing.getAmount(),
+                                          transactionResult(existing));
+        }
+        if (!cached.matches(type, amount)) {
+            logger.warn("Idempotency key reused for a different request: key={}", key);
+            return PaymentResult.failure("IDEMPOTENCY_KEY_REUSED",
+                                         "Idempotency-Key déjà utilisée pour une autre opération");
+        }
+        logger.info("Idempotent replay: key={}, transactionId={}", key, cached.result().getTransactionId());
+        return cached.result();
+    }
+
+    private PaymentResult remember(String key, String idempotencyKey, Transaction transaction) {
+        PaymentResult result = transactionResult(transaction);
+        if (idempotencyKey != null) {
+            idempotencyCache.put(key, transaction.getTransactionType(), transaction.getAmount(), result);
+        }
+        return result;
+    }
+
+    private PaymentResult transactionResult(Transaction transaction) {
+        boolean deposit = "DEPOSIT".equals(transaction.getTransactionType());
+        PaymentResult result;
+        if ("FAILED".equals(transaction.getStatus())) {
+            result = PaymentResult.failure("FAILED", transaction.getFailureReason());
+        } else {
+            result = new PaymentResult(true, "SETTLED".equals(transaction.getStatus())
+                ? (deposit ? "Dépôt réglé" : "Retrait réglé")
+                : (deposit ? "Dépôt en attente de règlement" : "Retrait en attente de règlement"));
+            result.setStatus(transaction.getStatus());
+        }
+        result.setTransactionId(transaction.getTransactionId());
+        result.setAmount(transaction.getAmount());
+        return result;
+    }
+
+    /**
+     * Pousse le nouveau solde aux abonnés SSE du portefeuille une fois la transaction commitée.
+     */
+    private void publishBalanceAfterCommit(UUID walletId, BigDecimal balance, BigDecimal change, String type) {
+        userEventBus.publishAfterCommit(walletId, "balance", "balance", Map.of(
+            "walletId", walletId,
+            "balance", balance,
+            "change", change,
+            "transactionType", type
+        ));
     }
 
     public Wallet getWalletByAccountId(UUID accountId) {
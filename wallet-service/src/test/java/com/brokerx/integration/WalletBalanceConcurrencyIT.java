@@ -0,0 +1,206 @@
+package com.brokerx.integration;
+
+import com.brokerx.dto.payment.PaymentResult;
+import com.brokerx.service.WalletService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Mouvements de solde concurrents sur un même wallet : aucune mise à jour perdue, jamais de découvert,
+ * le grand livre en base concorde avec l'accumulateur en mémoire, et toutes les transactions PENDING
+ * sont réglées par les workers.
+ */
+public class WalletBalanceConcurrencyIT extends BaseIntegrationTest {
+
+    private static final int THREADS = 64;
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testConcurrentDepositsLoseNoUpdate() throws Exception {
+        // Given
+        UUID walletId = createWallet(BigDecimal.ZERO);
+
+        // When
+        runConcurrently(() -> {
+            PaymentResult result = walletService.deposit(walletId, 1.0, "CARD", null);
+            assertTrue(result.isSuccess());
+            assertEquals("PENDING", result.getStatus());
+        });
+        awaitSettlement(walletId);
+
+        // Then
+        BigDecimal expected = BigDecimal.valueOf(THREADS * OPERATIONS_PER_THREAD);
+        assertEquals(0, expected.compareTo(walletService.getCurrentBalance(walletId)));
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, countTransactions(walletId, "SETTLED"));
+        // Le dernier changement publié dans l'outbox porte le solde final
+        BigDecimal lastPublished = jdbcTemplate.queryForObject(
+            "SELECT balance FROM wallet_outbox WHERE wallet_id = ? ORDER BY seq DESC LIMIT 1", BigDecimal.class, walletId);
+        assertEquals(0, expected.compareTo(lastPublished));
+        // Le grand livre relu depuis la base (instantané + queue) donne le même solde que l'accumulateur
+        assertEquals(0, expected.compareTo(walletService.getBalanceAt(walletId, LocalDateTime.now())));
+    }
+
+    @Test
+    void testConcurrentWithdrawalsNeverOverdraw() throws Exception {
+        // Given
+        int available = 100;
+        UUID walletId = createWallet(BigDecimal.valueOf(available));
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // When
+        runConcurrently(() -> {
+            PaymentResult result = walletService.withdraw(walletId, 1.0, "BANK_TRANSFER", null);
+            if (result.isSuccess()) {
+                succeeded.incrementAndGet();
+            } else {
+                assertEquals("INSUFFICIENT_FUNDS", result.getStatus());
+                rejected.incrementAndGet();
+            }
+        });
+
+        // Then : les fonds sont retenus dès la demande, puis versés par les workers
+        assertEquals(available, succeeded.get());
+        assertEquals(THREADS * OPERATIONS_PER_THREAD - available, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getCurrentBalance(walletId)));
+        awaitSettlement(walletId);
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getCurrentBalance(walletId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledgerBalance(walletId, "HELD")));
+        // Le dépôt initial et les retraits acceptés
+        assertEquals(available + 1, countTransactions(walletId, "SETTLED"));
+    }
+
+    @Test
+    void testConcurrentDepositsAndWithdrawalsBalanceOut() throws Exception {
+        // Given
+        UUID walletId = createWallet(new BigDecimal("10000.00"));
+        AtomicInteger turn = new AtomicInteger();
+
+        // When : autant de dépôts que de retraits de 2.50 ; le solde initial couvre tous les retraits
+        // même si aucun dépôt n'est encore réglé
+        runConcurrently(() -> {
+            PaymentResult result = turn.getAndIncrement() % 2 == 0
+                ? walletService.deposit(walletId, 2.5, "CARD", null)
+                : walletService.withdraw(walletId, 2.5, "BANK_TRANSFER", null);
+            assertTrue(result.isSuccess());
+        });
+
+        awaitSettlement(walletId);
+
+        // Then
+        assertEquals(0, new BigDecimal("10000.00").compareTo(walletService.getCurrentBalance(walletId)));
+        assertEquals(0, new BigDecimal("10000.00").compareTo(ledgerBalance(walletId, "AVAILABLE")));
+    }
+
+    @Test
+    void testRetriedWithdrawalWithSameIdempotencyKeyHoldsOnce() throws Exception {
+        // Given : de quoi couvrir un seul retrait
+        UUID walletId = createWallet(new BigDecimal("10.00"));
+        String idempotencyKey = UUID.randomUUID().toString();
+        List<UUID> transactionIds = Collections.synchronizedList(new ArrayList<>());
+
+        // When : tempête de rejeux concurrents de la même requête
+        runConcurrently(() -> {
+            PaymentResult result = walletService.withdraw(walletId, 10.0, "BANK_TRANSFER", idempotencyKey);
+            assertTrue(result.isSuccess());
+            transactionIds.add(result.getTransactionId());
+        });
+
+        // Then : une seule retenue, un seul retrait, le même résultat pour tous
+        assertEquals(1, transactionIds.stream().distinct().count());
+        awaitSettlement(walletId);
+        // Le dépôt initial et l'unique retrait
+        assertEquals(2, countTransactions(walletId, "SETTLED"));
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletService.getCurrentBalance(walletId)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledgerBalance(walletId, "HELD")));
+
+        // Même clé, autre montant : refusé
+        assertEquals("IDEMPOTENCY_KEY_REUSED",
+                     walletService.withdraw(walletId, 5.0, "BANK_TRANSFER", idempotencyKey).getStatus());
+    }
+
+    private void runConcurrently(Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        operation.run();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                // Remonte les échecs d'assertion des threads
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UUID createWallet(BigDecimal balance) throws InterruptedException {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        UUID userId = jdbcTemplate.queryForObject(
+            "INSERT INTO users (email, phone, hashed_password) VALUES (?, ?, 'pass') RETURNING user_id",
+            UUID.class, "wallet-" + suffix + "@test.com", "555" + suffix);
+        UUID accountId = jdbcTemplate.queryForObject(
+            "INSERT INTO accounts (user_id, status) VALUES (?, 'ACTIVE') RETURNING account_id", UUID.class, userId);
+        UUID walletId = jdbcTemplate.queryForObject(
+            "INSERT INTO wallets (account_id) VALUES (?) RETURNING wallet_id", UUID.class, accountId);
+        if (balance.signum() > 0) {
+            assertTrue(walletService.deposit(walletId, balance.doubleValue(), "CARD", null).isSuccess());
+            awaitSettlement(walletId);
+        }
+        return walletId;
+    }
+
+    private int countTransactions(UUID walletId, String status) {
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transactions WHERE wallet_id = ? AND status = ?", Integer.class, walletId, status);
+        return count != null ? count : 0;
+    }
+
+    private BigDecimal ledgerBalance(UUID walletId, String account) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COALESCE(SUM(amount), 0) FROM ledger_entries WHERE wallet_id = ? AND ledger_account = ?",
+            BigDecimal.class, walletId, account);
+    }
+
+    /**
+     * Attend que les workers de règlement aient traité toutes les transactions PENDING du wallet.
+     */
+    private void awaitSettlement(UUID walletId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (countTransactions(walletId, "PENDING") > 0) {
+            assertTrue(System.nanoTime() < deadline, "Transactions still pending after 2 minutes");
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+    }
+}